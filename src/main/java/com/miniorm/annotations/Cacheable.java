@@ -0,0 +1,16 @@
+package com.miniorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Cacheable {
+    int maxSize() default 10_000;
+
+    long ttlSeconds() default 0;
+
+    EvictionPolicy eviction() default EvictionPolicy.LRU;
+}
@@ -9,4 +9,8 @@ import java.lang.annotation.Target;
 @Target(ElementType.FIELD)
 public @interface Column {
     String name();
+
+    // Column size for BigDecimal fields; values that do not fit are rejected rather than rounded.
+    int precision() default 19;
+    int scale() default 4;
 }
\ No newline at end of file
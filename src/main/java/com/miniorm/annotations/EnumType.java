@@ -0,0 +1,6 @@
+package com.miniorm.annotations;
+
+public enum EnumType {
+    STRING,
+    ORDINAL
+}
@@ -0,0 +1,13 @@
+package com.miniorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// How an enum @Column is stored; unannotated enums are stored by name.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Enumerated {
+    EnumType value() default EnumType.STRING;
+}
@@ -0,0 +1,6 @@
+package com.miniorm.annotations;
+
+public enum EvictionPolicy {
+    LRU,
+    TINY_LFU
+}
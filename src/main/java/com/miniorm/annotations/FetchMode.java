@@ -0,0 +1,7 @@
+package com.miniorm.annotations;
+
+public enum FetchMode {
+    SELECT,
+    BATCH,
+    JOIN
+}
\ No newline at end of file
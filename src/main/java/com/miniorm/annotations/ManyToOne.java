@@ -7,4 +7,10 @@ import java.lang.annotation.Target;
 
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
-public @interface ManyToOne {}
\ No newline at end of file
+public @interface ManyToOne {
+    FetchType fetch() default FetchType.EAGER;
+
+    FetchMode fetchMode() default FetchMode.SELECT;
+
+    int batchSize() default 100;
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.miniorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Optimistic lock counter (int/Integer/long/Long). Mapped like a @Column, named by @Column or the field name;
+// updates and deletes only match the version that was read and bump it on success.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Version {}
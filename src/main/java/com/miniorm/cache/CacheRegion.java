@@ -0,0 +1,156 @@
+package com.miniorm.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import com.miniorm.annotations.EvictionPolicy;
+
+// Bounded map of key -> cached value, striped into independently locked LRU segments.
+public class CacheRegion<V> {
+    private final String name;
+    private final CacheRegionConfig config;
+    private final List<Segment> segments;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public CacheRegion(String name, CacheRegionConfig config) {
+        this.name = name;
+        this.config = config;
+        this.ttlNanos = config.ttl() == null ? 0 : config.ttl().toNanos();
+
+        int segmentCount = config.maxSize() < 256 ? 1 : Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2));
+        this.segments = new ArrayList<>(segmentCount);
+        int perSegment = (config.maxSize() + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new Segment(perSegment, config.eviction() == EvictionPolicy.TINY_LFU));
+        }
+    }
+
+    public V get(Object id) {
+        V value = segmentFor(id).get(id);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(Object id, V value) {
+        puts.increment();
+        segmentFor(id).put(id, value);
+    }
+
+    // Puts only if the condition still holds under the segment lock, so a concurrent evict cannot be undone.
+    public void putIf(Object id, V value, BooleanSupplier condition) {
+        puts.increment();
+        segmentFor(id).putIf(id, value, condition);
+    }
+
+    public void evict(Object id) {
+        segmentFor(id).remove(id);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), puts.sum(), evictions.sum(), expirations.sum(), size());
+    }
+
+    public String getName() { return name; }
+    public CacheRegionConfig getConfig() { return config; }
+
+    private Segment segmentFor(Object id) {
+        int h = id.hashCode();
+        h ^= h >>> 16;
+        return segments.get(h & (segments.size() - 1));
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final class Segment {
+        private final int capacity;
+        private final FrequencySketch sketch;
+        private final LinkedHashMap<Object, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int capacity, boolean tinyLfu) {
+            this.capacity = capacity;
+            this.sketch = tinyLfu ? new FrequencySketch(capacity) : null;
+        }
+
+        synchronized V get(Object id) {
+            if (sketch != null) {
+                sketch.increment(id);
+            }
+            Entry<V> entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() != 0 && System.nanoTime() - entry.expiresAt() > 0) {
+                entries.remove(id);
+                expirations.increment();
+                return null;
+            }
+            return entry.value();
+        }
+
+        synchronized void put(Object id, V value) {
+            long expiresAt = ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos;
+            if (sketch != null) {
+                sketch.increment(id);
+            }
+            if (entries.size() >= capacity && !entries.containsKey(id)) {
+                Iterator<Map.Entry<Object, Entry<V>>> eldest = entries.entrySet().iterator();
+                Object victim = eldest.next().getKey();
+                // TinyLFU admission: keep the LRU victim if it has been used more often than the newcomer.
+                if (sketch != null && sketch.frequency(id) <= sketch.frequency(victim)) {
+                    evictions.increment();
+                    return;
+                }
+                eldest.remove();
+                evictions.increment();
+            }
+            entries.put(id, new Entry<>(value, expiresAt));
+        }
+
+        synchronized void putIf(Object id, V value, BooleanSupplier condition) {
+            if (condition.getAsBoolean()) {
+                put(id, value);
+            }
+        }
+
+        synchronized void remove(Object id) {
+            entries.remove(id);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
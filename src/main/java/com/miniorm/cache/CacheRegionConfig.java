@@ -0,0 +1,22 @@
+package com.miniorm.cache;
+
+import java.time.Duration;
+
+import com.miniorm.annotations.Cacheable;
+import com.miniorm.annotations.EvictionPolicy;
+
+public record CacheRegionConfig(int maxSize, Duration ttl, EvictionPolicy eviction) {
+
+    public CacheRegionConfig {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache region max size must be at least 1");
+        }
+        if (ttl != null && (ttl.isZero() || ttl.isNegative())) {
+            ttl = null;
+        }
+    }
+
+    public static CacheRegionConfig of(Cacheable cacheable) {
+        return new CacheRegionConfig(cacheable.maxSize(), Duration.ofSeconds(cacheable.ttlSeconds()), cacheable.eviction());
+    }
+}
@@ -0,0 +1,9 @@
+package com.miniorm.cache;
+
+public record CacheStatistics(long hits, long misses, long puts, long evictions, long expirations, long size) {
+
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
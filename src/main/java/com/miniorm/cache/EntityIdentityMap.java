@@ -0,0 +1,232 @@
+package com.miniorm.cache;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.miniorm.cache.FirstLevelCache.ReferenceMode;
+
+// Identity map for one entity class. Integral ids live in an open-addressing long table, so lookups
+// never box; other id types fall back to a HashMap. In WEAK/SOFT mode the values are references and
+// entries whose entity was collected are purged from a ReferenceQueue on each write.
+final class EntityIdentityMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReferenceMode mode;
+    private final ReferenceQueue<Object> queue;
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private Map<Object, Object> others;
+
+    EntityIdentityMap(ReferenceMode mode) {
+        this.mode = mode;
+        this.queue = mode == ReferenceMode.STRONG ? null : new ReferenceQueue<>();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    static boolean isIntegral(Object id) {
+        return id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte;
+    }
+
+    Object get(Object id) {
+        if (isIntegral(id)) {
+            return get(((Number) id).longValue());
+        }
+        return others == null ? null : unwrap(others.get(id));
+    }
+
+    Object get(long id) {
+        Object[] values = this.values;
+        int i = indexOf(id);
+        Object value;
+        while ((value = values[i]) != null) {
+            if (keys[i] == id) {
+                return unwrap(value);
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    void put(Object id, Object entity) {
+        purge();
+        if (isIntegral(id)) {
+            long key = ((Number) id).longValue();
+            insert(key, wrap(key, null, entity));
+        } else {
+            if (others == null) {
+                others = new HashMap<>();
+            }
+            others.put(id, wrap(0, id, entity));
+        }
+    }
+
+    void remove(Object id) {
+        if (isIntegral(id)) {
+            int i = slotOf(((Number) id).longValue());
+            if (i >= 0) {
+                delete(i);
+            }
+        } else if (others != null) {
+            others.remove(id);
+        }
+    }
+
+    int size() {
+        purge();
+        return size + (others == null ? 0 : others.size());
+    }
+
+    void clear() {
+        allocate(INITIAL_CAPACITY);
+        others = null;
+        if (queue != null) {
+            while (queue.poll() != null) {
+                // drain references to entries that no longer exist
+            }
+        }
+    }
+
+    private void insert(long key, Object value) {
+        int i = indexOf(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private int slotOf(long key) {
+        int i = indexOf(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion keeps linear probe chains intact without tombstones.
+    private void delete(int hole) {
+        int i = (hole + 1) & mask;
+        while (values[i] != null) {
+            int home = indexOf(keys[i]);
+            boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        values[hole] = null;
+        size--;
+    }
+
+    private void purge() {
+        if (queue == null) {
+            return;
+        }
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            KeyedReference keyed = (KeyedReference) ref;
+            if (keyed.objectKey() != null) {
+                if (others != null) {
+                    others.remove(keyed.objectKey(), ref);
+                }
+            } else {
+                int i = slotOf(keyed.key());
+                if (i >= 0 && values[i] == ref) {
+                    delete(i);
+                }
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object value = oldValues[i];
+            if (value != null && unwrap(value) != null) {
+                insert(oldKeys[i], value);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity * 3 / 4;
+        size = 0;
+    }
+
+    private int indexOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private Object wrap(long key, Object objectKey, Object entity) {
+        return switch (mode) {
+            case STRONG -> entity;
+            case WEAK -> new WeakEntry(entity, queue, key, objectKey);
+            case SOFT -> new SoftEntry(entity, queue, key, objectKey);
+        };
+    }
+
+    private Object unwrap(Object value) {
+        if (value == null || mode == ReferenceMode.STRONG) {
+            return value;
+        }
+        return ((Reference<?>) value).get();
+    }
+
+    private interface KeyedReference {
+        long key();
+        Object objectKey();
+    }
+
+    private static final class WeakEntry extends WeakReference<Object> implements KeyedReference {
+        private final long key;
+        private final Object objectKey;
+
+        WeakEntry(Object entity, ReferenceQueue<Object> queue, long key, Object objectKey) {
+            super(entity, queue);
+            this.key = key;
+            this.objectKey = objectKey;
+        }
+
+        public long key() { return key; }
+        public Object objectKey() { return objectKey; }
+    }
+
+    private static final class SoftEntry extends SoftReference<Object> implements KeyedReference {
+        private final long key;
+        private final Object objectKey;
+
+        SoftEntry(Object entity, ReferenceQueue<Object> queue, long key, Object objectKey) {
+            super(entity, queue);
+            this.key = key;
+            this.objectKey = objectKey;
+        }
+
+        public long key() { return key; }
+        public Object objectKey() { return objectKey; }
+    }
+}
@@ -4,31 +4,90 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class FirstLevelCache {
-    private final Map<Class<?>, Map<Object, Object>> cache = new HashMap<>();
+
+    // WEAK and SOFT let entities the caller no longer holds be collected, e.g. in long batch sessions.
+    public enum ReferenceMode { STRONG, WEAK, SOFT }
+
+    private final ReferenceMode mode;
+    private final Map<Class<?>, EntityIdentityMap> cache = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    public FirstLevelCache() {
+        this(ReferenceMode.STRONG);
+    }
+
+    public FirstLevelCache(ReferenceMode mode) {
+        this.mode = mode;
+    }
 
     public void put(Class<?> clazz, Object id, Object entity) {
-        cache.computeIfAbsent(clazz, k -> new HashMap<>()).put(id, entity);
+        cache.computeIfAbsent(clazz, k -> new EntityIdentityMap(mode)).put(id, entity);
     }
 
+    // Single lookup; null when absent (or collected in WEAK/SOFT mode).
     public <T> T get(Class<T> clazz, Object id) {
-        Map<Object, Object> classCache = cache.get(clazz);
-        if (classCache != null) {
-            return clazz.cast(classCache.get(id));
+        EntityIdentityMap classCache = cache.get(clazz);
+        return count(classCache != null ? clazz.cast(classCache.get(id)) : null);
+    }
+
+    public <T> T get(Class<T> clazz, long id) {
+        EntityIdentityMap classCache = cache.get(clazz);
+        return count(classCache != null ? clazz.cast(classCache.get(id)) : null);
+    }
+
+    private <T> T count(T entity) {
+        if (entity != null) {
+            hits++;
+        } else {
+            misses++;
         }
-        return null;
+        return entity;
     }
-    
-    public void remove(Class<?> clazz, Object id) {
-        if (cache.containsKey(clazz)) {
-            cache.get(clazz).remove(id);
+
+    public void evict(Class<?> clazz, Object id) {
+        EntityIdentityMap classCache = cache.get(clazz);
+        if (classCache != null) {
+            classCache.remove(id);
         }
     }
 
+    public void clear(Class<?> clazz) {
+        cache.remove(clazz);
+    }
+
     public void clear() {
         cache.clear();
     }
-    
+
+    // Presence check only; not counted, so the hit ratio reflects the lookups that return entities.
     public boolean contains(Class<?> clazz, Object id) {
-        return get(clazz, id) != null;
+        EntityIdentityMap classCache = cache.get(clazz);
+        return classCache != null && classCache.get(id) != null;
+    }
+
+    public int size(Class<?> clazz) {
+        EntityIdentityMap classCache = cache.get(clazz);
+        return classCache == null ? 0 : classCache.size();
+    }
+
+    public int size() {
+        int size = 0;
+        for (EntityIdentityMap classCache : cache.values()) {
+            size += classCache.size();
+        }
+        return size;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public ReferenceMode getMode() {
+        return mode;
     }
-}
\ No newline at end of file
+}
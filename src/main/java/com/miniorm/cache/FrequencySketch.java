@@ -0,0 +1,66 @@
+package com.miniorm.cache;
+
+// Count-min sketch of 4-bit counters used for TinyLFU admission; counters are halved
+// every sampleSize increments so old popularity ages out.
+class FrequencySketch {
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maxSize) {
+        int size = Integer.highestOneBit(Math.max(4, maxSize - 1)) << 1;
+        this.table = new long[size];
+        this.sampleSize = 10 * Math.max(1, maxSize);
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, counter(hash, i));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int shift = counterShift(hash, i);
+            if (((table[index] >>> shift) & 0xfL) != 0xfL) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions = sampleSize / 2;
+        }
+    }
+
+    private int counter(int hash, int depth) {
+        return (int) ((table[indexOf(hash, depth)] >>> counterShift(hash, depth)) & 0xfL);
+    }
+
+    private int indexOf(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return (int) h & (table.length - 1);
+    }
+
+    private static int counterShift(int hash, int depth) {
+        return (((hash >>> (depth << 3)) & 3) << 2) + (depth << 4);
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
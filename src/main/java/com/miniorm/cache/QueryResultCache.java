@@ -0,0 +1,110 @@
+package com.miniorm.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.miniorm.annotations.EvictionPolicy;
+
+// Caches the id lists of entity queries. Each table has a version that every write bumps; the version
+// is part of the key, so results read before a write simply stop matching and age out of the LRU.
+public class QueryResultCache {
+    public static final String DEFAULT_REGION = "default";
+
+    private final CacheRegionConfig defaultConfig;
+    private final Map<String, CacheRegionConfig> configs = new ConcurrentHashMap<>();
+    private final Map<String, CacheRegion<List<Object>>> regions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    public QueryResultCache() {
+        this(new CacheRegionConfig(1_000, null, EvictionPolicy.LRU));
+    }
+
+    public QueryResultCache(CacheRegionConfig defaultConfig) {
+        this.defaultConfig = defaultConfig;
+    }
+
+    public void configureRegion(String region, CacheRegionConfig config) {
+        configs.put(region, config);
+        regions.remove(region);
+    }
+
+    // Read the version before running the query and pass it to put, so a write that lands in between wins.
+    public long getTableVersion(String table) {
+        return versionOf(table).get();
+    }
+
+    public List<Object> get(String region, String table, String sql, List<Object> parameters) {
+        return regionFor(region).get(new Key(table, getTableVersion(table), sql, keyParameters(parameters)));
+    }
+
+    public void put(String region, String table, long tableVersion, String sql, List<Object> parameters, List<Object> ids) {
+        regionFor(region).put(new Key(table, tableVersion, sql, keyParameters(parameters)), List.copyOf(ids));
+    }
+
+    public void invalidate(String table) {
+        versionOf(table).incrementAndGet();
+    }
+
+    // For writes that name no table: every result cached so far stops matching.
+    public void invalidateAll() {
+        tableVersions.values().forEach(AtomicLong::incrementAndGet);
+    }
+
+    public void clear() {
+        regions.values().forEach(CacheRegion::clear);
+    }
+
+    public CacheStatistics getStatistics(String region) {
+        CacheRegion<List<Object>> cacheRegion = regions.get(region);
+        return cacheRegion == null ? null : cacheRegion.getStatistics();
+    }
+
+    public Map<String, CacheStatistics> getStatistics() {
+        Map<String, CacheStatistics> statistics = new ConcurrentHashMap<>();
+        regions.forEach((name, region) -> statistics.put(name, region.getStatistics()));
+        return statistics;
+    }
+
+    private CacheRegion<List<Object>> regionFor(String region) {
+        CacheRegion<List<Object>> cacheRegion = regions.get(region);
+        if (cacheRegion == null) {
+            cacheRegion = regions.computeIfAbsent(region, name -> new CacheRegion<>(name, configs.getOrDefault(name, defaultConfig)));
+        }
+        return cacheRegion;
+    }
+
+    private AtomicLong versionOf(String table) {
+        AtomicLong version = tableVersions.get(table);
+        if (version == null) {
+            version = tableVersions.computeIfAbsent(table, t -> new AtomicLong());
+        }
+        return version;
+    }
+
+    // Arrays (UUIDs bind as byte[]) compare by identity, so keys hold them in a value-equal wrapper.
+    private static List<Object> keyParameters(List<Object> parameters) {
+        List<Object> values = new ArrayList<>(parameters.size());
+        for (Object parameter : parameters) {
+            values.add(parameter != null && parameter.getClass().isArray() ? new ArrayValue(parameter) : parameter);
+        }
+        return values;
+    }
+
+    private record Key(String table, long tableVersion, String sql, List<Object> parameters) {}
+
+    private record ArrayValue(Object array) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArrayValue value && Arrays.deepEquals(new Object[] { array }, new Object[] { value.array });
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.deepHashCode(new Object[] { array });
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.miniorm.cache;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.miniorm.annotations.Cacheable;
+
+public class SecondLevelCache {
+    private final Map<Class<?>, CacheRegionConfig> configs = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Optional<CacheRegion<Object[]>>> regions = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public void configure(Class<?> entityClass, CacheRegionConfig config) {
+        configs.put(entityClass, config);
+        regions.remove(entityClass);
+    }
+
+    // Region of dehydrated column values for the entity, or null when it is neither configured nor annotated with @Cacheable.
+    public CacheRegion<Object[]> regionFor(Class<?> entityClass) {
+        Optional<CacheRegion<Object[]>> region = regions.get(entityClass);
+        if (region == null) {
+            region = regions.computeIfAbsent(entityClass, this::createRegion);
+        }
+        return region.orElse(null);
+    }
+
+    private Optional<CacheRegion<Object[]>> createRegion(Class<?> entityClass) {
+        CacheRegionConfig config = configs.get(entityClass);
+        if (config == null) {
+            Cacheable cacheable = entityClass.getAnnotation(Cacheable.class);
+            if (cacheable == null) {
+                return Optional.empty();
+            }
+            config = CacheRegionConfig.of(cacheable);
+        }
+        return Optional.of(new CacheRegion<>(entityClass.getName(), config));
+    }
+
+    // Read before loading rows and pass to putIfUnchanged: a row read before a concurrent eviction is
+    // then dropped instead of outliving the write that evicted it. Bumped before every removal.
+    public long getInvalidationStamp() {
+        return invalidations.get();
+    }
+
+    public void putIfUnchanged(CacheRegion<Object[]> region, Object id, Object[] values, long stamp) {
+        region.putIf(id, values, () -> invalidations.get() == stamp);
+    }
+
+    public void evict(Class<?> entityClass, Object id) {
+        CacheRegion<Object[]> region = regionFor(entityClass);
+        if (region != null) {
+            invalidations.incrementAndGet();
+            region.evict(id);
+        }
+    }
+
+    public void evictAll(Class<?> entityClass) {
+        CacheRegion<Object[]> region = regionFor(entityClass);
+        if (region != null) {
+            invalidations.incrementAndGet();
+            region.clear();
+        }
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        regions.values().forEach(region -> region.ifPresent(CacheRegion::clear));
+    }
+
+    public CacheStatistics getStatistics(Class<?> entityClass) {
+        CacheRegion<Object[]> region = regionFor(entityClass);
+        return region == null ? null : region.getStatistics();
+    }
+
+    public Map<Class<?>, CacheStatistics> getStatistics() {
+        Map<Class<?>, CacheStatistics> statistics = new ConcurrentHashMap<>();
+        regions.forEach((entityClass, region) -> region.ifPresent(r -> statistics.put(entityClass, r.getStatistics())));
+        return statistics;
+    }
+}
@@ -0,0 +1,158 @@
+package com.miniorm.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class StatementCache implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection connection;
+    private final int maxSize;
+    private final Map<Key, PreparedStatement> statements;
+    private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<PreparedStatement> evictedInUse = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                evictions++;
+                PreparedStatement stmt = eldest.getValue();
+                if (inUse.contains(stmt)) {
+                    evictedInUse.add(stmt);
+                } else {
+                    closeQuietly(stmt);
+                }
+                return true;
+            }
+        };
+    }
+
+    public Lease lease(String sql, boolean returnGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            misses++;
+            return new Lease(prepare(sql, returnGeneratedKeys), false);
+        }
+
+        Key key = new Key(sql, returnGeneratedKeys);
+        PreparedStatement stmt = statements.get(key);
+        if (stmt != null && !inUse.contains(stmt)) {
+            hits++;
+            inUse.add(stmt);
+            return new Lease(stmt, true);
+        }
+
+        misses++;
+        PreparedStatement fresh = prepare(sql, returnGeneratedKeys);
+        if (stmt != null) {
+            // Same template is already executing further up the stack (e.g. a self-referencing
+            // ManyToOne), so this one is used once and closed instead of replacing the cached one.
+            return new Lease(fresh, false);
+        }
+        inUse.add(fresh);
+        statements.put(key, fresh);
+        return new Lease(fresh, true);
+    }
+
+    private PreparedStatement prepare(String sql, boolean returnGeneratedKeys) throws SQLException {
+        return returnGeneratedKeys
+                ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : connection.prepareStatement(sql);
+    }
+
+    private void release(PreparedStatement stmt) {
+        inUse.remove(stmt);
+        if (evictedInUse.remove(stmt)) {
+            closeQuietly(stmt);
+            return;
+        }
+        try {
+            stmt.clearBatch();
+        } catch (SQLException e) {
+            statements.values().remove(stmt);
+            closeQuietly(stmt);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close cached statement", e);
+        }
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public int size() { return statements.size(); }
+    public int getMaxSize() { return maxSize; }
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public void close() {
+        List<PreparedStatement> open = new ArrayList<>(statements.values());
+        open.addAll(evictedInUse);
+        statements.clear();
+        inUse.clear();
+        evictedInUse.clear();
+        for (PreparedStatement stmt : open) {
+            closeQuietly(stmt);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCache{size=" + size() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    private record Key(String sql, boolean returnGeneratedKeys) {}
+
+    public class Lease implements AutoCloseable {
+        private final PreparedStatement statement;
+        private final boolean cached;
+
+        private Lease(PreparedStatement statement, boolean cached) {
+            this.statement = statement;
+            this.cached = cached;
+        }
+
+        public PreparedStatement statement() {
+            return statement;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (cached) {
+                release(statement);
+            } else {
+                statement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.miniorm.metadata;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// What EntityMetadata is built from: either scanned with reflection at first use, or generated
+// at compile time by com.miniorm.processor.EntityMetadataProcessor and found by MetadataRegistry.
+public interface EntityMapping {
+    Class<?> entityClass();
+
+    String tableName();
+
+    Supplier<Object> instantiator();
+
+    MappedProperty id();
+
+    List<MappedProperty> columns();
+
+    List<MappedProperty> foreignKeys();
+
+    // The id, column or reference annotated @ShardKey, or null.
+    MappedProperty shardKey();
+
+    // The column annotated @Version, or null.
+    MappedProperty version();
+
+    SqlTemplates sql();
+}
@@ -2,66 +2,258 @@ package com.miniorm.metadata;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
-import com.miniorm.annotations.Column;
-import com.miniorm.annotations.Entity;
-import com.miniorm.annotations.Id;
-import com.miniorm.annotations.JoinColumn;
-import com.miniorm.annotations.ManyToOne;
-import com.miniorm.annotations.Table;
+import com.miniorm.annotations.FetchMode;
+import com.miniorm.query.SqlBuilder;
+import com.miniorm.types.TypeConverter;
 
 public class EntityMetadata {
     private final Class<?> entityClass;
+    private final boolean generated;
     private final String tableName;
-    private final Field idField;
-    private final List<Field> columns;
-    private final List<Field> foreignKeys;
+    private final MappedProperty id;
+    private final List<MappedProperty> columns;
+    private final List<MappedProperty> foreignKeys;
+    private final Map<String, MappedProperty> propertiesByName = new HashMap<>();
+    private final List<String> columnNames;
+    private final List<String> foreignKeyColumnNames;
+    private final MappedProperty shardKey;
+    private final MappedProperty version;
+    private final int versionColumn;
+
+    private final Supplier<Object> instantiator;
+    private final List<PropertyAccessor> columnAccessors;
+    private final List<PropertyAccessor> foreignKeyAccessors;
+
+    private final String selectColumns;
+    private final String insertSql;
+    private final String upsertSql;
+    private final String updateSql;
+    private final String selectByIdSql;
+    private final String deleteSql;
+    private final Map<BitSet, String> partialUpdateSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> multiRowInsertSql = new ConcurrentHashMap<>();
 
     public EntityMetadata(Class<?> clazz) {
-        this.entityClass = clazz;
+        this(clazz, PropertyAccessStrategy.defaultStrategy());
+    }
 
-        if (!clazz.isAnnotationPresent(Entity.class)) {
-            throw new IllegalArgumentException("Class " + clazz.getName() + " is not an @Entity");
+    public EntityMetadata(Class<?> clazz, PropertyAccessStrategy accessStrategy) {
+        this(new ReflectiveMapping(clazz, accessStrategy));
+    }
+
+    public EntityMetadata(EntityMapping mapping) {
+        this.entityClass = mapping.entityClass();
+        this.generated = !(mapping instanceof ReflectiveMapping);
+        this.tableName = mapping.tableName();
+        this.id = mapping.id();
+        this.columns = List.copyOf(mapping.columns());
+        this.foreignKeys = List.copyOf(mapping.foreignKeys());
+        this.shardKey = mapping.shardKey();
+        this.version = mapping.version();
+        int tempVersionColumn = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i) == version) {
+                tempVersionColumn = i;
+            }
+        }
+        if (version != null && tempVersionColumn < 0) {
+            throw new IllegalArgumentException("@Version of " + entityClass.getName() + " must be one of its columns");
         }
+        this.versionColumn = tempVersionColumn;
+        this.instantiator = mapping.instantiator();
 
-        Table tableAnn = clazz.getAnnotation(Table.class);
-        this.tableName = (tableAnn != null && !tableAnn.name().isEmpty()) ? tableAnn.name() : clazz.getSimpleName().toLowerCase();
+        propertiesByName.put(id.name(), id);
+        List<String> names = new ArrayList<>(columns.size());
+        List<PropertyAccessor> accessors = new ArrayList<>(columns.size());
+        for (MappedProperty column : columns) {
+            propertiesByName.put(column.name(), column);
+            names.add(column.column());
+            accessors.add(column.accessor());
+        }
+        this.columnNames = Collections.unmodifiableList(names);
+        this.columnAccessors = Collections.unmodifiableList(accessors);
 
-        this.columns = new ArrayList<>();
-        this.foreignKeys = new ArrayList<>();
-        Field tempId = null;
+        names = new ArrayList<>(foreignKeys.size());
+        accessors = new ArrayList<>(foreignKeys.size());
+        for (MappedProperty foreignKey : foreignKeys) {
+            propertiesByName.put(foreignKey.name(), foreignKey);
+            names.add(foreignKey.column());
+            accessors.add(foreignKey.accessor());
+        }
+        this.foreignKeyColumnNames = Collections.unmodifiableList(names);
+        this.foreignKeyAccessors = Collections.unmodifiableList(accessors);
 
-        for (Field field : clazz.getDeclaredFields()) {
-            field.setAccessible(true);
+        SqlTemplates sql = mapping.sql();
+        this.selectColumns = sql.selectColumns();
+        this.insertSql = sql.insert();
+        this.upsertSql = sql.upsert();
+        this.updateSql = sql.update();
+        this.selectByIdSql = sql.selectById();
+        this.deleteSql = sql.delete();
+    }
 
-            if (field.isAnnotationPresent(Id.class)) {
-                tempId = field;
-            } else if (field.isAnnotationPresent(ManyToOne.class)) {
-                foreignKeys.add(field);
-            } else if (field.isAnnotationPresent(Column.class)) {
-                columns.add(field);
-            }
+    private MappedProperty property(String property) {
+        MappedProperty mapped = propertiesByName.get(property);
+        if (mapped == null) {
+            throw new IllegalArgumentException("Unknown property '" + property + "' on entity " + entityClass.getSimpleName());
         }
+        return mapped;
+    }
+
+    public Class<?> getPropertyType(String property) {
+        return property(property).type();
+    }
+
+    // Null for @ManyToOne properties, whose values are bound as the referenced id.
+    public TypeConverter getPropertyConverter(String property) {
+        return property(property).converter();
+    }
+
+    public String getPropertyColumn(String property) {
+        return property(property).column();
+    }
+
+    public boolean isIdProperty(String property) {
+        return property(property) == id;
+    }
 
-        if (tempId == null) throw new RuntimeException("Entity " + clazz.getName() + " must have an @Id field");
-        this.idField = tempId;
+    public boolean isReferenceProperty(String property) {
+        return property(property).isReference();
+    }
+
+    // Reflective views for callers that want java.lang.reflect; the ORM itself works from the mapped properties.
+    public Field getPropertyField(String property) {
+        return declaredField(property(property).name());
     }
 
     public String getColumnName(Field field) {
-        if (field.isAnnotationPresent(Column.class)) {
-            return field.getAnnotation(Column.class).name();
-        } else if (field.isAnnotationPresent(JoinColumn.class)) {
-            return field.getAnnotation(JoinColumn.class).name();
-        } else if (field.isAnnotationPresent(Id.class)) {
-            return "id"; 
+        MappedProperty mapped = propertiesByName.get(field.getName());
+        return mapped != null && field.getDeclaringClass() == entityClass ? mapped.column() : ReflectiveMapping.columnName(field);
+    }
+
+    public Field getIdField() { return declaredField(id.name()); }
+    public List<Field> getColumns() { return declaredFields(columns); }
+    public List<Field> getForeignKeys() { return declaredFields(foreignKeys); }
+
+    private List<Field> declaredFields(List<MappedProperty> properties) {
+        List<Field> fields = new ArrayList<>(properties.size());
+        for (MappedProperty property : properties) {
+            fields.add(declaredField(property.name()));
+        }
+        return fields;
+    }
+
+    private Field declaredField(String name) {
+        try {
+            return entityClass.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Mapped field " + name + " not found on " + entityClass.getName(), e);
         }
-        return field.getName(); 
     }
 
     public Class<?> getEntityClass() { return entityClass; }
+    public boolean isGenerated() { return generated; }
     public String getTableName() { return tableName; }
-    public Field getIdField() { return idField; }
-    public List<Field> getColumns() { return columns; }
-    public List<Field> getForeignKeys() { return foreignKeys; }
+    public String getIdProperty() { return id.name(); }
+    public Class<?> getIdType() { return id.type(); }
+    public int getColumnCount() { return columns.size(); }
+    public Class<?> getColumnType(int column) { return columns.get(column).type(); }
+    public TypeConverter getColumnConverter(int column) { return columns.get(column).converter(); }
+    public TypeConverter getIdConverter() { return id.converter(); }
+    public int getForeignKeyCount() { return foreignKeys.size(); }
+    public String getIdColumnName() { return id.column(); }
+    public List<String> getColumnNames() { return columnNames; }
+    public List<String> getForeignKeyColumnNames() { return foreignKeyColumnNames; }
+
+    public Class<?> getForeignKeyTarget(int foreignKey) { return foreignKeys.get(foreignKey).target(); }
+    public boolean isForeignKeyLazy(int foreignKey) { return foreignKeys.get(foreignKey).lazy(); }
+    public FetchMode getForeignKeyFetchMode(int foreignKey) { return foreignKeys.get(foreignKey).fetchMode(); }
+    public int getForeignKeyBatchSize(int foreignKey) { return foreignKeys.get(foreignKey).batchSize(); }
+
+    public PropertyAccessor getIdAccessor() { return id.accessor(); }
+    public boolean isSharded() { return shardKey != null; }
+    public boolean isShardedById() { return shardKey != null && shardKey == id; }
+    public boolean isShardKeyReference() { return shardKey != null && shardKey.isReference(); }
+    public Object getShardKey(Object entity) { return shardKey.accessor().get(entity); }
+    public boolean isVersioned() { return version != null; }
+    public int getVersionColumn() { return versionColumn; }
+    public String getVersionColumnName() { return version != null ? version.column() : null; }
+    public String getVersionProperty() { return version != null ? version.name() : null; }
+    public Object getVersion(Object entity) { return version.accessor().get(entity); }
+    public List<PropertyAccessor> getColumnAccessors() { return columnAccessors; }
+    public List<PropertyAccessor> getForeignKeyAccessors() { return foreignKeyAccessors; }
+
+    // The value a successful update writes; null versions start at 0.
+    public Object nextVersion(Object entity) {
+        Object current = getVersion(entity);
+        long next = current == null ? 0 : ((Number) current).longValue() + 1;
+        return version.type() == int.class || version.type() == Integer.class ? (Object) (int) next : (Object) next;
+    }
+
+    public void setVersion(Object entity, Object value) { version.accessor().set(entity, value); }
+
+    public Object newInstance() { return instantiator.get(); }
+    public Object getId(Object entity) { return id.accessor().get(entity); }
+
+    public Object normalizeId(Object id) {
+        Class<?> idType = this.id.type();
+        if (id instanceof Number number && !idType.isInstance(id)) {
+            if (idType == Long.class || idType == long.class) return number.longValue();
+            if (idType == Integer.class || idType == int.class) return number.intValue();
+        }
+        return id;
+    }
+
+    // Generated SELECTs list columns as id, @Column fields, then foreign keys, so rows are read by position.
+    public String getSelectColumns() { return selectColumns; }
+    public int getSelectColumnCount() { return 1 + columns.size() + foreignKeys.size(); }
+    public int getIdColumnIndex() { return 1; }
+    public int getColumnIndex(int column) { return 2 + column; }
+    public int getForeignKeyColumnIndex(int foreignKey) { return 2 + columns.size() + foreignKey; }
+
+    public String getInsertSql() { return insertSql; }
+
+    public String getInsertSql(int rows) {
+        if (rows == 1) {
+            return insertSql;
+        }
+        String sql = multiRowInsertSql.get(rows);
+        if (sql == null) {
+            sql = multiRowInsertSql.computeIfAbsent(rows, n -> SqlBuilder.buildMultiRowInsert(this, n));
+        }
+        return sql;
+    }
+
+    // One placeholder per inserted column; MySQL allows at most 65535 per statement.
+    public int getInsertColumnCount() { return columns.size() + foreignKeys.size(); }
+    public String getUpsertSql() { return upsertSql; }
+    public String getSelectByIdSql() { return selectByIdSql; }
+    public String getDeleteSql() { return deleteSql; }
+
+    public String getUpdateSql() {
+        if (updateSql == null) {
+            throw new RuntimeException("No columns to update for entity: " + tableName);
+        }
+        return updateSql;
+    }
+
+    public String getUpdateSql(BitSet changed) {
+        if (changed.isEmpty() || changed.get(0)) {
+            throw new IllegalArgumentException("Partial update needs changed non-id columns");
+        }
+        String sql = partialUpdateSql.get(changed);
+        if (sql == null) {
+            BitSet key = (BitSet) changed.clone();
+            sql = partialUpdateSql.computeIfAbsent(key, k -> SqlBuilder.buildPartialUpdate(this, k));
+        }
+        return sql;
+    }
 }
\ No newline at end of file
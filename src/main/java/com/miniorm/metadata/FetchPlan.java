@@ -0,0 +1,75 @@
+package com.miniorm.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.miniorm.annotations.FetchMode;
+import com.miniorm.query.SqlBuilder;
+
+public class FetchPlan {
+    private final EntityMetadata metadata;
+    private final String qualifier;
+    private final String selectSql;
+    private final String selectByIdSql;
+    private final int[] joinOffsets;
+    private final EntityMetadata[] joinedMetadata;
+    private final Map<Integer, String> selectByIdsSql = new ConcurrentHashMap<>();
+
+    public FetchPlan(EntityMetadata metadata, MetadataRegistry registry) {
+        this.metadata = metadata;
+
+        int foreignKeyCount = metadata.getForeignKeyCount();
+        this.joinOffsets = new int[foreignKeyCount];
+        this.joinedMetadata = new EntityMetadata[foreignKeyCount];
+        Arrays.fill(joinOffsets, -1);
+
+        List<Integer> joinedForeignKeys = new ArrayList<>();
+        List<EntityMetadata> joinedTargets = new ArrayList<>();
+        int offset = metadata.getSelectColumnCount();
+        for (int i = 0; i < foreignKeyCount; i++) {
+            if (metadata.isForeignKeyLazy(i) || metadata.getForeignKeyFetchMode(i) != FetchMode.JOIN) {
+                continue;
+            }
+            EntityMetadata target = registry.get(metadata.getForeignKeyTarget(i));
+            joinedForeignKeys.add(i);
+            joinedTargets.add(target);
+            joinOffsets[i] = offset;
+            joinedMetadata[i] = target;
+            offset += target.getSelectColumnCount();
+        }
+
+        if (joinedTargets.isEmpty()) {
+            this.qualifier = "";
+            this.selectSql = "SELECT " + metadata.getSelectColumns() + " FROM " + metadata.getTableName();
+            this.selectByIdSql = metadata.getSelectByIdSql();
+        } else {
+            this.qualifier = "t0.";
+            this.selectSql = SqlBuilder.buildJoinSelect(metadata, joinedForeignKeys, joinedTargets);
+            this.selectByIdSql = selectSql + " WHERE " + qualify(metadata.getIdColumnName()) + " = ?";
+        }
+    }
+
+    public String qualify(String column) {
+        return qualifier + column;
+    }
+
+    public String getSelectByIdsSql(int count) {
+        String sql = selectByIdsSql.get(count);
+        if (sql == null) {
+            sql = selectByIdsSql.computeIfAbsent(count,
+                    c -> selectSql + " WHERE " + SqlBuilder.buildInList(qualify(metadata.getIdColumnName()), c));
+        }
+        return sql;
+    }
+
+    public EntityMetadata getMetadata() { return metadata; }
+    public String getSelectSql() { return selectSql; }
+    public String getSelectByIdSql() { return selectByIdSql; }
+
+    // Column offset of the joined entity for the given foreign key, or -1 when it is not fetched by join.
+    public int getJoinOffset(int foreignKey) { return joinOffsets[foreignKey]; }
+    public EntityMetadata getJoinedMetadata(int foreignKey) { return joinedMetadata[foreignKey]; }
+}
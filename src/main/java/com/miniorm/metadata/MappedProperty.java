@@ -0,0 +1,28 @@
+package com.miniorm.metadata;
+
+import com.miniorm.annotations.FetchMode;
+import com.miniorm.types.TypeConverter;
+import com.miniorm.types.TypeConverters;
+
+// One mapped field: the @Id, a @Column, or a @ManyToOne reference (target != null). References bind
+// the target's id and have no converter.
+public record MappedProperty(String name, String column, Class<?> type, PropertyAccessor accessor, TypeConverter converter,
+                             Class<?> target, boolean lazy, FetchMode fetchMode, int batchSize) {
+
+    public static MappedProperty column(String name, String column, Class<?> type, PropertyAccessor accessor) {
+        return column(name, column, type, accessor, TypeConverters.forType(type));
+    }
+
+    public static MappedProperty column(String name, String column, Class<?> type, PropertyAccessor accessor, TypeConverter converter) {
+        return new MappedProperty(name, column, type, accessor, converter, null, false, null, 0);
+    }
+
+    public static MappedProperty reference(String name, String column, Class<?> type, PropertyAccessor accessor,
+                                           Class<?> target, boolean lazy, FetchMode fetchMode, int batchSize) {
+        return new MappedProperty(name, column, type, accessor, null, target, lazy, fetchMode, Math.max(1, batchSize));
+    }
+
+    public boolean isReference() {
+        return target != null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.miniorm.metadata;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.miniorm.query.QueryCompiler;
+import com.miniorm.session.LazyReference;
+
+public class MetadataRegistry {
+    private static final Logger log = LoggerFactory.getLogger(MetadataRegistry.class);
+    private static final MetadataRegistry DEFAULT = new MetadataRegistry(PropertyAccessStrategy.defaultStrategy(), true);
+
+    private final PropertyAccessStrategy accessStrategy;
+    private final boolean useGenerated;
+    private final Map<Class<?>, EntityMetadata> metadataCache = new ConcurrentHashMap<>();
+    private final Map<Class<?>, FetchPlan> fetchPlanCache = new ConcurrentHashMap<>();
+    private final QueryCompiler queryCompiler = new QueryCompiler(this);
+
+    public MetadataRegistry(PropertyAccessStrategy accessStrategy) {
+        this(accessStrategy, false);
+    }
+
+    // With useGenerated, entities that have a mapping from EntityMetadataProcessor skip reflection;
+    // the access strategy then only applies to the others.
+    public MetadataRegistry(PropertyAccessStrategy accessStrategy, boolean useGenerated) {
+        this.accessStrategy = accessStrategy;
+        this.useGenerated = useGenerated;
+    }
+
+    public static MetadataRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public EntityMetadata get(Class<?> clazz) {
+        EntityMetadata meta = metadataCache.get(clazz);
+        if (meta == null) {
+            meta = metadataCache.computeIfAbsent(clazz, this::createMetadata);
+        }
+        return meta;
+    }
+
+    private EntityMetadata createMetadata(Class<?> clazz) {
+        EntityMapping mapping = useGenerated ? GeneratedMappings.MAPPINGS.get(clazz) : null;
+        if (mapping == null) {
+            log.debug("No generated mapping for {}, reading it with reflection", clazz.getName());
+            return new EntityMetadata(clazz, accessStrategy);
+        }
+        return new EntityMetadata(mapping);
+    }
+
+    public static boolean hasGeneratedMapping(Class<?> clazz) {
+        return GeneratedMappings.MAPPINGS.containsKey(clazz);
+    }
+
+    public FetchPlan getFetchPlan(Class<?> clazz) {
+        FetchPlan plan = fetchPlanCache.get(clazz);
+        if (plan == null) {
+            EntityMetadata meta = get(clazz);
+            plan = fetchPlanCache.computeIfAbsent(clazz, c -> new FetchPlan(meta, this));
+        }
+        return plan;
+    }
+
+    // Resolves the value stored in a foreign key column for a related entity or LazyReference.
+    public Object getReferenceId(Object related) {
+        if (related instanceof LazyReference<?> reference) {
+            if (!reference.isLoaded()) {
+                return reference.getId();
+            }
+            related = reference.get();
+        }
+        if (related == null) {
+            return null;
+        }
+        return get(related.getClass()).getId(related);
+    }
+
+    public QueryCompiler getQueryCompiler() {
+        return queryCompiler;
+    }
+
+    public PropertyAccessStrategy getAccessStrategy() {
+        return accessStrategy;
+    }
+
+    // Loaded once, on first use, from the META-INF/services file the processor writes.
+    private static final class GeneratedMappings {
+        static final Map<Class<?>, EntityMapping> MAPPINGS = load();
+
+        private static Map<Class<?>, EntityMapping> load() {
+            Map<Class<?>, EntityMapping> mappings = new HashMap<>();
+            Iterator<EntityMapping> providers = ServiceLoader.load(EntityMapping.class).iterator();
+            while (true) {
+                try {
+                    if (!providers.hasNext()) {
+                        break;
+                    }
+                    EntityMapping mapping = providers.next();
+                    mappings.put(mapping.entityClass(), mapping);
+                } catch (ServiceConfigurationError e) {
+                    log.warn("Skipping generated entity mapping: {}", e.getMessage());
+                }
+            }
+            log.debug("Loaded {} generated entity mappings", mappings.size());
+            return mappings;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.miniorm.metadata;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class MethodHandleAccessStrategy implements PropertyAccessStrategy {
+    private static final Logger log = LoggerFactory.getLogger(MethodHandleAccessStrategy.class);
+
+    public static final MethodHandleAccessStrategy INSTANCE = new MethodHandleAccessStrategy();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    @Override
+    public PropertyAccessor accessorFor(Field field) {
+        field.setAccessible(true);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle getter = lookup.unreflectGetter(field);
+            MethodHandle setter = lookup.unreflectSetter(field);
+            return new MethodHandleAccessor(field, getter, setter);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot create accessor for field " + field.getName(), e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Supplier<Object> instantiatorFor(Class<?> clazz) {
+        Constructor<?> constructor = noArgConstructor(clazz);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflectConstructor(constructor);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                    handle, MethodType.methodType(clazz));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            log.debug("LambdaMetafactory unavailable for {}, using constructor handle", clazz.getName(), e);
+        }
+
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return handle.invokeExact();
+                } catch (Throwable e) {
+                    throw MethodHandleAccessor.rethrow(e, "Cannot instantiate " + clazz.getName());
+                }
+            };
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot instantiate " + clazz.getName(), e);
+        }
+    }
+
+    static Constructor<?> noArgConstructor(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Entity " + clazz.getName() + " must have a no-arg constructor", e);
+        }
+    }
+
+    private static final class MethodHandleAccessor implements PropertyAccessor {
+        private final Field field;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final MethodHandle longGetter;
+        private final MethodHandle intGetter;
+        private final MethodHandle doubleGetter;
+        private final MethodHandle booleanGetter;
+        private final MethodHandle longSetter;
+        private final MethodHandle intSetter;
+        private final MethodHandle doubleSetter;
+        private final MethodHandle booleanSetter;
+
+        MethodHandleAccessor(Field field, MethodHandle exactGetter, MethodHandle exactSetter) {
+            this.field = field;
+            this.getter = exactGetter.asType(GETTER_TYPE);
+            this.setter = exactSetter.asType(SETTER_TYPE);
+            Class<?> type = field.getType();
+            this.longGetter = typedGetter(exactGetter, type, long.class);
+            this.intGetter = typedGetter(exactGetter, type, int.class);
+            this.doubleGetter = typedGetter(exactGetter, type, double.class);
+            this.booleanGetter = typedGetter(exactGetter, type, boolean.class);
+            this.longSetter = typedSetter(exactSetter, type, long.class);
+            this.intSetter = typedSetter(exactSetter, type, int.class);
+            this.doubleSetter = typedSetter(exactSetter, type, double.class);
+            this.booleanSetter = typedSetter(exactSetter, type, boolean.class);
+        }
+
+        private static MethodHandle typedGetter(MethodHandle exactGetter, Class<?> fieldType, Class<?> primitive) {
+            if (fieldType != primitive) {
+                return null;
+            }
+            return exactGetter.asType(MethodType.methodType(primitive, Object.class));
+        }
+
+        private static MethodHandle typedSetter(MethodHandle exactSetter, Class<?> fieldType, Class<?> primitive) {
+            if (fieldType != primitive) {
+                return null;
+            }
+            return exactSetter.asType(MethodType.methodType(void.class, Object.class, primitive));
+        }
+
+        @Override
+        public Object get(Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot read field " + field.getName());
+            }
+        }
+
+        @Override
+        public void set(Object entity, Object value) {
+            try {
+                setter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot write field " + field.getName());
+            }
+        }
+
+        @Override
+        public long getLong(Object entity) {
+            if (longGetter == null) {
+                return PropertyAccessor.super.getLong(entity);
+            }
+            try {
+                return (long) longGetter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot read field " + field.getName());
+            }
+        }
+
+        @Override
+        public int getInt(Object entity) {
+            if (intGetter == null) {
+                return PropertyAccessor.super.getInt(entity);
+            }
+            try {
+                return (int) intGetter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot read field " + field.getName());
+            }
+        }
+
+        @Override
+        public double getDouble(Object entity) {
+            if (doubleGetter == null) {
+                return PropertyAccessor.super.getDouble(entity);
+            }
+            try {
+                return (double) doubleGetter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot read field " + field.getName());
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object entity) {
+            if (booleanGetter == null) {
+                return PropertyAccessor.super.getBoolean(entity);
+            }
+            try {
+                return (boolean) booleanGetter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot read field " + field.getName());
+            }
+        }
+
+        @Override
+        public void setLong(Object entity, long value) {
+            if (longSetter == null) {
+                set(entity, value);
+                return;
+            }
+            try {
+                longSetter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot write field " + field.getName());
+            }
+        }
+
+        @Override
+        public void setInt(Object entity, int value) {
+            if (intSetter == null) {
+                set(entity, value);
+                return;
+            }
+            try {
+                intSetter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot write field " + field.getName());
+            }
+        }
+
+        @Override
+        public void setDouble(Object entity, double value) {
+            if (doubleSetter == null) {
+                set(entity, value);
+                return;
+            }
+            try {
+                doubleSetter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot write field " + field.getName());
+            }
+        }
+
+        @Override
+        public void setBoolean(Object entity, boolean value) {
+            if (booleanSetter == null) {
+                set(entity, value);
+                return;
+            }
+            try {
+                booleanSetter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e, "Cannot write field " + field.getName());
+            }
+        }
+
+        static RuntimeException rethrow(Throwable e, String message) {
+            if (e instanceof RuntimeException runtime) {
+                return runtime;
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+            return new IllegalStateException(message, e);
+        }
+    }
+}
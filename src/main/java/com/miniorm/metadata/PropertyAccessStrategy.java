@@ -0,0 +1,14 @@
+package com.miniorm.metadata;
+
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+public interface PropertyAccessStrategy {
+    PropertyAccessor accessorFor(Field field);
+
+    Supplier<Object> instantiatorFor(Class<?> clazz);
+
+    static PropertyAccessStrategy defaultStrategy() {
+        return MethodHandleAccessStrategy.INSTANCE;
+    }
+}
@@ -0,0 +1,39 @@
+package com.miniorm.metadata;
+
+public interface PropertyAccessor {
+    Object get(Object entity);
+
+    void set(Object entity, Object value);
+
+    default long getLong(Object entity) {
+        return ((Number) get(entity)).longValue();
+    }
+
+    default int getInt(Object entity) {
+        return ((Number) get(entity)).intValue();
+    }
+
+    default double getDouble(Object entity) {
+        return ((Number) get(entity)).doubleValue();
+    }
+
+    default boolean getBoolean(Object entity) {
+        return (Boolean) get(entity);
+    }
+
+    default void setLong(Object entity, long value) {
+        set(entity, value);
+    }
+
+    default void setInt(Object entity, int value) {
+        set(entity, value);
+    }
+
+    default void setDouble(Object entity, double value) {
+        set(entity, value);
+    }
+
+    default void setBoolean(Object entity, boolean value) {
+        set(entity, value);
+    }
+}
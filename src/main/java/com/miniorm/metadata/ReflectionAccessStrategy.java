@@ -0,0 +1,45 @@
+package com.miniorm.metadata;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+public class ReflectionAccessStrategy implements PropertyAccessStrategy {
+    public static final ReflectionAccessStrategy INSTANCE = new ReflectionAccessStrategy();
+
+    @Override
+    public PropertyAccessor accessorFor(Field field) {
+        field.setAccessible(true);
+        return new PropertyAccessor() {
+            @Override
+            public Object get(Object entity) {
+                try {
+                    return field.get(entity);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read field " + field.getName(), e);
+                }
+            }
+
+            @Override
+            public void set(Object entity, Object value) {
+                try {
+                    field.set(entity, value);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot write field " + field.getName(), e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Supplier<Object> instantiatorFor(Class<?> clazz) {
+        Constructor<?> constructor = MethodHandleAccessStrategy.noArgConstructor(clazz);
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot instantiate " + clazz.getName(), e);
+            }
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package com.miniorm.metadata;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.Enumerated;
+import com.miniorm.annotations.FetchType;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.JoinColumn;
+import com.miniorm.annotations.ManyToOne;
+import com.miniorm.annotations.ShardKey;
+import com.miniorm.annotations.Table;
+import com.miniorm.annotations.Version;
+import com.miniorm.session.LazyReference;
+import com.miniorm.types.TypeConverter;
+import com.miniorm.types.TypeConverters;
+
+// Fallback for entities compiled without the annotation processor: scans the declared fields at first use.
+final class ReflectiveMapping implements EntityMapping {
+    private final Class<?> entityClass;
+    private final String tableName;
+    private final Supplier<Object> instantiator;
+    private final MappedProperty id;
+    private final List<MappedProperty> columns = new ArrayList<>();
+    private final List<MappedProperty> foreignKeys = new ArrayList<>();
+    private final MappedProperty shardKey;
+    private final MappedProperty version;
+    private final SqlTemplates sql;
+
+    ReflectiveMapping(Class<?> clazz, PropertyAccessStrategy accessStrategy) {
+        this.entityClass = clazz;
+
+        if (!clazz.isAnnotationPresent(Entity.class)) {
+            throw new IllegalArgumentException("Class " + clazz.getName() + " is not an @Entity");
+        }
+
+        Table tableAnn = clazz.getAnnotation(Table.class);
+        this.tableName = (tableAnn != null && !tableAnn.name().isEmpty()) ? tableAnn.name() : clazz.getSimpleName().toLowerCase();
+
+        MappedProperty tempId = null;
+        Field shardKeyField = null;
+        MappedProperty tempShardKey = null;
+        MappedProperty tempVersion = null;
+
+        for (Field field : clazz.getDeclaredFields()) {
+            boolean isShardKey = field.isAnnotationPresent(ShardKey.class);
+            if (isShardKey) {
+                if (shardKeyField != null) {
+                    throw new IllegalArgumentException("Entity " + clazz.getName() + " declares more than one @ShardKey");
+                }
+                shardKeyField = field;
+            }
+
+            MappedProperty property;
+            if (field.isAnnotationPresent(Id.class)) {
+                property = tempId = MappedProperty.column(field.getName(), columnName(field), field.getType(), accessStrategy.accessorFor(field), converter(field));
+            } else if (field.isAnnotationPresent(ManyToOne.class)) {
+                ManyToOne mapping = field.getAnnotation(ManyToOne.class);
+                boolean lazy = mapping.fetch() == FetchType.LAZY;
+                property = MappedProperty.reference(field.getName(), columnName(field), field.getType(), accessStrategy.accessorFor(field),
+                        resolveTargetType(field, lazy), lazy, mapping.fetchMode(), mapping.batchSize());
+                foreignKeys.add(property);
+            } else if (field.isAnnotationPresent(Column.class) || field.isAnnotationPresent(Version.class)) {
+                property = MappedProperty.column(field.getName(), columnName(field), field.getType(), accessStrategy.accessorFor(field), converter(field));
+                columns.add(property);
+            } else {
+                property = null;
+            }
+            if (field.isAnnotationPresent(Version.class)) {
+                if (tempVersion != null || property == null || property == tempId || !isVersionType(field.getType())) {
+                    throw new IllegalArgumentException("Entity " + clazz.getName() + " needs a single int or long @Version column, not " + field.getName());
+                }
+                tempVersion = property;
+            }
+            if (isShardKey) {
+                if (property == null) {
+                    throw new IllegalArgumentException("@ShardKey field " + field.getName() + " must be the @Id, a @Column or a @ManyToOne");
+                }
+                tempShardKey = property;
+            }
+        }
+
+        if (tempId == null) throw new RuntimeException("Entity " + clazz.getName() + " must have an @Id field");
+        this.id = tempId;
+        this.shardKey = tempShardKey;
+        this.version = tempVersion;
+        this.instantiator = accessStrategy.instantiatorFor(clazz);
+
+        List<String> columnNames = new ArrayList<>();
+        columns.forEach(c -> columnNames.add(c.column()));
+        foreignKeys.forEach(f -> columnNames.add(f.column()));
+        this.sql = SqlTemplates.of(tableName, id.column(), columnNames, version != null ? version.column() : null);
+    }
+
+    private static TypeConverter converter(Field field) {
+        Enumerated enumerated = field.getAnnotation(Enumerated.class);
+        if (enumerated != null) {
+            return TypeConverters.forEnum(field.getType(), enumerated.value());
+        }
+        Column column = field.getAnnotation(Column.class);
+        if (column != null && field.getType() == BigDecimal.class && (column.precision() != 19 || column.scale() != 4)) {
+            return TypeConverters.forDecimal(column.precision(), column.scale());
+        }
+        return TypeConverters.forType(field.getType());
+    }
+
+    static boolean isVersionType(Class<?> type) {
+        return type == int.class || type == Integer.class || type == long.class || type == Long.class;
+    }
+
+    private static Class<?> resolveTargetType(Field field, boolean lazy) {
+        if (field.getType() != LazyReference.class) {
+            if (lazy) {
+                throw new IllegalArgumentException("Lazy @ManyToOne field " + field.getName() + " must be declared as LazyReference<T>");
+            }
+            return field.getType();
+        }
+        if (!lazy) {
+            throw new IllegalArgumentException("LazyReference field " + field.getName() + " requires @ManyToOne(fetch = FetchType.LAZY)");
+        }
+        Type generic = field.getGenericType();
+        if (generic instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] instanceof Class<?> target) {
+            return target;
+        }
+        throw new IllegalArgumentException("Cannot resolve target entity of LazyReference field " + field.getName());
+    }
+
+    static String columnName(Field field) {
+        if (field.isAnnotationPresent(Column.class)) {
+            return field.getAnnotation(Column.class).name();
+        } else if (field.isAnnotationPresent(JoinColumn.class)) {
+            return field.getAnnotation(JoinColumn.class).name();
+        } else if (field.isAnnotationPresent(Id.class)) {
+            return "id";
+        }
+        return field.getName();
+    }
+
+    @Override public Class<?> entityClass() { return entityClass; }
+    @Override public String tableName() { return tableName; }
+    @Override public Supplier<Object> instantiator() { return instantiator; }
+    @Override public MappedProperty id() { return id; }
+    @Override public List<MappedProperty> columns() { return Collections.unmodifiableList(columns); }
+    @Override public List<MappedProperty> foreignKeys() { return Collections.unmodifiableList(foreignKeys); }
+    @Override public MappedProperty shardKey() { return shardKey; }
+    @Override public MappedProperty version() { return version; }
+    @Override public SqlTemplates sql() { return sql; }
+}
@@ -0,0 +1,25 @@
+package com.miniorm.metadata;
+
+import java.util.List;
+
+import com.miniorm.query.SqlBuilder;
+
+// Per-entity statements; columns are the @Column names followed by the foreign key names. With a
+// version column, update and delete also match on it.
+public record SqlTemplates(String selectColumns, String insert, String upsert, String update,
+                           String selectById, String delete) {
+
+    public static SqlTemplates of(String table, String idColumn, List<String> columns) {
+        return of(table, idColumn, columns, null);
+    }
+
+    public static SqlTemplates of(String table, String idColumn, List<String> columns, String versionColumn) {
+        return new SqlTemplates(
+                SqlBuilder.buildSelectColumns("", idColumn, columns),
+                SqlBuilder.buildInsert(table, columns),
+                SqlBuilder.buildUpsert(table, idColumn, columns),
+                columns.isEmpty() ? null : SqlBuilder.buildUpdate(table, idColumn, columns, versionColumn),
+                SqlBuilder.buildSelectById(table, idColumn, columns),
+                SqlBuilder.buildDelete(table, idColumn, versionColumn));
+    }
+}
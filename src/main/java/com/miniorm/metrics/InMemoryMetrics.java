@@ -0,0 +1,239 @@
+package com.miniorm.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Default registry: lock-free counters per (table, operation, phase), readable in code or over JMX.
+public class InMemoryMetrics implements MetricsRecorder {
+    public static final String FIRST_LEVEL_CACHE = "first-level";
+
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Key, LongAdder> rows = new ConcurrentHashMap<>();
+    private final Map<Key, LongAdder> slowQueries = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder[]> cacheAccesses = new ConcurrentHashMap<>();
+    private final Map<String, Timer> poolWaits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> poolTimeouts = new ConcurrentHashMap<>();
+
+    private record Key(String table, String operation) {}
+
+    private record TimerKey(String table, String operation, Phase phase) {}
+
+    public record TimerSnapshot(String table, String operation, Phase phase, long count, long totalNanos, long maxNanos) {
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+    }
+
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+    }
+
+    @Override
+    public void recordTime(String table, String operation, Phase phase, long nanos) {
+        timers.computeIfAbsent(new TimerKey(table, operation, phase), k -> new Timer()).record(nanos);
+    }
+
+    @Override
+    public void recordRows(String table, String operation, long count) {
+        rows.computeIfAbsent(new Key(table, operation), k -> new LongAdder()).add(count);
+    }
+
+    @Override
+    public void recordSlowQuery(String table, String operation, long nanos) {
+        slowQueries.computeIfAbsent(new Key(table, operation), k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordCacheAccess(String cache, long hits, long misses) {
+        LongAdder[] counts = cacheAccesses.computeIfAbsent(cache, k -> new LongAdder[] {new LongAdder(), new LongAdder()});
+        counts[0].add(hits);
+        counts[1].add(misses);
+    }
+
+    @Override
+    public void recordPoolWait(String pool, long nanos) {
+        poolWaits.computeIfAbsent(pool, k -> new Timer()).record(nanos);
+    }
+
+    @Override
+    public void recordPoolTimeout(String pool) {
+        poolTimeouts.computeIfAbsent(pool, k -> new LongAdder()).increment();
+    }
+
+    public TimerSnapshot getTimer(String table, String operation, Phase phase) {
+        Timer timer = timers.get(new TimerKey(table, operation, phase));
+        return timer == null ? new TimerSnapshot(table, operation, phase, 0, 0, 0) : snapshot(table, operation, phase, timer);
+    }
+
+    private static TimerSnapshot snapshot(String table, String operation, Phase phase, Timer timer) {
+        return new TimerSnapshot(table, operation, phase, timer.count.sum(), timer.total.sum(), timer.max.get());
+    }
+
+    // Busiest statements first, to find hot entities and regressions.
+    public List<TimerSnapshot> getTimers(Phase phase) {
+        List<TimerSnapshot> snapshots = new ArrayList<>();
+        timers.forEach((key, timer) -> {
+            if (key.phase() == phase) {
+                snapshots.add(snapshot(key.table(), key.operation(), phase, timer));
+            }
+        });
+        snapshots.sort(Comparator.comparingLong(TimerSnapshot::totalNanos).reversed());
+        return snapshots;
+    }
+
+    public long getRows(String table, String operation) {
+        LongAdder count = rows.get(new Key(table, operation));
+        return count == null ? 0 : count.sum();
+    }
+
+    public long getSlowQueries(String table, String operation) {
+        LongAdder count = slowQueries.get(new Key(table, operation));
+        return count == null ? 0 : count.sum();
+    }
+
+    public double getCacheHitRatio(String cache) {
+        LongAdder[] counts = cacheAccesses.get(cache);
+        if (counts == null) {
+            return 0;
+        }
+        long hits = counts[0].sum();
+        long total = hits + counts[1].sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getPoolWaitCount() {
+        return poolWaits.values().stream().mapToLong(timer -> timer.count.sum()).sum();
+    }
+
+    public long getPoolWaitNanos() {
+        return poolWaits.values().stream().mapToLong(timer -> timer.total.sum()).sum();
+    }
+
+    public long getPoolTimeouts() {
+        return poolTimeouts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getPoolTimeouts(String pool) {
+        LongAdder count = poolTimeouts.get(pool);
+        return count == null ? 0 : count.sum();
+    }
+
+    public void reset() {
+        timers.clear();
+        rows.clear();
+        slowQueries.clear();
+        cacheAccesses.clear();
+        poolWaits.clear();
+        poolTimeouts.clear();
+    }
+
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.miniorm:type=Metrics,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new MBean(), objectName);
+        return objectName;
+    }
+
+    public static void unregisterMBean(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    private final class MBean implements MetricsMXBean {
+        private Map<String, Long> byStatement(Phase phase, ToLongFunction<TimerSnapshot> value) {
+            Map<String, Long> values = new TreeMap<>();
+            for (TimerSnapshot timer : getTimers(phase)) {
+                values.put(timer.table() + "." + timer.operation(), value.applyAsLong(timer));
+            }
+            return values;
+        }
+
+        private Map<String, Long> byStatement(Map<Key, LongAdder> counters) {
+            Map<String, Long> values = new TreeMap<>();
+            counters.forEach((key, count) -> values.put(key.table() + "." + key.operation(), count.sum()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getExecuteCounts() {
+            return byStatement(Phase.EXECUTE, TimerSnapshot::count);
+        }
+
+        @Override
+        public Map<String, Long> getExecuteTotalMillis() {
+            return byStatement(Phase.EXECUTE, timer -> TimeUnit.NANOSECONDS.toMillis(timer.totalNanos()));
+        }
+
+        @Override
+        public Map<String, Long> getExecuteMaxMillis() {
+            return byStatement(Phase.EXECUTE, timer -> TimeUnit.NANOSECONDS.toMillis(timer.maxNanos()));
+        }
+
+        @Override
+        public Map<String, Long> getHydrateTotalMillis() {
+            return byStatement(Phase.HYDRATE, timer -> TimeUnit.NANOSECONDS.toMillis(timer.totalNanos()));
+        }
+
+        @Override
+        public Map<String, Long> getRowCounts() {
+            return byStatement(rows);
+        }
+
+        @Override
+        public Map<String, Long> getSlowQueryCounts() {
+            return byStatement(slowQueries);
+        }
+
+        @Override
+        public double getFirstLevelCacheHitRatio() {
+            return getCacheHitRatio(FIRST_LEVEL_CACHE);
+        }
+
+        @Override
+        public long getPoolWaitCount() {
+            return InMemoryMetrics.this.getPoolWaitCount();
+        }
+
+        @Override
+        public long getPoolWaitTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(getPoolWaitNanos());
+        }
+
+        @Override
+        public long getPoolTimeouts() {
+            return InMemoryMetrics.this.getPoolTimeouts();
+        }
+
+        @Override
+        public Map<String, Long> getPoolTimeoutCounts() {
+            Map<String, Long> values = new TreeMap<>();
+            poolTimeouts.forEach((pool, count) -> values.put(pool, count.sum()));
+            return values;
+        }
+
+        @Override
+        public void reset() {
+            InMemoryMetrics.this.reset();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.miniorm.metrics;
+
+import java.util.Map;
+
+// Maps are keyed by "table.operation".
+public interface MetricsMXBean {
+    Map<String, Long> getExecuteCounts();
+
+    Map<String, Long> getExecuteTotalMillis();
+
+    Map<String, Long> getExecuteMaxMillis();
+
+    Map<String, Long> getHydrateTotalMillis();
+
+    Map<String, Long> getRowCounts();
+
+    Map<String, Long> getSlowQueryCounts();
+
+    double getFirstLevelCacheHitRatio();
+
+    long getPoolWaitCount();
+
+    long getPoolWaitTotalMillis();
+
+    long getPoolTimeouts();
+
+    // Keyed by pool name, so a starved replica pool stands out from the primary.
+    Map<String, Long> getPoolTimeoutCounts();
+
+    void reset();
+}
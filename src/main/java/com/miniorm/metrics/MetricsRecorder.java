@@ -0,0 +1,22 @@
+package com.miniorm.metrics;
+
+// Receives session and pool measurements. Every method defaults to a no-op, so an adapter for an
+// external metrics library only overrides what it exports. Calls come from many sessions at once.
+public interface MetricsRecorder {
+
+    enum Phase { PREPARE, EXECUTE, HYDRATE }
+
+    MetricsRecorder NOOP = new MetricsRecorder() {};
+
+    default void recordTime(String table, String operation, Phase phase, long nanos) {}
+
+    default void recordRows(String table, String operation, long rows) {}
+
+    default void recordSlowQuery(String table, String operation, long nanos) {}
+
+    default void recordCacheAccess(String cache, long hits, long misses) {}
+
+    default void recordPoolWait(String pool, long nanos) {}
+
+    default void recordPoolTimeout(String pool) {}
+}
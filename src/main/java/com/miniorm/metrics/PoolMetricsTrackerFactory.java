@@ -0,0 +1,29 @@
+package com.miniorm.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+// Feeds Hikari's connection checkout times into a MetricsRecorder under the pool name.
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+    private final MetricsRecorder recorder;
+
+    public PoolMetricsTrackerFactory(MetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recorder.recordPoolWait(poolName, elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                recorder.recordPoolTimeout(poolName);
+            }
+        };
+    }
+}
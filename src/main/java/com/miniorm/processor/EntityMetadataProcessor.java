@@ -0,0 +1,462 @@
+package com.miniorm.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.Enumerated;
+import com.miniorm.annotations.FetchType;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.JoinColumn;
+import com.miniorm.annotations.ManyToOne;
+import com.miniorm.annotations.ShardKey;
+import com.miniorm.annotations.Table;
+import com.miniorm.annotations.Version;
+import com.miniorm.metadata.EntityMapping;
+import com.miniorm.metadata.SqlTemplates;
+import com.miniorm.session.LazyReference;
+
+// Generates an EntityMapping per @Entity at compile time: accessors that touch fields directly (or through
+// a VarHandle when private), a constructor reference, and the SQL rendered by SqlBuilder. MetadataRegistry
+// picks them up through META-INF/services and falls back to reflection for any entity it skipped.
+@SupportedAnnotationTypes("com.miniorm.annotations.Entity")
+public class EntityMetadataProcessor extends AbstractProcessor {
+
+    static final String SUFFIX = "_Metadata";
+    private static final String SERVICE_FILE = "META-INF/services/" + EntityMapping.class.getName();
+
+    private final Set<String> generated = new TreeSet<>();
+
+    private record Property(VariableElement field, String column, String type, boolean reference,
+                            String target, boolean lazy, String fetchMode, int batchSize, boolean shardKey, boolean version,
+                            String converter) {
+        String name() { return field.getSimpleName().toString(); }
+        boolean primitive() { return field.asType().getKind().isPrimitive(); }
+        boolean viaHandle() { return field.getModifiers().contains(Modifier.PRIVATE); }
+        String handle() { return name() + "Handle"; }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Entity.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                generate((TypeElement) element);
+            }
+        }
+        if (roundEnv.processingOver() && !generated.isEmpty()) {
+            writeServiceFile();
+        }
+        return false;
+    }
+
+    private void generate(TypeElement entity) {
+        Messager messager = processingEnv.getMessager();
+        if (!isReachable(entity)) {
+            messager.printMessage(Diagnostic.Kind.NOTE, "Entity is private or an inner class; it will be mapped with reflection", entity);
+            return;
+        }
+        ExecutableElement constructor = noArgConstructor(entity);
+        if (constructor == null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Entity " + entity.getQualifiedName() + " must have a no-arg constructor", entity);
+            return;
+        }
+
+        Property id = null;
+        List<Property> columns = new ArrayList<>();
+        List<Property> foreignKeys = new ArrayList<>();
+        int shardKeys = 0;
+        int versions = 0;
+        boolean valid = true;
+        for (VariableElement field : ElementFilter.fieldsIn(entity.getEnclosedElements())) {
+            boolean shardKey = field.getAnnotation(ShardKey.class) != null;
+            Property property = null;
+            if (field.getAnnotation(Id.class) != null) {
+                property = id = column(field, shardKey);
+            } else if (field.getAnnotation(ManyToOne.class) != null) {
+                property = reference(field, shardKey);
+                if (property == null) {
+                    valid = false;
+                    continue;
+                }
+                foreignKeys.add(property);
+            } else if (field.getAnnotation(Column.class) != null || field.getAnnotation(Version.class) != null) {
+                property = column(field, shardKey);
+                columns.add(property);
+            }
+
+            if (field.getAnnotation(Version.class) != null
+                    && (++versions > 1 || property == null || property == id || !isVersionType(field.asType()))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Entity " + entity.getQualifiedName()
+                        + " needs a single int or long @Version column, not " + field.getSimpleName(), field);
+                valid = false;
+            }
+
+            if (field.getAnnotation(Enumerated.class) != null && (property == null || property.reference()
+                    || processingEnv.getTypeUtils().asElement(field.asType()) == null
+                    || processingEnv.getTypeUtils().asElement(field.asType()).getKind() != ElementKind.ENUM)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Enumerated field type " + erasure(field.asType()) + " is not an enum", field);
+                valid = false;
+            }
+
+            if (shardKey && (property == null || ++shardKeys > 1)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, property == null
+                        ? "@ShardKey field " + field.getSimpleName() + " must be the @Id, a @Column or a @ManyToOne"
+                        : "Entity " + entity.getQualifiedName() + " declares more than one @ShardKey", field);
+                valid = false;
+            }
+            if (property != null && field.getModifiers().contains(Modifier.FINAL)) {
+                messager.printMessage(Diagnostic.Kind.NOTE, "Final field " + field.getSimpleName() + "; entity will be mapped with reflection", field);
+                return;
+            }
+        }
+        if (id == null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Entity " + entity.getQualifiedName() + " must have an @Id field", entity);
+            return;
+        }
+        if (!valid) {
+            return;
+        }
+
+        Table table = entity.getAnnotation(Table.class);
+        String tableName = table != null && !table.name().isEmpty() ? table.name() : entity.getSimpleName().toString().toLowerCase();
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String className = flatName(entity) + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        boolean privateConstructor = constructor.getModifiers().contains(Modifier.PRIVATE);
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, entity).openWriter()) {
+            writer.write(new MappingSource(packageName, className, entity.getQualifiedName().toString(), tableName,
+                    privateConstructor, id, columns, foreignKeys).render());
+            generated.add(qualifiedName);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cannot write " + qualifiedName + ": " + e.getMessage(), entity);
+        }
+    }
+
+    private Property column(VariableElement field, boolean shardKey) {
+        String type = erasure(field.asType());
+        return new Property(field, columnName(field), type, false, null, false, null, 0, shardKey,
+                field.getAnnotation(Version.class) != null, converter(field, type));
+    }
+
+    // Same choice as ReflectiveMapping.converter; null leaves it to TypeConverters.forType.
+    private String converter(VariableElement field, String type) {
+        Enumerated enumerated = field.getAnnotation(Enumerated.class);
+        if (enumerated != null) {
+            return "com.miniorm.types.TypeConverters.forEnum(" + type + ".class, com.miniorm.annotations.EnumType."
+                    + enumerated.value().name() + ")";
+        }
+        Column column = field.getAnnotation(Column.class);
+        if (column != null && type.equals(BigDecimal.class.getName()) && (column.precision() != 19 || column.scale() != 4)) {
+            if (column.precision() < 1 || column.scale() < 0 || column.scale() > column.precision()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Invalid DECIMAL(" + column.precision() + "," + column.scale() + ") on " + field.getSimpleName(), field);
+            }
+            return "com.miniorm.types.TypeConverters.forDecimal(" + column.precision() + ", " + column.scale() + ")";
+        }
+        return null;
+    }
+
+    private Property reference(VariableElement field, boolean shardKey) {
+        ManyToOne mapping = field.getAnnotation(ManyToOne.class);
+        boolean lazy = mapping.fetch() == FetchType.LAZY;
+        TypeMirror type = field.asType();
+        String erased = erasure(type);
+        boolean lazyReference = erased.equals(LazyReference.class.getName());
+        String target = erased;
+        String error = null;
+        if (!lazyReference && lazy) {
+            error = "Lazy @ManyToOne field " + field.getSimpleName() + " must be declared as LazyReference<T>";
+        } else if (lazyReference && !lazy) {
+            error = "LazyReference field " + field.getSimpleName() + " requires @ManyToOne(fetch = FetchType.LAZY)";
+        } else if (lazyReference) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            if (arguments.isEmpty() || arguments.get(0).getKind() != TypeKind.DECLARED) {
+                error = "Cannot resolve target entity of LazyReference field " + field.getSimpleName();
+            } else {
+                target = erasure(arguments.get(0));
+            }
+        }
+        if (error != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, error, field);
+            return null;
+        }
+        return new Property(field, columnName(field), erased, true, target, lazy,
+                mapping.fetchMode().name(), mapping.batchSize(), shardKey, false, null);
+    }
+
+    // Same precedence as ReflectiveMapping.columnName.
+    private static String columnName(VariableElement field) {
+        if (field.getAnnotation(Column.class) != null) {
+            return field.getAnnotation(Column.class).name();
+        } else if (field.getAnnotation(JoinColumn.class) != null) {
+            return field.getAnnotation(JoinColumn.class).name();
+        } else if (field.getAnnotation(Id.class) != null) {
+            return "id";
+        }
+        return field.getSimpleName().toString();
+    }
+
+    private boolean isVersionType(TypeMirror type) {
+        return List.of("int", "long", Integer.class.getName(), Long.class.getName()).contains(erasure(type));
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static boolean isReachable(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement t; e = e.getEnclosingElement()) {
+            if (t.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ExecutableElement noArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    private static String flatName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement outer; e = e.getEnclosingElement()) {
+            name = outer.getSimpleName() + "_" + name;
+        }
+        return name;
+    }
+
+    // Rewritten in full each time; javac reprocesses every entity in the module, so the list stays complete.
+    // Incremental builds only compile changed entities, so mappings listed by earlier builds are kept;
+    // MetadataRegistry skips any whose class has since been deleted.
+    private void writeServiceFile() {
+        Filer filer = processingEnv.getFiler();
+        Set<String> names = new TreeSet<>(generated);
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank() && !line.startsWith("#")) {
+                        names.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // First build into this output directory.
+        }
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String name : names) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private record MappingSource(String packageName, String className, String entity, String tableName,
+                                 boolean privateConstructor, Property id, List<Property> columns, List<Property> foreignKeys) {
+
+        String render() {
+            List<Property> all = new ArrayList<>();
+            all.add(id);
+            all.addAll(columns);
+            all.addAll(foreignKeys);
+            List<String> columnNames = new ArrayList<>();
+            columns.forEach(c -> columnNames.add(c.column()));
+            foreignKeys.forEach(f -> columnNames.add(f.column()));
+            Property version = columns.stream().filter(Property::version).findFirst().orElse(null);
+            SqlTemplates sql = SqlTemplates.of(tableName, id.column(), columnNames, version != null ? version.column() : null);
+            boolean handles = all.stream().anyMatch(Property::viaHandle);
+
+            StringBuilder out = new StringBuilder();
+            if (!packageName.isEmpty()) {
+                out.append("package ").append(packageName).append(";\n\n");
+            }
+            out.append("import java.util.List;\n")
+               .append("import java.util.function.Supplier;\n\n")
+               .append("import com.miniorm.annotations.FetchMode;\n")
+               .append("import com.miniorm.metadata.EntityMapping;\n")
+               .append("import com.miniorm.metadata.MappedProperty;\n")
+               .append("import com.miniorm.metadata.PropertyAccessor;\n")
+               .append("import com.miniorm.metadata.SqlTemplates;\n\n")
+               .append("@javax.annotation.processing.Generated(\"").append(EntityMetadataProcessor.class.getName()).append("\")\n")
+               .append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+               .append("public final class ").append(className).append(" implements EntityMapping {\n");
+
+            if (handles) {
+                for (Property property : all) {
+                    if (property.viaHandle()) {
+                        out.append("    private static final java.lang.invoke.VarHandle ").append(property.handle()).append(";\n");
+                    }
+                }
+                out.append("\n    static {\n        try {\n")
+                   .append("            java.lang.invoke.MethodHandles.Lookup lookup = java.lang.invoke.MethodHandles.privateLookupIn(")
+                   .append(entity).append(".class, java.lang.invoke.MethodHandles.lookup());\n");
+                for (Property property : all) {
+                    if (property.viaHandle()) {
+                        out.append("            ").append(property.handle()).append(" = lookup.findVarHandle(").append(entity)
+                           .append(".class, \"").append(property.name()).append("\", ").append(property.type()).append(".class);\n");
+                    }
+                }
+                out.append("        } catch (ReflectiveOperationException e) {\n")
+                   .append("            throw new ExceptionInInitializerError(e);\n        }\n    }\n");
+            }
+
+            out.append("\n    // Built when the entity is first mapped rather than when ServiceLoader creates this class,\n")
+               .append("    // so converters registered with TypeConverters before then apply.\n")
+               .append("    private MappedProperty id;\n")
+               .append("    private List<MappedProperty> columns;\n")
+               .append("    private List<MappedProperty> foreignKeys;\n\n");
+            out.append("    private synchronized void resolve() {\n        if (columns != null) return;\n");
+            out.append("        id = ").append(property(id)).append(";\n");
+            out.append("        columns = List.of(").append(properties(columns)).append(");\n");
+            out.append("        foreignKeys = List.of(").append(properties(foreignKeys)).append(");\n    }\n\n");
+
+            out.append("    @Override public Class<?> entityClass() { return ").append(entity).append(".class; }\n");
+            out.append("    @Override public String tableName() { return ").append(literal(tableName)).append("; }\n");
+            out.append("    @Override public Supplier<Object> instantiator() { return ").append(privateConstructor
+                    ? "com.miniorm.metadata.MethodHandleAccessStrategy.INSTANCE.instantiatorFor(" + entity + ".class)"
+                    : entity + "::new").append("; }\n");
+            out.append("    @Override public MappedProperty id() { resolve(); return id; }\n");
+            out.append("    @Override public List<MappedProperty> columns() { resolve(); return columns; }\n");
+            out.append("    @Override public List<MappedProperty> foreignKeys() { resolve(); return foreignKeys; }\n");
+            out.append("    @Override public MappedProperty shardKey() { resolve(); return ").append(shardKeyExpression()).append("; }\n");
+            out.append("    @Override public MappedProperty version() { resolve(); return ")
+               .append(version != null ? "columns.get(" + columns.indexOf(version) + ")" : "null").append("; }\n\n");
+            out.append("    @Override public SqlTemplates sql() {\n        return new SqlTemplates(")
+               .append(literal(sql.selectColumns())).append(",\n                ")
+               .append(literal(sql.insert())).append(",\n                ")
+               .append(literal(sql.upsert())).append(",\n                ")
+               .append(literal(sql.update())).append(",\n                ")
+               .append(literal(sql.selectById())).append(",\n                ")
+               .append(literal(sql.delete())).append(");\n    }\n}\n");
+            return out.toString();
+        }
+
+        private String shardKeyExpression() {
+            if (id.shardKey()) {
+                return "id";
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).shardKey()) return "columns.get(" + i + ")";
+            }
+            for (int i = 0; i < foreignKeys.size(); i++) {
+                if (foreignKeys.get(i).shardKey()) return "foreignKeys.get(" + i + ")";
+            }
+            return "null";
+        }
+
+        private String properties(List<Property> properties) {
+            List<String> rendered = new ArrayList<>();
+            for (Property property : properties) {
+                rendered.add("\n            " + property(property));
+            }
+            return String.join(",", rendered);
+        }
+
+        private String property(Property property) {
+            StringBuilder out = new StringBuilder("MappedProperty.")
+                    .append(property.reference() ? "reference(" : "column(")
+                    .append(literal(property.name())).append(", ").append(literal(property.column())).append(", ")
+                    .append(property.type()).append(".class, ").append(accessor(property));
+            if (property.converter() != null) {
+                out.append(", ").append(property.converter());
+            }
+            if (property.reference()) {
+                out.append(", ").append(property.target()).append(".class, ").append(property.lazy())
+                   .append(", FetchMode.").append(property.fetchMode()).append(", ").append(property.batchSize());
+            }
+            return out.append(")").toString();
+        }
+
+        private String accessor(Property property) {
+            String type = property.type();
+            String target = "((" + entity + ") entity)";
+            String read = property.viaHandle()
+                    ? "(" + type + ") " + property.handle() + ".get(" + target + ")"
+                    : target + "." + property.name();
+            String boxed = property.primitive() ? boxOf(type) : type;
+            StringBuilder out = new StringBuilder("new PropertyAccessor() {\n");
+            out.append("                public Object get(Object entity) { return ").append(read).append("; }\n");
+            out.append("                public void set(Object entity, Object value) { ")
+               .append(write(property, target, property.primitive() ? "(" + type + ") (" + boxed + ") value" : "(" + type + ") value")).append(" }\n");
+            if (property.primitive() && List.of("long", "int", "double", "boolean").contains(type)) {
+                String suffix = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+                out.append("                public ").append(type).append(" get").append(suffix).append("(Object entity) { return ")
+                   .append(read).append("; }\n");
+                out.append("                public void set").append(suffix).append("(Object entity, ").append(type).append(" value) { ")
+                   .append(write(property, target, "value")).append(" }\n");
+            }
+            return out.append("            }").toString();
+        }
+
+        private static String write(Property property, String target, String value) {
+            return property.viaHandle()
+                    ? property.handle() + ".set(" + target + ", " + value + ");"
+                    : target + "." + property.name() + " = " + value + ";";
+        }
+
+        private static String boxOf(String primitive) {
+            return switch (primitive) {
+                case "int" -> "Integer";
+                case "char" -> "Character";
+                default -> Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+            };
+        }
+
+        private static String literal(String value) {
+            if (value == null) {
+                return "null";
+            }
+            return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+    }
+}
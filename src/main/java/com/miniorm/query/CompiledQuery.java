@@ -0,0 +1,106 @@
+package com.miniorm.query;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.miniorm.metadata.FetchPlan;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.types.TypeConverter;
+
+public class CompiledQuery {
+    private final String sql;
+    private final FetchPlan fetchPlan;
+    private final List<Class<?>> projectionTypes;
+    private final List<TypeConverter> projectionConverters;
+    private final boolean[] referenceParameters;
+    private final boolean[] referenceKeyset;
+    private final TypeConverter[] parameterConverters;
+    private final TypeConverter[] keysetConverters;
+    private final MetadataRegistry registry;
+    private final List<String> projection;
+    private final Map<Class<?>, ProjectionMapper<?>> mappers = new ConcurrentHashMap<>();
+
+    CompiledQuery(String sql, FetchPlan fetchPlan, List<String> projection, List<Class<?>> projectionTypes,
+                  List<TypeConverter> projectionConverters, boolean[] referenceParameters, boolean[] referenceKeyset,
+                  TypeConverter[] parameterConverters, TypeConverter[] keysetConverters, MetadataRegistry registry) {
+        this.sql = sql;
+        this.projection = projection;
+        this.fetchPlan = fetchPlan;
+        this.projectionTypes = projectionTypes;
+        this.projectionConverters = projectionConverters;
+        this.referenceParameters = referenceParameters;
+        this.referenceKeyset = referenceKeyset;
+        this.parameterConverters = parameterConverters;
+        this.keysetConverters = keysetConverters;
+        this.registry = registry;
+    }
+
+    public void bind(PreparedStatement stmt, Query<?> query) throws SQLException {
+        List<Object> values = bindValues(query);
+        for (int i = 0; i < values.size(); i++) {
+            stmt.setObject(i + 1, values.get(i));
+        }
+    }
+
+    // Values in placeholder order, with references converted to their ids and other values to their column form.
+    public List<Object> bindValues(Query<?> query) {
+        List<Object> parameters = query.getParameters();
+        Object[] keyset = query.getKeyset();
+        List<Object> values = new ArrayList<>(parameters.size() + (keyset == null ? 0 : keyset.length * 2) + 2);
+        for (int i = 0; i < parameters.size(); i++) {
+            values.add(toColumnValue(parameters.get(i), referenceParameters[i], parameterConverters[i]));
+        }
+
+        if (keyset != null) {
+            if (keyset.length != keysetConverters.length) {
+                throw new IllegalArgumentException("Keyset values must match the " + keysetConverters.length
+                        + " ORDER BY properties, got " + keyset.length);
+            }
+            // Matches SqlBuilder.buildKeysetCondition: (k0 > ?) OR (k0 = ? AND k1 > ?) OR ...
+            for (int i = 0; i < keyset.length; i++) {
+                for (int j = 0; j < i; j++) {
+                    values.add(toColumnValue(keyset[j], referenceKeyset[j], keysetConverters[j]));
+                }
+                values.add(toColumnValue(keyset[i], referenceKeyset[i], keysetConverters[i]));
+            }
+        }
+
+        if (query.getLimit() != null) {
+            values.add(query.getLimit());
+        }
+        if (query.getOffset() != null) {
+            values.add(query.getOffset());
+        }
+        return values;
+    }
+
+    private Object toColumnValue(Object value, boolean reference, TypeConverter converter) {
+        if (reference) {
+            return registry.getReferenceId(value);
+        }
+        return converter != null ? converter.toJdbc(value) : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <R> ProjectionMapper<R> mapperFor(Class<R> resultType) {
+        if (!isProjection()) {
+            throw new IllegalArgumentException("Query does not select a projection");
+        }
+        ProjectionMapper<?> mapper = mappers.get(resultType);
+        if (mapper == null) {
+            mapper = mappers.computeIfAbsent(resultType,
+                    type -> ProjectionMapper.create(type, projection, projectionTypes, projectionConverters));
+        }
+        return (ProjectionMapper<R>) mapper;
+    }
+
+    public String getSql() { return sql; }
+    public FetchPlan getFetchPlan() { return fetchPlan; }
+    public boolean isProjection() { return projectionTypes != null; }
+    public List<Class<?>> getProjectionTypes() { return projectionTypes; }
+    public List<TypeConverter> getProjectionConverters() { return projectionConverters; }
+}
@@ -0,0 +1,227 @@
+package com.miniorm.query;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.miniorm.types.TypeConverter;
+
+public abstract class ProjectionMapper<R> {
+    protected final Class<?>[] columnTypes;
+    // Set for record components and getters declared primitive, which cannot take SQL NULL.
+    protected final String[] primitiveTargets;
+    private TypeConverter[] converters;
+
+    private ProjectionMapper(Class<?>[] columnTypes) {
+        this.columnTypes = columnTypes;
+        this.primitiveTargets = new String[columnTypes.length];
+    }
+
+    public abstract R map(ResultSet rs) throws SQLException;
+
+    protected Object[] readRow(ResultSet rs) throws SQLException {
+        Object[] values = new Object[columnTypes.length];
+        for (int i = 0; i < values.length; i++) {
+            TypeConverter converter = converters != null ? converters[i] : null;
+            values[i] = converter != null ? converter.read(rs, i + 1) : rs.getObject(i + 1, columnTypes[i]);
+            if (values[i] == null && primitiveTargets[i] != null) {
+                throw new IllegalStateException("Column " + (i + 1) + " is NULL but " + primitiveTargets[i]
+                        + " is primitive; declare it as " + columnTypes[i].getSimpleName());
+            }
+        }
+        return values;
+    }
+
+    public static <R> ProjectionMapper<R> create(Class<R> type, List<String> properties) {
+        if (type.isRecord()) {
+            return new RecordMapper<>(type, properties);
+        }
+        if (type.isInterface()) {
+            return new InterfaceMapper<>(type, properties);
+        }
+        throw new IllegalArgumentException("Projection type " + type.getName() + " must be a record or an interface");
+    }
+
+    // Reads a column through its property's converter when that yields the requested type (enums, UUIDs,
+    // java.time); primitive properties and other requested types go through getObject(column, type).
+    public static <R> ProjectionMapper<R> create(Class<R> type, List<String> properties,
+                                                 List<Class<?>> propertyTypes, List<TypeConverter> propertyConverters) {
+        ProjectionMapper<R> mapper = create(type, properties);
+        mapper.converters = new TypeConverter[mapper.columnTypes.length];
+        for (int i = 0; i < mapper.converters.length; i++) {
+            Class<?> propertyType = propertyTypes.get(i);
+            if (!propertyType.isPrimitive() && mapper.columnTypes[i].isAssignableFrom(propertyType)) {
+                mapper.converters[i] = propertyConverters.get(i);
+            }
+        }
+        return mapper;
+    }
+
+    // Properties selected when a projection query does not call select(...) itself.
+    public static List<String> propertyNames(Class<?> type) {
+        List<String> names = new ArrayList<>();
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                names.add(component.getName());
+            }
+        } else if (type.isInterface()) {
+            for (Method method : type.getMethods()) {
+                if (isPropertyMethod(method)) {
+                    names.add(propertyName(method));
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("Projection type " + type.getName() + " declares no properties");
+        }
+        return names;
+    }
+
+    private static boolean isPropertyMethod(Method method) {
+        return !method.isDefault() && method.getParameterCount() == 0 && method.getReturnType() != void.class
+                && method.getDeclaringClass() != Object.class;
+    }
+
+    private static String propertyName(Method method) {
+        String name = method.getName();
+        if (name.length() > 3 && name.startsWith("get")) {
+            return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+        }
+        if (name.length() > 2 && name.startsWith("is") && method.getReturnType() == boolean.class) {
+            return Character.toLowerCase(name.charAt(2)) + name.substring(3);
+        }
+        return name;
+    }
+
+    static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) return type;
+        if (type == long.class) return Long.class;
+        if (type == int.class) return Integer.class;
+        if (type == double.class) return Double.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == float.class) return Float.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        return Character.class;
+    }
+
+    // Components are matched to selected properties by name, so select order does not matter.
+    private static final class RecordMapper<R> extends ProjectionMapper<R> {
+        private final Class<R> type;
+        private final MethodHandle constructor;
+        private final int[] columns;
+
+        RecordMapper(Class<R> type, List<String> properties) {
+            super(new Class<?>[properties.size()]);
+            this.type = type;
+            RecordComponent[] components = type.getRecordComponents();
+            if (components.length != properties.size()) {
+                throw new IllegalArgumentException("Record " + type.getName() + " has " + components.length
+                        + " components but the query selects " + properties.size() + " columns");
+            }
+            Class<?>[] parameterTypes = new Class<?>[components.length];
+            this.columns = new int[components.length];
+            for (int i = 0; i < components.length; i++) {
+                int column = properties.indexOf(components[i].getName());
+                if (column < 0) {
+                    throw new IllegalArgumentException("Component " + components[i].getName() + " of " + type.getName()
+                            + " is not selected; the query selects " + properties);
+                }
+                columns[i] = column;
+                parameterTypes[i] = components[i].getType();
+                columnTypes[column] = boxed(parameterTypes[i]);
+                if (parameterTypes[i].isPrimitive()) {
+                    primitiveTargets[column] = type.getSimpleName() + "." + components[i].getName();
+                }
+            }
+            try {
+                Constructor<R> canonical = type.getDeclaredConstructor(parameterTypes);
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                this.constructor = lookup.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot access canonical constructor of " + type.getName(), e);
+            }
+        }
+
+        @Override
+        public R map(ResultSet rs) throws SQLException {
+            Object[] values = readRow(rs);
+            Object[] arguments = new Object[columns.length];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = values[columns[i]];
+            }
+            try {
+                return type.cast((Object) constructor.invokeExact(arguments));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to construct " + type.getName(), e);
+            }
+        }
+    }
+
+    private static final class InterfaceMapper<R> extends ProjectionMapper<R> {
+        private final Class<R> type;
+        private final Map<Method, Integer> indexes;
+
+        InterfaceMapper(Class<R> type, List<String> properties) {
+            super(new Class<?>[properties.size()]);
+            this.type = type;
+            this.indexes = new HashMap<>();
+            for (Method method : type.getMethods()) {
+                if (!isPropertyMethod(method)) {
+                    continue;
+                }
+                int index = properties.indexOf(propertyName(method));
+                if (index < 0) {
+                    throw new IllegalArgumentException("Property " + propertyName(method) + " of " + type.getName() + " is not selected");
+                }
+                indexes.put(method, index);
+                columnTypes[index] = boxed(method.getReturnType());
+                if (method.getReturnType().isPrimitive()) {
+                    primitiveTargets[index] = type.getSimpleName() + "." + method.getName() + "()";
+                }
+            }
+            for (int i = 0; i < columnTypes.length; i++) {
+                if (columnTypes[i] == null) {
+                    columnTypes[i] = Object.class;
+                }
+            }
+        }
+
+        @Override
+        public R map(ResultSet rs) throws SQLException {
+            Object[] values = readRow(rs);
+            InvocationHandler handler = (proxy, method, args) -> {
+                Integer index = indexes.get(method);
+                if (index != null) {
+                    return values[index];
+                }
+                if (method.isDefault()) {
+                    return InvocationHandler.invokeDefault(proxy, method, args);
+                }
+                return switch (method.getName()) {
+                    case "toString" -> type.getSimpleName() + Arrays.toString(values);
+                    case "hashCode" -> Arrays.hashCode(values);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.toString());
+                };
+            };
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.miniorm.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.miniorm.cache.QueryResultCache;
+
+public class Query<T> {
+    private final Class<T> entityClass;
+    private final List<Condition> conditions = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+    private final List<Ordering> orderings = new ArrayList<>();
+    private final List<String> projection = new ArrayList<>();
+    private Integer limit;
+    private Integer offset;
+    private Object[] keyset;
+    private String cacheRegion;
+
+    private Query(Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public static <T> Query<T> from(Class<T> entityClass) {
+        return new Query<>(entityClass);
+    }
+
+    // An independent query with the same conditions, so callers' queries are never narrowed behind their back.
+    public Query<T> copy() {
+        Query<T> copy = new Query<>(entityClass);
+        copy.conditions.addAll(conditions);
+        copy.parameters.addAll(parameters);
+        copy.orderings.addAll(orderings);
+        copy.projection.addAll(projection);
+        copy.limit = limit;
+        copy.offset = offset;
+        copy.keyset = keyset != null ? keyset.clone() : null;
+        copy.cacheRegion = cacheRegion;
+        return copy;
+    }
+
+    public Query<T> where(String property, Operator operator, Object value) {
+        if (operator == Operator.IN) {
+            if (!(value instanceof Collection<?> values)) {
+                throw new IllegalArgumentException("IN condition on '" + property + "' requires a Collection");
+            }
+            return in(property, values);
+        }
+        if (operator == Operator.IS_NULL || operator == Operator.IS_NOT_NULL) {
+            conditions.add(new Condition(property, operator, 0));
+            return this;
+        }
+        conditions.add(new Condition(property, operator, 1));
+        parameters.add(value);
+        return this;
+    }
+
+    public Query<T> eq(String property, Object value) { return where(property, Operator.EQ, value); }
+    public Query<T> ne(String property, Object value) { return where(property, Operator.NE, value); }
+    public Query<T> lt(String property, Object value) { return where(property, Operator.LT, value); }
+    public Query<T> le(String property, Object value) { return where(property, Operator.LE, value); }
+    public Query<T> gt(String property, Object value) { return where(property, Operator.GT, value); }
+    public Query<T> ge(String property, Object value) { return where(property, Operator.GE, value); }
+    public Query<T> like(String property, String pattern) { return where(property, Operator.LIKE, pattern); }
+    public Query<T> isNull(String property) { return where(property, Operator.IS_NULL, null); }
+    public Query<T> isNotNull(String property) { return where(property, Operator.IS_NOT_NULL, null); }
+
+    public Query<T> in(String property, Collection<?> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("IN condition on '" + property + "' requires at least one value");
+        }
+        conditions.add(new Condition(property, Operator.IN, values.size()));
+        parameters.addAll(values);
+        return this;
+    }
+
+    public Query<T> orderBy(String property) {
+        orderings.add(new Ordering(property, true));
+        return this;
+    }
+
+    public Query<T> orderByDesc(String property) {
+        orderings.add(new Ordering(property, false));
+        return this;
+    }
+
+    public Query<T> limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public Query<T> offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    // Keyset pagination: continue after the row whose ORDER BY values are given, in ORDER BY sequence.
+    // The values are checked against the orderings when the query runs, so orderBy may come later.
+    public Query<T> after(Object... lastValues) {
+        if (lastValues.length == 0) {
+            throw new IllegalArgumentException("Keyset pagination needs the last row's ORDER BY values");
+        }
+        this.keyset = lastValues.clone();
+        return this;
+    }
+
+    public Query<T> select(String... properties) {
+        return select(Arrays.asList(properties));
+    }
+
+    public Query<T> select(List<String> properties) {
+        projection.clear();
+        projection.addAll(properties);
+        return this;
+    }
+
+    // Opt in to the session factory's query result cache, if one is enabled.
+    public Query<T> cacheable() {
+        return cacheable(QueryResultCache.DEFAULT_REGION);
+    }
+
+    public Query<T> cacheable(String region) {
+        this.cacheRegion = region;
+        return this;
+    }
+
+    public Class<T> getEntityClass() { return entityClass; }
+    public List<Object> getParameters() { return parameters; }
+    public Integer getLimit() { return limit; }
+    public Integer getOffset() { return offset; }
+    public Object[] getKeyset() { return keyset; }
+    public boolean isProjection() { return !projection.isEmpty(); }
+    public boolean isCacheable() { return cacheRegion != null; }
+    public String getCacheRegion() { return cacheRegion; }
+
+    QueryShape shape() {
+        return new QueryShape(entityClass, conditions, orderings, projection, limit != null, offset != null, keyset != null);
+    }
+
+    record Condition(String property, Operator operator, int arity) {}
+
+    record Ordering(String property, boolean ascending) {}
+
+    // Everything that determines the generated SQL, without the bound values.
+    record QueryShape(Class<?> entityClass, List<Condition> conditions, List<Ordering> orderings, List<String> projection,
+                      boolean limited, boolean offset, boolean keyset) {
+        QueryShape copy() {
+            return new QueryShape(entityClass, List.copyOf(conditions), List.copyOf(orderings), List.copyOf(projection),
+                    limited, offset, keyset);
+        }
+    }
+}
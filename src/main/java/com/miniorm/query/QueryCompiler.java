@@ -0,0 +1,188 @@
+package com.miniorm.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.FetchPlan;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.types.TypeConverter;
+
+public class QueryCompiler {
+    private static final int MAX_CACHED_PLANS = 1024;
+
+    private final MetadataRegistry registry;
+    private final Map<Query.QueryShape, CompiledQuery> plans = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public QueryCompiler(MetadataRegistry registry) {
+        this.registry = registry;
+    }
+
+    public CompiledQuery compile(Query<?> query) {
+        Query.QueryShape shape = query.shape();
+        CompiledQuery compiled = plans.get(shape);
+        if (compiled != null) {
+            hits.increment();
+            return compiled;
+        }
+
+        misses.increment();
+        compiled = build(shape);
+        if (plans.size() < MAX_CACHED_PLANS) {
+            CompiledQuery existing = plans.putIfAbsent(shape.copy(), compiled);
+            if (existing != null) {
+                compiled = existing;
+            }
+        }
+        return compiled;
+    }
+
+    private CompiledQuery build(Query.QueryShape shape) {
+        EntityMetadata meta = registry.get(shape.entityClass());
+        FetchPlan fetchPlan = registry.getFetchPlan(shape.entityClass());
+        boolean projection = !shape.projection().isEmpty();
+
+        StringBuilder sql = new StringBuilder();
+        List<Class<?>> projectionTypes = null;
+        List<TypeConverter> projectionConverters = null;
+        String qualifier;
+        if (projection) {
+            qualifier = "";
+            projectionTypes = new ArrayList<>(shape.projection().size());
+            projectionConverters = new ArrayList<>(shape.projection().size());
+            List<String> columns = new ArrayList<>(shape.projection().size());
+            for (String property : shape.projection()) {
+                columns.add(meta.getPropertyColumn(property));
+                projectionTypes.add(meta.getPropertyType(property));
+                projectionConverters.add(meta.getPropertyConverter(property));
+            }
+            sql.append("SELECT ").append(String.join(", ", columns)).append(" FROM ").append(meta.getTableName());
+        } else {
+            qualifier = fetchPlan.qualify("");
+            sql.append(fetchPlan.getSelectSql());
+        }
+
+        List<String> predicates = new ArrayList<>();
+        List<Boolean> references = new ArrayList<>();
+        List<TypeConverter> converters = new ArrayList<>();
+        for (Query.Condition condition : shape.conditions()) {
+            String column = qualifier + meta.getPropertyColumn(condition.property());
+            predicates.add(SqlBuilder.buildCondition(column, condition.operator(), condition.arity()));
+            boolean reference = meta.isReferenceProperty(condition.property());
+            TypeConverter converter = meta.getPropertyConverter(condition.property());
+            for (int i = 0; i < condition.arity(); i++) {
+                references.add(reference);
+                converters.add(converter);
+            }
+        }
+
+        List<String> orderColumns = new ArrayList<>(shape.orderings().size());
+        List<Boolean> ascending = new ArrayList<>(shape.orderings().size());
+        boolean[] referenceKeyset = new boolean[shape.orderings().size()];
+        TypeConverter[] keysetConverters = new TypeConverter[shape.orderings().size()];
+        for (int i = 0; i < shape.orderings().size(); i++) {
+            Query.Ordering ordering = shape.orderings().get(i);
+            orderColumns.add(qualifier + meta.getPropertyColumn(ordering.property()));
+            ascending.add(ordering.ascending());
+            referenceKeyset[i] = meta.isReferenceProperty(ordering.property());
+            keysetConverters[i] = meta.getPropertyConverter(ordering.property());
+        }
+        if (shape.keyset()) {
+            if (orderColumns.isEmpty()) {
+                throw new IllegalArgumentException("Keyset pagination needs at least one orderBy property");
+            }
+            predicates.add(SqlBuilder.buildKeysetCondition(orderColumns, ascending));
+        }
+
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        if (!orderColumns.isEmpty()) {
+            sql.append(" ORDER BY ");
+            for (int i = 0; i < orderColumns.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(orderColumns.get(i)).append(ascending.get(i) ? " ASC" : " DESC");
+            }
+        }
+        if (shape.limited()) {
+            sql.append(" LIMIT ?");
+        } else if (shape.offset()) {
+            sql.append(" LIMIT ").append(Integer.MAX_VALUE);
+        }
+        if (shape.offset()) {
+            sql.append(" OFFSET ?");
+        }
+
+        boolean[] referenceParameters = new boolean[references.size()];
+        for (int i = 0; i < referenceParameters.length; i++) {
+            referenceParameters[i] = references.get(i);
+        }
+        return new CompiledQuery(sql.toString(), projection ? null : fetchPlan,
+                projection ? List.copyOf(shape.projection()) : null, projectionTypes, projectionConverters,
+                referenceParameters, referenceKeyset, converters.toArray(new TypeConverter[0]), keysetConverters, registry);
+    }
+
+    // Set-based DELETE/UPDATE over the query's where conditions. These are not cached, since their
+    // shapes would collide with the SELECT plans.
+    public CompiledQuery compileDelete(Query<?> query) {
+        EntityMetadata meta = registry.get(query.getEntityClass());
+        return buildBulk(query.shape(), meta, "DELETE FROM " + meta.getTableName());
+    }
+
+    public CompiledQuery compileUpdate(Query<?> query, Collection<String> properties) {
+        if (properties.isEmpty()) {
+            throw new IllegalArgumentException("Bulk update needs at least one property to set");
+        }
+        EntityMetadata meta = registry.get(query.getEntityClass());
+        List<String> sets = new ArrayList<>(properties.size());
+        for (String property : properties) {
+            if (meta.isIdProperty(property) || property.equals(meta.getVersionProperty())) {
+                throw new IllegalArgumentException("Bulk update cannot change the id or version of " + meta.getEntityClass().getSimpleName());
+            }
+            sets.add(meta.getPropertyColumn(property) + " = ?");
+        }
+        // Bumped so loaded copies of the touched rows fail their next versioned write.
+        if (meta.isVersioned()) {
+            sets.add(meta.getVersionColumnName() + " = " + meta.getVersionColumnName() + " + 1");
+        }
+        return buildBulk(query.shape(), meta, "UPDATE " + meta.getTableName() + " SET " + String.join(", ", sets));
+    }
+
+    private CompiledQuery buildBulk(Query.QueryShape shape, EntityMetadata meta, String head) {
+        if (!shape.orderings().isEmpty() || shape.limited() || shape.offset() || shape.keyset() || !shape.projection().isEmpty()) {
+            throw new IllegalArgumentException("Bulk operations support only where conditions");
+        }
+        StringBuilder sql = new StringBuilder(head);
+        List<String> predicates = new ArrayList<>(shape.conditions().size());
+        List<Boolean> references = new ArrayList<>();
+        List<TypeConverter> converters = new ArrayList<>();
+        for (Query.Condition condition : shape.conditions()) {
+            predicates.add(SqlBuilder.buildCondition(meta.getPropertyColumn(condition.property()), condition.operator(), condition.arity()));
+            boolean reference = meta.isReferenceProperty(condition.property());
+            TypeConverter converter = meta.getPropertyConverter(condition.property());
+            for (int i = 0; i < condition.arity(); i++) {
+                references.add(reference);
+                converters.add(converter);
+            }
+        }
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+
+        boolean[] referenceParameters = new boolean[references.size()];
+        for (int i = 0; i < referenceParameters.length; i++) {
+            referenceParameters[i] = references.get(i);
+        }
+        return new CompiledQuery(sql.toString(), null, null, null, null, referenceParameters, new boolean[0],
+                converters.toArray(new TypeConverter[0]), new TypeConverter[0], registry);
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public int size() { return plans.size(); }
+}
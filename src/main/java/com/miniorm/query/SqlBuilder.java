@@ -1,7 +1,7 @@
 package com.miniorm.query;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -10,16 +10,13 @@ import com.miniorm.metadata.EntityMetadata;
 public class SqlBuilder {
 
     public static String buildInsert(EntityMetadata meta) {
-        StringBuilder sql = new StringBuilder("INSERT INTO ").append(meta.getTableName()).append(" (");
-        
-        List<String> colNames = new ArrayList<>();
-        
-        for (Field f : meta.getColumns()) {
-            colNames.add(meta.getColumnName(f));
-        }
-        for (Field f : meta.getForeignKeys()) {
-            colNames.add(meta.getColumnName(f));
-        }
+        return buildInsert(meta.getTableName(), insertColumns(meta));
+    }
+
+    // The String overloads take the @Column names followed by the foreign key names, so the
+    // annotation processor can render the same statements at compile time.
+    public static String buildInsert(String table, List<String> colNames) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
 
         sql.append(String.join(", ", colNames));
         sql.append(") VALUES (");
@@ -29,49 +26,194 @@ public class SqlBuilder {
         return sql.toString();
     }
 
+    // INSERT ... VALUES (...), (...) with one placeholder group per row.
+    public static String buildMultiRowInsert(EntityMetadata meta, int rows) {
+        String single = buildInsert(meta);
+        String group = single.substring(single.lastIndexOf(" VALUES ") + " VALUES ".length());
+        StringBuilder sql = new StringBuilder(single.length() + (group.length() + 2) * (rows - 1)).append(single);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", ").append(group);
+        }
+        return sql.toString();
+    }
+
+    // MySQL upsert; VALUES(col) rather than a row alias so it also runs on 5.7.
+    public static String buildUpsert(EntityMetadata meta) {
+        return buildUpsert(meta.getTableName(), meta.getIdColumnName(), insertColumns(meta));
+    }
+
+    public static String buildUpsert(String table, String idColumn, List<String> columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(idColumn);
+        for (String column : columns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(") VALUES (?");
+        sql.append(", ?".repeat(columns.size()));
+        sql.append(") ON DUPLICATE KEY UPDATE ");
+
+        if (columns.isEmpty()) {
+            return sql.append(idColumn).append(" = ").append(idColumn).toString();
+        }
+        sql.append(columns.stream().map(c -> c + " = VALUES(" + c + ")").collect(Collectors.joining(", ")));
+        return sql.toString();
+    }
+
     public static String buildUpdate(EntityMetadata meta) {
-        StringBuilder sql = new StringBuilder("UPDATE ").append(meta.getTableName()).append(" SET ");
+        return buildUpdate(meta.getTableName(), meta.getIdColumnName(), insertColumns(meta), meta.getVersionColumnName());
+    }
+
+    public static String buildUpdate(String table, String idColumn, List<String> columns) {
+        return buildUpdate(table, idColumn, columns, null);
+    }
+
+    public static String buildUpdate(String table, String idColumn, List<String> columns, String versionColumn) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
         
         List<String> sets = new ArrayList<>();
         
-        for (Field f : meta.getColumns()) {
-            sets.add(meta.getColumnName(f) + " = ?");
-        }
-        for (Field f : meta.getForeignKeys()) {
-            sets.add(meta.getColumnName(f) + " = ?");
+        for (String col : columns) {
+            sets.add(col + " = ?");
         }
         
         if (sets.isEmpty()) {
-            throw new RuntimeException("No columns to update for entity: " + meta.getTableName());
+            throw new RuntimeException("No columns to update for entity: " + table);
         }
         
         sql.append(String.join(", ", sets));
-        sql.append(" WHERE ").append(meta.getColumnName(meta.getIdField())).append(" = ?");
+        sql.append(" WHERE ").append(idColumn).append(" = ?");
+        appendVersionCheck(sql, versionColumn);
         
         return sql.toString();
     }
 
+    private static void appendVersionCheck(StringBuilder sql, String versionColumn) {
+        if (versionColumn != null) {
+            sql.append(" AND ").append(versionColumn).append(" = ?");
+        }
+    }
+
+    // Only the changed columns; bits are select-list positions, see EntityMetadata.getColumnIndex.
+    public static String buildPartialUpdate(EntityMetadata meta, BitSet changed) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(meta.getTableName()).append(" SET ");
+        int columnCount = meta.getColumnNames().size();
+        List<String> sets = new ArrayList<>(changed.cardinality());
+        for (int bit = changed.nextSetBit(0); bit >= 0; bit = changed.nextSetBit(bit + 1)) {
+            int column = bit - 1;
+            String name = column < columnCount
+                    ? meta.getColumnNames().get(column)
+                    : meta.getForeignKeyColumnNames().get(column - columnCount);
+            sets.add(name + " = ?");
+        }
+        sql.append(String.join(", ", sets));
+        sql.append(" WHERE ").append(meta.getIdColumnName()).append(" = ?");
+        appendVersionCheck(sql, meta.getVersionColumnName());
+        return sql.toString();
+    }
+
     public static String buildSelectById(EntityMetadata meta) {
-        return "SELECT * FROM " + meta.getTableName() + " WHERE " + meta.getColumnName(meta.getIdField()) + " = ?";
+        return buildSelectById(meta.getTableName(), meta.getIdColumnName(), insertColumns(meta));
+    }
+
+    public static String buildSelectById(String table, String idColumn, List<String> columns) {
+        return "SELECT " + buildSelectColumns("", idColumn, columns) + " FROM " + table + " WHERE " + idColumn + " = ?";
+    }
+
+    public static String buildSelectColumns(EntityMetadata meta) {
+        return buildSelectColumns(meta, "");
+    }
+
+    public static String buildSelectColumns(EntityMetadata meta, String qualifier) {
+        return buildSelectColumns(qualifier, meta.getIdColumnName(), insertColumns(meta));
+    }
+
+    public static String buildSelectColumns(String qualifier, String idColumn, List<String> columns) {
+        List<String> colNames = new ArrayList<>();
+        colNames.add(qualifier + idColumn);
+        for (String col : columns) {
+            colNames.add(qualifier + col);
+        }
+        return String.join(", ", colNames);
+    }
+
+    private static List<String> insertColumns(EntityMetadata meta) {
+        List<String> columns = new ArrayList<>(meta.getColumnNames());
+        columns.addAll(meta.getForeignKeyColumnNames());
+        return columns;
+    }
+
+    public static String buildJoinSelect(EntityMetadata meta, List<Integer> joinedForeignKeys, List<EntityMetadata> joinedMetadata) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(buildSelectColumns(meta, "t0."));
+        for (int j = 0; j < joinedMetadata.size(); j++) {
+            sql.append(", ").append(buildSelectColumns(joinedMetadata.get(j), "t" + (j + 1) + "."));
+        }
+        sql.append(" FROM ").append(meta.getTableName()).append(" t0");
+        for (int j = 0; j < joinedMetadata.size(); j++) {
+            EntityMetadata target = joinedMetadata.get(j);
+            String alias = "t" + (j + 1);
+            String fkCol = meta.getForeignKeyColumnNames().get(joinedForeignKeys.get(j));
+            sql.append(" LEFT JOIN ").append(target.getTableName()).append(" ").append(alias)
+               .append(" ON t0.").append(fkCol).append(" = ").append(alias).append(".").append(target.getIdColumnName());
+        }
+        return sql.toString();
+    }
+
+    public static String buildCondition(String column, Operator operator, int arity) {
+        if (operator == Operator.IN) {
+            return buildInList(column, arity);
+        }
+        if (arity == 0) {
+            return column + " " + operator.getSql();
+        }
+        return column + " " + operator.getSql() + " ?";
+    }
+
+    public static String buildKeysetCondition(List<String> columns, List<Boolean> ascending) {
+        List<String> disjuncts = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            StringBuilder term = new StringBuilder("(");
+            for (int j = 0; j < i; j++) {
+                term.append(columns.get(j)).append(" = ? AND ");
+            }
+            term.append(columns.get(i)).append(ascending.get(i) ? " > ?" : " < ?").append(")");
+            disjuncts.add(term.toString());
+        }
+        return disjuncts.size() == 1 ? disjuncts.get(0) : "(" + String.join(" OR ", disjuncts) + ")";
+    }
+
+    public static String buildInList(String column, int count) {
+        StringBuilder sql = new StringBuilder(column).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")").toString();
     }
 
     public static String buildDelete(EntityMetadata meta) {
-        return "DELETE FROM " + meta.getTableName() + " WHERE " + meta.getColumnName(meta.getIdField()) + " = ?";
+        return buildDelete(meta.getTableName(), meta.getIdColumnName(), meta.getVersionColumnName());
+    }
+
+    public static String buildDelete(String table, String idColumn) {
+        return buildDelete(table, idColumn, null);
+    }
+
+    public static String buildDelete(String table, String idColumn, String versionColumn) {
+        String sql = "DELETE FROM " + table + " WHERE " + idColumn + " = ?";
+        return versionColumn != null ? sql + " AND " + versionColumn + " = ?" : sql;
     }
     
     public static String buildCreateTable(EntityMetadata meta) {
         StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS " + meta.getTableName() + " (");
-        String idCol = meta.getColumnName(meta.getIdField());
+        String idCol = meta.getIdColumnName();
         sql.append(idCol).append(" BIGINT AUTO_INCREMENT PRIMARY KEY, ");
         
-        for (Field f : meta.getColumns()) {
-            String colName = meta.getColumnName(f);
-            String type = getSqlType(f.getType());
+        for (int i = 0; i < meta.getColumnCount(); i++) {
+            String colName = meta.getColumnNames().get(i);
+            String type = meta.getColumnConverter(i).sqlType();
             sql.append(colName).append(" ").append(type).append(", ");
         }
         
-        for (Field f : meta.getForeignKeys()) {
-             String colName = meta.getColumnName(f);
+        for (String colName : meta.getForeignKeyColumnNames()) {
              sql.append(colName).append(" BIGINT, ");
         }
         
@@ -82,12 +224,4 @@ public class SqlBuilder {
         sql.append(")");
         return sql.toString();
     }
-
-    private static String getSqlType(Class<?> type) {
-        if (type == int.class || type == Integer.class) return "INT";
-        if (type == long.class || type == Long.class) return "BIGINT";
-        if (type == double.class || type == Double.class) return "DOUBLE";
-        if (type == String.class) return "VARCHAR(255)";
-        return "VARCHAR(255)"; 
-    }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.miniorm.scan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+// One properties file of scan name to last id, replaced atomically on every save so a crash
+// leaves either the old or the new checkpoint.
+public class FileScanCheckpoints implements ScanCheckpoints {
+    private final Path file;
+
+    public FileScanCheckpoints(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized Long load(String scan) throws IOException {
+        String value = read().getProperty(scan);
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    @Override
+    public synchronized void save(String scan, long lastId) throws IOException {
+        Properties checkpoints = read();
+        checkpoints.setProperty(scan, Long.toString(lastId));
+        write(checkpoints);
+    }
+
+    @Override
+    public synchronized void clear(String scan) throws IOException {
+        Properties checkpoints = read();
+        if (checkpoints.remove(scan) != null) {
+            write(checkpoints);
+        }
+    }
+
+    private Properties read() throws IOException {
+        Properties checkpoints = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                checkpoints.load(in);
+            }
+        }
+        return checkpoints;
+    }
+
+    private void write(Properties checkpoints) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            checkpoints.store(out, "MiniORM table scan checkpoints");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
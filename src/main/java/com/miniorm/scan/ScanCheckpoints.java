@@ -0,0 +1,39 @@
+package com.miniorm.scan;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Where a TableScan records the id up to which every row has been processed, so a failed scan resumes there.
+public interface ScanCheckpoints {
+    // Null when the scan has not started or last finished cleanly.
+    Long load(String scan) throws Exception;
+
+    void save(String scan, long lastId) throws Exception;
+
+    void clear(String scan) throws Exception;
+
+    static ScanCheckpoints inMemory() {
+        Map<String, Long> checkpoints = new ConcurrentHashMap<>();
+        return new ScanCheckpoints() {
+            @Override
+            public Long load(String scan) {
+                return checkpoints.get(scan);
+            }
+
+            @Override
+            public void save(String scan, long lastId) {
+                checkpoints.put(scan, lastId);
+            }
+
+            @Override
+            public void clear(String scan) {
+                checkpoints.remove(scan);
+            }
+        };
+    }
+
+    static ScanCheckpoints file(Path file) {
+        return new FileScanCheckpoints(file);
+    }
+}
@@ -0,0 +1,269 @@
+package com.miniorm.scan;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.query.Query;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+// Walks a table in id order without OFFSET: the calling thread pages through ids alone
+// (WHERE id > last ORDER BY id LIMIT n) and queues each page as an id range. Every worker
+// holds one pooled session, loads and handles a range, commits, and clears its identity map,
+// so memory stays bounded by chunk size * workers. Uses workers + 1 connections.
+//
+// Chunks finish out of order, so the checkpoint is the last id of the longest run of finished
+// chunks from the start. After a failure, a rerun with the same checkpoints and name resumes
+// there; rows past it may be handled twice, so handlers should be idempotent.
+public class TableScan<T> {
+    private static final Logger log = LoggerFactory.getLogger(TableScan.class);
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+    private static final long POLL_MILLIS = 100;
+
+    private final SessionFactory factory;
+    private final Class<T> entityClass;
+    private int chunkSize = 1000;
+    private int workers;
+    private Executor executor;
+    private ScanCheckpoints checkpoints;
+    private String name;
+
+    @FunctionalInterface
+    public interface ChunkHandler<T> {
+        // Runs in the worker's transaction, which commits when it returns.
+        void process(MiniSession session, List<T> chunk) throws Exception;
+    }
+
+    public record Result(long chunks, long rows, Long lastId) {}
+
+    private record Chunk(long sequence, Long after, long last) {}
+
+    public TableScan(SessionFactory factory, Class<T> entityClass) {
+        this.factory = factory;
+        this.entityClass = entityClass;
+        this.name = entityClass.getName();
+        this.workers = defaultWorkers(factory.getMaximumPoolSize());
+    }
+
+    // One per processor, but no more than the pool can serve next to the producer's connection.
+    private static int defaultWorkers(int poolSize) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return poolSize > 0 ? Math.max(1, Math.min(processors, poolSize - 1)) : processors;
+    }
+
+    public TableScan<T> chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public TableScan<T> workers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("A scan needs at least one worker");
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    // Runs the workers on the given executor instead of a fixed pool owned by the scan.
+    public TableScan<T> executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public TableScan<T> checkpoints(ScanCheckpoints checkpoints) {
+        return checkpoints(checkpoints, entityClass.getName());
+    }
+
+    public TableScan<T> checkpoints(ScanCheckpoints checkpoints, String name) {
+        this.checkpoints = checkpoints;
+        this.name = name;
+        return this;
+    }
+
+    public Result run(ChunkHandler<T> handler) throws Exception {
+        EntityMetadata meta = factory.getMetadataRegistry().get(entityClass);
+        Class<?> idType = meta.getIdType();
+        if (idType != Long.class && idType != long.class && idType != Integer.class && idType != int.class) {
+            throw new IllegalArgumentException("Table scans need an integral @Id, " + entityClass.getSimpleName() + " has " + idType.getSimpleName());
+        }
+        int poolSize = factory.getMaximumPoolSize();
+        if (poolSize > 0 && workers + 1 > poolSize) {
+            throw new IllegalArgumentException("A scan with " + workers + " workers needs " + (workers + 1)
+                    + " connections, but the pool holds " + poolSize);
+        }
+        String idProperty = meta.getIdProperty();
+        Long start = checkpoints != null ? checkpoints.load(name) : null;
+        if (start != null) {
+            log.info("Resuming scan {} after id {}", name, start);
+        }
+
+        Progress progress = new Progress(start);
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(workers * 2);
+        ExecutorService owned = executor == null ? Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "miniorm-scan-" + THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        List<CompletableFuture<Void>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            running.add(CompletableFuture.runAsync(() -> work(queue, handler, idProperty, progress),
+                    owned != null ? owned : executor));
+        }
+
+        try {
+            produce(queue, idProperty, start, progress);
+        } catch (Exception e) {
+            progress.fail(e);
+        } finally {
+            progress.finishProducing();
+            try {
+                CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException e) {
+                progress.fail(e.getCause() instanceof Exception cause ? cause : e);
+            }
+            if (owned != null) {
+                owned.shutdown();
+            }
+        }
+
+        Result result = progress.result();
+        if (progress.failure != null) {
+            log.warn("Scan {} failed after {} chunks, checkpoint at id {}", name, result.chunks(), result.lastId());
+            throw progress.failure;
+        }
+        if (checkpoints != null) {
+            checkpoints.clear(name);
+        }
+        log.info("Scan {} finished: {} rows in {} chunks", name, result.rows(), result.chunks());
+        return result;
+    }
+
+    private void produce(BlockingQueue<Chunk> queue, String idProperty, Long start, Progress progress) throws Exception {
+        try (MiniSession session = factory.openReadOnlySession()) {
+            Long after = start;
+            long sequence = 0;
+            while (!progress.isFailed()) {
+                Query<T> page = Query.from(entityClass).select(idProperty).orderBy(idProperty).limit(chunkSize);
+                if (after != null) {
+                    page.after(after);
+                }
+                List<Object[]> ids = session.listRows(page);
+                if (ids.isEmpty()) {
+                    return;
+                }
+                Chunk chunk = new Chunk(sequence++, after, ((Number) ids.get(ids.size() - 1)[0]).longValue());
+                progress.submitted(chunk);
+                while (!queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (progress.isFailed()) {
+                        return;
+                    }
+                }
+                after = chunk.last();
+                if (ids.size() < chunkSize) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void work(BlockingQueue<Chunk> queue, ChunkHandler<T> handler, String idProperty, Progress progress) {
+        try (MiniSession session = factory.openSession()) {
+            while (!progress.isFailed()) {
+                Chunk chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    if (progress.isProduced()) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    Query<T> range = Query.from(entityClass).le(idProperty, chunk.last()).orderBy(idProperty);
+                    if (chunk.after() != null) {
+                        range.gt(idProperty, chunk.after());
+                    }
+                    List<T> entities = session.list(range);
+                    handler.process(session, entities);
+                    session.commit();
+                    progress.completed(chunk, entities.size());
+                } catch (Exception e) {
+                    session.rollback();
+                    progress.fail(e);
+                } finally {
+                    session.clear();
+                }
+            }
+        } catch (Exception e) {
+            progress.fail(e);
+        }
+    }
+
+    private final class Progress {
+        private final Map<Long, Chunk> finished = new HashMap<>();
+        private long nextSequence;
+        private Long lastId;
+        private long chunks;
+        private long rows;
+        private volatile boolean produced;
+        private volatile Exception failure;
+
+        Progress(Long start) {
+            this.lastId = start;
+        }
+
+        void submitted(Chunk chunk) {
+            log.debug("Scan {} queued ids ({}, {}]", name, chunk.after(), chunk.last());
+        }
+
+        synchronized void completed(Chunk chunk, int rowCount) throws Exception {
+            chunks++;
+            rows += rowCount;
+            finished.put(chunk.sequence(), chunk);
+            Chunk next;
+            Long advanced = null;
+            while ((next = finished.remove(nextSequence)) != null) {
+                nextSequence++;
+                advanced = next.last();
+            }
+            if (advanced != null) {
+                lastId = advanced;
+                if (checkpoints != null) {
+                    checkpoints.save(name, advanced);
+                }
+            }
+        }
+
+        synchronized void fail(Exception e) {
+            if (failure == null) {
+                failure = e;
+            } else if (failure != e) {
+                failure.addSuppressed(e);
+            }
+        }
+
+        boolean isFailed() { return failure != null; }
+        boolean isProduced() { return produced; }
+        void finishProducing() { produced = true; }
+
+        synchronized Result result() {
+            return new Result(chunks, rows, lastId);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.miniorm.session;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.miniorm.query.Query;
+
+// Every call runs in its own short-lived MiniSession on the executor, so a pooled connection is held
+// only while that call runs. Writes commit on success and roll back on failure. Returned entities
+// are detached; they do not share an identity map with other calls.
+public class AsyncSession implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncSession.class);
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private final SessionFactory factory;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+
+    @FunctionalInterface
+    public interface SessionWork<R> {
+        R execute(MiniSession session) throws Exception;
+    }
+
+    AsyncSession(SessionFactory factory) {
+        this(factory, defaultExecutor(), true);
+    }
+
+    AsyncSession(SessionFactory factory, Executor executor) {
+        this(factory, executor, false);
+    }
+
+    private AsyncSession(SessionFactory factory, Executor executor, boolean ownsExecutor) {
+        this.factory = factory;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    // Virtual threads on Java 21+, looked up reflectively because the build targets Java 17.
+    public static ExecutorService defaultExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            log.debug("Virtual threads unavailable, using a cached thread pool");
+        } catch (Throwable e) {
+            log.warn("Failed to create a virtual thread executor, using a cached thread pool", e);
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "miniorm-async-" + THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <R> CompletableFuture<R> supplyAsync(SessionWork<R> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (MiniSession session = factory.openSession()) {
+                try {
+                    R result = work.execute(session);
+                    session.commit();
+                    return result;
+                } catch (Exception e) {
+                    session.rollback();
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    public <T> CompletableFuture<T> findAsync(Class<T> clazz, Object id) {
+        return supplyAsync(session -> session.find(clazz, id));
+    }
+
+    public <T> CompletableFuture<List<T>> findByIdsAsync(Class<T> clazz, Collection<?> ids) {
+        return supplyAsync(session -> session.findByIds(clazz, ids));
+    }
+
+    public <T> CompletableFuture<List<T>> listAsync(Query<T> query) {
+        return supplyAsync(session -> session.list(query));
+    }
+
+    public <T> CompletableFuture<T> saveAsync(T entity) {
+        return supplyAsync(session -> {
+            session.save(entity);
+            return entity;
+        });
+    }
+
+    public <T> CompletableFuture<Collection<T>> saveAllAsync(Collection<T> entities) {
+        return supplyAsync(session -> {
+            session.saveAll(entities);
+            return entities;
+        });
+    }
+
+    public <T> CompletableFuture<T> updateAsync(T entity) {
+        return supplyAsync(session -> {
+            session.update(entity);
+            return entity;
+        });
+    }
+
+    public CompletableFuture<Void> deleteAsync(Object entity) {
+        return supplyAsync(session -> {
+            session.delete(entity);
+            return null;
+        });
+    }
+
+    // Runs each unit of work on its own pooled connection in parallel; results keep the input order.
+    public <R> CompletableFuture<List<R>> fanOut(List<? extends SessionWork<? extends R>> works) {
+        List<CompletableFuture<? extends R>> futures = new ArrayList<>(works.size());
+        for (SessionWork<? extends R> work : works) {
+            futures.add(supplyAsync(work));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<R> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<? extends R> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+
+    public <T> CompletableFuture<List<T>> listAllAsync(List<Query<T>> queries) {
+        List<SessionWork<List<T>>> works = new ArrayList<>(queries.size());
+        for (Query<T> query : queries) {
+            works.add(session -> session.list(query));
+        }
+        return fanOut(works).thenApply(lists -> {
+            List<T> merged = new ArrayList<>();
+            lists.forEach(merged::addAll);
+            return merged;
+        });
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+}
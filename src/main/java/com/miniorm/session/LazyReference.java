@@ -0,0 +1,59 @@
+package com.miniorm.session;
+
+public class LazyReference<T> {
+    private final Class<T> type;
+    private final Object id;
+    private final MiniSession session;
+    private T target;
+    private boolean loaded;
+
+    LazyReference(Class<T> type, Object id, MiniSession session) {
+        this.type = type;
+        this.id = id;
+        this.session = session;
+    }
+
+    private LazyReference(T target) {
+        this.type = null;
+        this.id = null;
+        this.session = null;
+        this.target = target;
+        this.loaded = true;
+    }
+
+    public static <T> LazyReference<T> of(T target) {
+        return new LazyReference<>(target);
+    }
+
+    public T get() {
+        if (!loaded) {
+            if (!session.isOpen()) {
+                throw new IllegalStateException("Cannot load " + type.getSimpleName() + " ID: " + id + ", the owning session is closed");
+            }
+            try {
+                target = session.find(type, id);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to load " + type.getSimpleName() + " ID: " + id, e);
+            }
+            loaded = true;
+        }
+        return target;
+    }
+
+    // The FK value read from the owning row; null for references created with of().
+    public Object getId() {
+        return id;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public String toString() {
+        if (loaded) {
+            return "LazyReference{" + target + "}";
+        }
+        return "LazyReference{" + type.getSimpleName() + "#" + id + "}";
+    }
+}
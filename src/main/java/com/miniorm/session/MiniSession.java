@@ -1,41 +1,139 @@
 package com.miniorm.session;
 
-import java.lang.reflect.Field;
+import java.lang.reflect.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.miniorm.annotations.FetchMode;
+import com.miniorm.cache.CacheRegion;
 import com.miniorm.cache.FirstLevelCache;
+import com.miniorm.cache.QueryResultCache;
+import com.miniorm.cache.SecondLevelCache;
+import com.miniorm.cache.StatementCache;
 import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.FetchPlan;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.metadata.PropertyAccessor;
+import com.miniorm.metrics.InMemoryMetrics;
+import com.miniorm.metrics.MetricsRecorder;
+import com.miniorm.metrics.MetricsRecorder.Phase;
+import com.miniorm.query.CompiledQuery;
+import com.miniorm.query.ProjectionMapper;
+import com.miniorm.query.Query;
 import com.miniorm.query.SqlBuilder;
+import com.miniorm.types.TypeConverter;
 
 public class MiniSession implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(MiniSession.class);
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("com.miniorm.SlowQueryLog");
+    private static final String PIPELINE = "pipeline";
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    public static final int DEFAULT_MAX_PACKET_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_PLACEHOLDERS = 65_535;
+    private static final int PACKET_HEADROOM = 1024;
+    private static final long NO_SECOND_LEVEL_PUT = -1;
     
     private final Connection connection;
-    private final FirstLevelCache cache = new FirstLevelCache();
-    private static final Map<Class<?>, EntityMetadata> metadataCache = new ConcurrentHashMap<>();
+    private final StatementCache statements;
+    private FirstLevelCache cache = new FirstLevelCache();
+    private final MetadataRegistry registry;
+    private final SecondLevelCache secondLevelCache;
+    private final Map<Class<?>, Set<Object>> writtenIds = new HashMap<>();
+    private final Set<Class<?>> bulkWrittenClasses = new HashSet<>();
+    private final QueryResultCache queryCache;
+    private final Set<String> writtenTables = new HashSet<>();
+    private boolean rawWrite;
+    private final Map<Object, Object[]> snapshots = new IdentityHashMap<>();
+    private boolean unitOfWork;
+    private final List<AutoCloseable> openCursors = new ArrayList<>();
+    private int batchSize = 50;
+    private int idBatchSize = 100;
+    private int fetchSize = 500;
+    private boolean multiRowInsert;
+    private int maxRowsPerInsert = 1000;
+    private int maxPacketSize;
+    private boolean multiQueries;
+    private DataSource readDataSource;
+    private Connection readConnection;
+    private StatementCache readStatements;
+    private boolean readOnly;
+    private final boolean replicaConnection;
+    private boolean writeTransaction;
+    private MetricsRecorder metrics = MetricsRecorder.NOOP;
+    private long slowQueryNanos = Long.MAX_VALUE;
 
     public MiniSession(DataSource dataSource) throws SQLException {
+        this(dataSource, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public MiniSession(DataSource dataSource, int statementCacheSize) throws SQLException {
+        this(dataSource, statementCacheSize, MetadataRegistry.getDefault());
+    }
+
+    public MiniSession(DataSource dataSource, int statementCacheSize, MetadataRegistry registry) throws SQLException {
+        this(dataSource, statementCacheSize, registry, null);
+    }
+
+    public MiniSession(DataSource dataSource, int statementCacheSize, MetadataRegistry registry,
+                       SecondLevelCache secondLevelCache) throws SQLException {
+        this(dataSource, statementCacheSize, registry, secondLevelCache, null);
+    }
+
+    public MiniSession(DataSource dataSource, int statementCacheSize, MetadataRegistry registry,
+                       SecondLevelCache secondLevelCache, QueryResultCache queryCache) throws SQLException {
+        this.registry = registry;
+        this.secondLevelCache = secondLevelCache;
+        this.queryCache = queryCache;
         this.connection = dataSource.getConnection();
         this.connection.setAutoCommit(false);
+        this.statements = new StatementCache(connection, statementCacheSize);
+        this.replicaConnection = dataSource instanceof ReplicaRouter;
     }
 
     public void beginTransaction() {
         log.info("Transaction started");
     }
 
-    public void commit() throws SQLException {
+    public void commit() throws Exception {
+        if (unitOfWork) {
+            flush();
+        }
         connection.commit();
+        writeTransaction = false;
+        evictWrittenFromSecondLevel();
+        invalidateWrittenTables();
+        invalidateAfterRawWrite();
         log.info("Transaction committed");
     }
 
@@ -45,161 +143,1759 @@ public class MiniSession implements AutoCloseable {
             log.warn("Transaction rolled back");
         } catch (SQLException e) {
             log.error("Failed to rollback", e);
+        } finally {
+            writeTransaction = false;
+            evictWrittenFromSecondLevel();
+            invalidateWrittenTables();
+            invalidateAfterRawWrite();
+        }
+    }
+
+    // Shared entries are evicted when a row is written and again once the transaction ends,
+    // so a concurrent session cannot re-cache the pre-commit row in between.
+    private void markWritten(Class<?> clazz, Object id) {
+        if (secondLevelCache != null && secondLevelCache.regionFor(clazz) != null) {
+            secondLevelCache.evict(clazz, id);
+            writtenIds.computeIfAbsent(clazz, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void evictWrittenFromSecondLevel() {
+        if (secondLevelCache == null || (writtenIds.isEmpty() && bulkWrittenClasses.isEmpty())) {
+            return;
+        }
+        writtenIds.forEach((clazz, ids) -> ids.forEach(id -> secondLevelCache.evict(clazz, id)));
+        writtenIds.clear();
+        bulkWrittenClasses.forEach(secondLevelCache::evictAll);
+        bulkWrittenClasses.clear();
+    }
+
+    // Same two-step invalidation for cached query results, per table. Every write path passes through
+    // here, so it also pins the rest of the transaction's reads to the primary.
+    private void markTableWritten(EntityMetadata meta) {
+        requireWritable();
+        writeTransaction = true;
+        if (queryCache != null) {
+            queryCache.invalidate(meta.getTableName());
+            writtenTables.add(meta.getTableName());
+        }
+    }
+
+    // Raw SQL names no entity, so it is treated as a write to every table and every cached row.
+    private void markRawWrite() {
+        requireWritable();
+        writeTransaction = true;
+        rawWrite = true;
+        if (queryCache != null) {
+            queryCache.invalidateAll();
+        }
+        if (secondLevelCache != null) {
+            secondLevelCache.clear();
+        }
+    }
+
+    private void requireWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Session is read-only");
+        }
+    }
+
+    // Reads go to the replica connection until the transaction writes, so it sees its own changes.
+    private StatementCache readStatements() throws SQLException {
+        if (readDataSource == null || writeTransaction) {
+            return statements;
+        }
+        if (readStatements == null) {
+            readConnection = readDataSource.getConnection();
+            readConnection.setReadOnly(true);
+            readStatements = new StatementCache(readConnection, statements.getMaxSize());
+        }
+        return readStatements;
+    }
+
+    // Whether the next read may come from a replica. Replica rows can lag the primary, so they are kept
+    // out of the shared caches, which would otherwise serve them to every session.
+    private boolean readsFromReplica() {
+        return replicaConnection || (readDataSource != null && !writeTransaction);
+    }
+
+    private void invalidateWrittenTables() {
+        if (queryCache == null || writtenTables.isEmpty()) {
+            return;
+        }
+        writtenTables.forEach(queryCache::invalidate);
+        writtenTables.clear();
+    }
+
+    private void invalidateAfterRawWrite() {
+        if (!rawWrite) {
+            return;
+        }
+        rawWrite = false;
+        if (queryCache != null) {
+            queryCache.invalidateAll();
+        }
+        if (secondLevelCache != null) {
+            secondLevelCache.clear();
         }
     }
 
     public <T> void save(T entity) throws Exception {
         EntityMetadata meta = getMetadata(entity.getClass());
-        String sql = SqlBuilder.buildInsert(meta);
+        String sql = meta.getInsertSql();
+        markTableWritten(meta);
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            int i = 1;
-            for (Field field : meta.getColumns()) {
-                stmt.setObject(i++, field.get(entity));
-            }
-            for (Field field : meta.getForeignKeys()) {
-                Object relatedEntity = field.get(entity);
-                if (relatedEntity != null) {
-                    EntityMetadata relatedMeta = getMetadata(relatedEntity.getClass());
-                    Object relatedId = relatedMeta.getIdField().get(relatedEntity);
-                    stmt.setObject(i++, relatedId);
-                } else {
-                    stmt.setObject(i++, null);
-                }
-            }
+        try (StatementCache.Lease lease = lease(statements, sql, true, meta.getTableName(), "insert")) {
+            PreparedStatement stmt = lease.statement();
+            initVersion(meta, entity);
+            bindColumns(stmt, meta, entity);
             
             log.debug("Executing Save: {}", sql);
-            stmt.executeUpdate();
+            long start = System.nanoTime();
+            int rows = stmt.executeUpdate();
+            recordUpdate(meta.getTableName(), "insert", sql, start, rows, () -> columnValues(meta, entity));
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
-                    long id = generatedKeys.getLong(1);
-                    meta.getIdField().set(entity, id);
-                    cache.put(entity.getClass(), id, entity);
+                    assignGeneratedId(meta, entity, generatedKeys.getLong(1));
                 }
             }
         }
     }
 
-    public <T> void update(T entity) throws Exception {
-        EntityMetadata meta = getMetadata(entity.getClass());
-        String sql = SqlBuilder.buildUpdate(meta);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            int i = 1;
-
-            for (Field field : meta.getColumns()) {
-                stmt.setObject(i++, field.get(entity));
-            }
-            for (Field field : meta.getForeignKeys()) {
-                Object relatedEntity = field.get(entity);
-                if (relatedEntity != null) {
-                    EntityMetadata relatedMeta = getMetadata(relatedEntity.getClass());
-                    Object relatedId = relatedMeta.getIdField().get(relatedEntity);
-                    stmt.setObject(i++, relatedId);
-                } else {
-                    stmt.setObject(i++, null);
+    public <T> void saveAll(Collection<T> entities) throws Exception {
+        for (Map.Entry<EntityMetadata, List<Object>> group : groupByMetadata(entities).entrySet()) {
+            EntityMetadata meta = group.getKey();
+            String sql = meta.getInsertSql();
+            markTableWritten(meta);
+            if (multiRowInsert && meta.getInsertColumnCount() > 0) {
+                insertMultiRow(meta, group.getValue());
+                continue;
+            }
+
+            try (StatementCache.Lease lease = lease(statements, sql, true, meta.getTableName(), "insert")) {
+                PreparedStatement stmt = lease.statement();
+                List<Object> pending = new ArrayList<>(Math.min(batchSize, group.getValue().size()));
+                for (Object entity : group.getValue()) {
+                    initVersion(meta, entity);
+                    bindColumns(stmt, meta, entity);
+                    stmt.addBatch();
+                    pending.add(entity);
+                    if (pending.size() == batchSize) {
+                        executeInsertBatch(stmt, meta, pending, sql);
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    executeInsertBatch(stmt, meta, pending, sql);
+                }
+            }
+        }
+    }
+
+    // Packs rows into INSERT ... VALUES (...), (...) statements kept under max_allowed_packet
+    // and the placeholder limit; generated keys come back in row order.
+    private void insertMultiRow(EntityMetadata meta, List<Object> entities) throws Exception {
+        int maxRows = Math.max(1, Math.min(maxRowsPerInsert, MAX_PLACEHOLDERS / meta.getInsertColumnCount()));
+        long budget = getMaxPacketSize() - PACKET_HEADROOM;
+        long baseBytes = meta.getInsertSql().length();
+        List<Object> chunk = new ArrayList<>(Math.min(maxRows, entities.size()));
+        long bytes = baseBytes;
+        for (Object entity : entities) {
+            long rowBytes = estimateRowBytes(meta, entity);
+            if (!chunk.isEmpty() && (chunk.size() == maxRows || bytes + rowBytes > budget)) {
+                executeMultiRowInsert(meta, chunk);
+                bytes = baseBytes;
+            }
+            chunk.add(entity);
+            bytes += rowBytes;
+        }
+        if (!chunk.isEmpty()) {
+            executeMultiRowInsert(meta, chunk);
+        }
+    }
+
+    private void executeMultiRowInsert(EntityMetadata meta, List<Object> rows) throws Exception {
+        String sql = meta.getInsertSql(rows.size());
+        try (StatementCache.Lease lease = lease(statements, sql, true, meta.getTableName(), "insert")) {
+            PreparedStatement stmt = lease.statement();
+            int index = 1;
+            for (Object entity : rows) {
+                initVersion(meta, entity);
+                index = bindColumns(stmt, meta, entity, index);
+            }
+            log.debug("Executing Multi-Row Save of {} into {}", rows.size(), meta.getTableName());
+            long start = System.nanoTime();
+            int inserted = stmt.executeUpdate();
+            recordUpdate(meta.getTableName(), "insert", sql, start, inserted, () -> rows.size() + " rows");
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                for (Object entity : rows) {
+                    if (!generatedKeys.next()) {
+                        break;
+                    }
+                    assignGeneratedId(meta, entity, generatedKeys.getLong(1));
                 }
             }
-            Object id = meta.getIdField().get(entity);
-            if (id == null) {
-                throw new IllegalArgumentException("Cannot update entity without ID");
+        }
+        rows.clear();
+    }
+
+    private long estimateRowBytes(EntityMetadata meta, Object entity) {
+        long bytes = 4 + 3L * meta.getInsertColumnCount();
+        for (PropertyAccessor accessor : meta.getColumnAccessors()) {
+            bytes += estimateBytes(accessor.get(entity));
+        }
+        return bytes + 24L * meta.getForeignKeyAccessors().size();
+    }
+
+    // Upper bound on the literal size once the driver inlines the value (utf8mb4, hex for binary).
+    private static long estimateBytes(Object value) {
+        if (value == null) {
+            return 4;
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return 24;
+        } else if (value instanceof byte[] bytes) {
+            return 3 + 2L * bytes.length;
+        } else if (value instanceof CharSequence text) {
+            return 2 + 4L * text.length();
+        }
+        return 2 + 4L * value.toString().length();
+    }
+
+    public int getMaxPacketSize() {
+        if (maxPacketSize <= 0) {
+            maxPacketSize = detectMaxPacketSize();
+        }
+        return maxPacketSize;
+    }
+
+    private int detectMaxPacketSize() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@max_allowed_packet")) {
+            if (rs.next()) {
+                return (int) Math.min(Integer.MAX_VALUE, rs.getLong(1));
+            }
+        } catch (SQLException e) {
+            log.debug("Could not read max_allowed_packet, assuming {} bytes", DEFAULT_MAX_PACKET_SIZE);
+        }
+        return DEFAULT_MAX_PACKET_SIZE;
+    }
+
+    private void executeInsertBatch(PreparedStatement stmt, EntityMetadata meta, List<Object> pending, String sql) throws Exception {
+        log.debug("Executing Save Batch of {}: {}", pending.size(), sql);
+        long start = System.nanoTime();
+        int[] counts = stmt.executeBatch();
+        int size = pending.size();
+        recordUpdate(meta.getTableName(), "insert", sql, start, sum(counts), () -> "batch of " + size);
+
+        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            for (Object entity : pending) {
+                if (!generatedKeys.next()) {
+                    break;
+                }
+                assignGeneratedId(meta, entity, generatedKeys.getLong(1));
             }
-            stmt.setObject(i, id);
+        }
+        pending.clear();
+    }
+
+    public <T> void update(T entity) throws Exception {
+        EntityMetadata meta = getMetadata(entity.getClass());
+        String sql = meta.getUpdateSql();
+        markTableWritten(meta);
+        
+        try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "update")) {
+            PreparedStatement stmt = lease.statement();
+            Object id = bindUpdate(stmt, meta, entity);
             
             log.debug("Executing Update: {}", sql);
+            long start = System.nanoTime();
             int rows = stmt.executeUpdate();
-            if (rows == 0) {
+            recordUpdate(meta.getTableName(), "update", sql, start, rows, () -> columnValues(meta, entity));
+            if (rows == 0 && meta.isVersioned()) {
+                throw conflict(meta, entity, id);
+            } else if (rows == 0) {
                 log.warn("Update executed but 0 rows affected. Check if ID exists.");
+            } else if (meta.isVersioned()) {
+                bumpVersion(meta, entity);
             }
             
             cache.put(entity.getClass(), id, entity);
+            markWritten(entity.getClass(), id);
+            takeSnapshot(meta, entity);
+        }
+    }
+
+    public <T> void updateAll(Collection<T> entities) throws Exception {
+        for (Map.Entry<EntityMetadata, List<Object>> group : groupByMetadata(entities).entrySet()) {
+            EntityMetadata meta = group.getKey();
+            String sql = meta.getUpdateSql();
+            markTableWritten(meta);
+
+            try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "update")) {
+                PreparedStatement stmt = lease.statement();
+                List<Object> batch = new ArrayList<>(Math.min(batchSize, group.getValue().size()));
+                for (Object entity : group.getValue()) {
+                    Object id = bindUpdate(stmt, meta, entity);
+                    stmt.addBatch();
+                    cache.put(entity.getClass(), id, entity);
+                    markWritten(entity.getClass(), id);
+                    takeSnapshot(meta, entity);
+                    batch.add(entity);
+                    if (batch.size() == batchSize) {
+                        executeBatch(stmt, batch, meta, "Update", sql);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    executeBatch(stmt, batch, meta, "Update", sql);
+                }
+            }
         }
     }
 
     public <T> void delete(T entity) throws Exception {
         EntityMetadata meta = getMetadata(entity.getClass());
-        String sql = SqlBuilder.buildDelete(meta);
-        Object id = meta.getIdField().get(entity);
+        String sql = meta.getDeleteSql();
+        Object id = requireId(meta, entity, "delete");
+        markTableWritten(meta);
+
+        try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "delete")) {
+            PreparedStatement stmt = lease.statement();
+            bindDelete(stmt, meta, entity, id);
+            log.debug("Executing Delete: {}", sql);
+            long start = System.nanoTime();
+            int rows = stmt.executeUpdate();
+            recordUpdate(meta.getTableName(), "delete", sql, start, rows, () -> List.of(id));
+            if (rows == 0 && meta.isVersioned()) {
+                throw conflict(meta, entity, id);
+            }
+            
+            cache.evict(entity.getClass(), id);
+            markWritten(entity.getClass(), id);
+            snapshots.remove(entity);
+        }
+    }
 
+    public <T> void deleteAll(Collection<T> entities) throws Exception {
+        for (Map.Entry<EntityMetadata, List<Object>> group : groupByMetadata(entities).entrySet()) {
+            EntityMetadata meta = group.getKey();
+            String sql = meta.getDeleteSql();
+            markTableWritten(meta);
+
+            try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "delete")) {
+                PreparedStatement stmt = lease.statement();
+                List<Object> batch = new ArrayList<>(Math.min(batchSize, group.getValue().size()));
+                for (Object entity : group.getValue()) {
+                    Object id = requireId(meta, entity, "delete");
+                    bindDelete(stmt, meta, entity, id);
+                    stmt.addBatch();
+                    cache.evict(entity.getClass(), id);
+                    markWritten(entity.getClass(), id);
+                    snapshots.remove(entity);
+                    batch.add(entity);
+                    if (batch.size() == batchSize) {
+                        executeBatch(stmt, batch, meta, "Delete", sql);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    executeBatch(stmt, batch, meta, "Delete", sql);
+                }
+            }
+        }
+    }
+
+    // Inserts entities without an id and upserts the rest, so sync jobs need no find-then-save round trip.
+    public <T> void saveOrUpdate(T entity) throws Exception {
+        EntityMetadata meta = getMetadata(entity.getClass());
+        Object id = meta.getId(entity);
         if (id == null) {
-            throw new IllegalArgumentException("Cannot delete entity without ID");
+            save(entity);
+            return;
         }
+        rejectVersionedUpsert(meta);
+        String sql = meta.getUpsertSql();
+        markTableWritten(meta);
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "upsert")) {
+            PreparedStatement stmt = lease.statement();
             stmt.setObject(1, id);
-            log.debug("Executing Delete: {}", sql);
-            stmt.executeUpdate();
-            
-            cache.remove(entity.getClass(), id);
+            bindColumns(stmt, meta, entity, 2);
+            log.debug("Executing Upsert: {}", sql);
+            long start = System.nanoTime();
+            int rows = stmt.executeUpdate();
+            recordUpdate(meta.getTableName(), "upsert", sql, start, rows, () -> columnValues(meta, entity));
         }
+        cache.put(entity.getClass(), id, entity);
+        markWritten(entity.getClass(), id);
+        takeSnapshot(meta, entity);
     }
 
-    public <T> T find(Class<T> clazz, Object id) throws Exception {
-        if (cache.contains(clazz, id)) {
-            log.debug("Cache Hit for {} ID: {}", clazz.getSimpleName(), id);
-            return cache.get(clazz, id);
+    public <T> void saveOrUpdateAll(Collection<T> entities) throws Exception {
+        List<Object> unsaved = new ArrayList<>();
+        for (Map.Entry<EntityMetadata, List<Object>> group : groupByMetadata(entities).entrySet()) {
+            EntityMetadata meta = group.getKey();
+            String sql = meta.getUpsertSql();
+            markTableWritten(meta);
+
+            try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "upsert")) {
+                PreparedStatement stmt = lease.statement();
+                int batched = 0;
+                for (Object entity : group.getValue()) {
+                    Object id = meta.getId(entity);
+                    if (id == null) {
+                        unsaved.add(entity);
+                        continue;
+                    }
+                    rejectVersionedUpsert(meta);
+                    stmt.setObject(1, id);
+                    bindColumns(stmt, meta, entity, 2);
+                    stmt.addBatch();
+                    cache.put(entity.getClass(), id, entity);
+                    markWritten(entity.getClass(), id);
+                    takeSnapshot(meta, entity);
+                    if (++batched == batchSize) {
+                        executeUpsertBatch(stmt, batched, meta, sql);
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    executeUpsertBatch(stmt, batched, meta, sql);
+                }
+            }
         }
+        if (!unsaved.isEmpty()) {
+            saveAll(unsaved);
+        }
+    }
 
-        EntityMetadata meta = getMetadata(clazz);
-        String sql = SqlBuilder.buildSelectById(meta);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setObject(1, id);
-            log.debug("Executing Find: {}", sql);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToEntity(clazz, rs, meta);
+    // Set-based writes run as one statement and do not load entities. The affected ids are unknown,
+    // so every cached instance of the class is evicted (and detached from the unit of work).
+    public <T> int updateWhere(Query<T> query, Map<String, ?> assignments) throws Exception {
+        CompiledQuery compiled = registry.getQueryCompiler().compileUpdate(query, assignments.keySet());
+        EntityMetadata meta = getMetadata(query.getEntityClass());
+        String sql = compiled.getSql();
+        markTableWritten(meta);
+
+        int rows;
+        try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "update-where")) {
+            PreparedStatement stmt = lease.statement();
+            List<Object> parameters = new ArrayList<>(assignments.size());
+            for (Map.Entry<String, ?> assignment : assignments.entrySet()) {
+                Object value = assignment.getValue();
+                parameters.add(meta.isReferenceProperty(assignment.getKey())
+                        ? registry.getReferenceId(value) : meta.getPropertyConverter(assignment.getKey()).toJdbc(value));
+            }
+            parameters.addAll(compiled.bindValues(query));
+            int index = 1;
+            for (Object value : parameters) {
+                stmt.setObject(index++, value);
+            }
+            log.debug("Executing Bulk Update: {}", sql);
+            long start = System.nanoTime();
+            rows = stmt.executeUpdate();
+            recordUpdate(meta.getTableName(), "update-where", sql, start, rows, () -> parameters);
+        }
+        evictAfterBulkWrite(meta);
+        return rows;
+    }
+
+    public <T> int deleteWhere(Query<T> query) throws Exception {
+        CompiledQuery compiled = registry.getQueryCompiler().compileDelete(query);
+        EntityMetadata meta = getMetadata(query.getEntityClass());
+        String sql = compiled.getSql();
+        markTableWritten(meta);
+
+        int rows;
+        try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "delete-where")) {
+            PreparedStatement stmt = lease.statement();
+            compiled.bind(stmt, query);
+            log.debug("Executing Bulk Delete: {}", sql);
+            long start = System.nanoTime();
+            rows = stmt.executeUpdate();
+            recordUpdate(meta.getTableName(), "delete-where", sql, start, rows, () -> compiled.bindValues(query));
+        }
+        evictAfterBulkWrite(meta);
+        return rows;
+    }
+
+    // Tables are marked written before the statement runs (rejecting read-only sessions) and again
+    // here, so query results cached while it ran are invalidated too.
+    private void evictAfterBulkWrite(EntityMetadata meta) {
+        Class<?> clazz = meta.getEntityClass();
+        clear(clazz);
+        markTableWritten(meta);
+        if (secondLevelCache != null && secondLevelCache.regionFor(clazz) != null) {
+            secondLevelCache.evictAll(clazz);
+            bulkWrittenClasses.add(clazz);
+        }
+    }
+
+    // For @Version entities a zero count is a lost race: the rest of the batch is applied, then it throws.
+    private void executeBatch(PreparedStatement stmt, List<Object> batch, EntityMetadata meta, String operation, String sql) throws SQLException {
+        int size = batch.size();
+        log.debug("Executing {} Batch of {}: {}", operation, size, sql);
+        long start = System.nanoTime();
+        int[] counts = stmt.executeBatch();
+        recordUpdate(meta.getTableName(), operation.toLowerCase(Locale.ROOT), sql, start, sum(counts), () -> "batch of " + size);
+        boolean bump = meta.isVersioned() && !"Delete".equals(operation);
+        Object conflicted = null;
+        for (int i = 0; i < counts.length && i < size; i++) {
+            if (counts[i] != 0) {
+                if (bump) {
+                    bumpVersion(meta, batch.get(i));
                 }
+            } else if (meta.isVersioned()) {
+                conflicted = conflicted != null ? conflicted : batch.get(i);
+            } else {
+                log.warn("{} batch entry affected 0 rows. Check if ID exists.", operation);
+            }
+        }
+        batch.clear();
+        if (conflicted != null) {
+            throw conflict(meta, conflicted, meta.getId(conflicted));
+        }
+    }
+
+    // MySQL reports 0 for rows an upsert left unchanged, so no zero-row warning here.
+    private void executeUpsertBatch(PreparedStatement stmt, int size, EntityMetadata meta, String sql) throws SQLException {
+        log.debug("Executing Upsert Batch of {}: {}", size, sql);
+        long start = System.nanoTime();
+        int[] counts = stmt.executeBatch();
+        recordUpdate(meta.getTableName(), "upsert", sql, start, sum(counts), () -> "batch of " + size);
+    }
+
+    private static int sum(int[] counts) {
+        int sum = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                sum += count;
             }
         }
-        return null;
+        return sum;
     }
 
-    private <T> T mapResultSetToEntity(Class<T> clazz, ResultSet rs, EntityMetadata meta) throws Exception {
-        T entity = clazz.getDeclaredConstructor().newInstance();
-        
-        String idCol = meta.getColumnName(meta.getIdField());
-        meta.getIdField().set(entity, rs.getObject(idCol));
-        
-        for (Field field : meta.getColumns()) {
-            String colName = meta.getColumnName(field);
-            Object value = rs.getObject(colName);
-            field.set(entity, value);
+    // Prepare time is recorded on statement cache misses only.
+    private StatementCache.Lease lease(StatementCache source, String sql, boolean returnGeneratedKeys, String table, String operation) throws SQLException {
+        long misses = source.getMisses();
+        long start = System.nanoTime();
+        StatementCache.Lease lease = source.lease(sql, returnGeneratedKeys);
+        if (source.getMisses() != misses) {
+            metrics.recordTime(table, operation, Phase.PREPARE, System.nanoTime() - start);
         }
-        
-        for (Field field : meta.getForeignKeys()) {
-            String colName = meta.getColumnName(field);
-            Object fkValue = rs.getObject(colName);
-            if (fkValue != null) {
-                Object relatedEntity = find(field.getType(), fkValue);
-                field.set(entity, relatedEntity);
+        return lease;
+    }
+
+    // Returns the end of execution, where hydration starts. Parameters are only gathered for slow statements.
+    private long recordExecute(String table, String operation, String sql, long start, Supplier<?> parameters) {
+        long end = System.nanoTime();
+        long elapsed = end - start;
+        metrics.recordTime(table, operation, Phase.EXECUTE, elapsed);
+        if (elapsed >= slowQueryNanos) {
+            metrics.recordSlowQuery(table, operation, elapsed);
+            slowQueryLog.warn("Slow {} on {} took {} ms: {} parameters {}",
+                    operation, table, TimeUnit.NANOSECONDS.toMillis(elapsed), sql, parameters.get());
+        }
+        return end;
+    }
+
+    private void recordUpdate(String table, String operation, String sql, long start, int rows, Supplier<?> parameters) {
+        recordExecute(table, operation, sql, start, parameters);
+        metrics.recordRows(table, operation, rows);
+    }
+
+    private void recordHydrate(String table, String operation, long start, int rows) {
+        metrics.recordTime(table, operation, Phase.HYDRATE, System.nanoTime() - start);
+        metrics.recordRows(table, operation, rows);
+    }
+
+    // Bound values of an insert or update, for the slow-query log.
+    private List<Object> columnValues(EntityMetadata meta, Object entity) {
+        List<Object> values = new ArrayList<>(meta.getInsertColumnCount() + 1);
+        List<PropertyAccessor> accessors = meta.getColumnAccessors();
+        for (int i = 0; i < accessors.size(); i++) {
+            values.add(meta.getColumnConverter(i).toJdbc(accessors.get(i).get(entity)));
+        }
+        for (PropertyAccessor accessor : meta.getForeignKeyAccessors()) {
+            values.add(registry.getReferenceId(accessor.get(entity)));
+        }
+        values.add(meta.getId(entity));
+        return values;
+    }
+
+    private int bindColumns(PreparedStatement stmt, EntityMetadata meta, Object entity) throws Exception {
+        return bindColumns(stmt, meta, entity, 1);
+    }
+
+    private int bindColumns(PreparedStatement stmt, EntityMetadata meta, Object entity, int first) throws Exception {
+        int i = first;
+        List<PropertyAccessor> accessors = meta.getColumnAccessors();
+        for (int c = 0; c < accessors.size(); c++) {
+            meta.getColumnConverter(c).bind(stmt, i++, accessors.get(c), entity);
+        }
+        for (PropertyAccessor accessor : meta.getForeignKeyAccessors()) {
+            stmt.setObject(i++, registry.getReferenceId(accessor.get(entity)));
+        }
+        return i;
+    }
+
+    private Object bindUpdate(PreparedStatement stmt, EntityMetadata meta, Object entity) throws Exception {
+        int i = bindColumns(stmt, meta, entity);
+        Object id = requireId(meta, entity, "update");
+        stmt.setObject(i, id);
+        if (meta.isVersioned()) {
+            Object version = requireVersion(meta, entity, "update");
+            stmt.setObject(1 + meta.getVersionColumn(), meta.nextVersion(entity));
+            stmt.setObject(i + 1, version);
+        }
+        return id;
+    }
+
+    private void bindDelete(PreparedStatement stmt, EntityMetadata meta, Object entity, Object id) throws Exception {
+        stmt.setObject(1, id);
+        if (meta.isVersioned()) {
+            stmt.setObject(2, requireVersion(meta, entity, "delete"));
+        }
+    }
+
+    private Object requireVersion(EntityMetadata meta, Object entity, String operation) {
+        Object version = meta.getVersion(entity);
+        if (version == null) {
+            throw new IllegalArgumentException("Cannot " + operation + " " + meta.getEntityClass().getSimpleName() + " without a @Version value");
+        }
+        return version;
+    }
+
+    // New rows start at version 0 unless the caller set one.
+    private static void initVersion(EntityMetadata meta, Object entity) {
+        if (meta.isVersioned() && meta.getVersion(entity) == null) {
+            meta.setVersion(entity, meta.nextVersion(entity));
+        }
+    }
+
+    private void bumpVersion(EntityMetadata meta, Object entity) {
+        Object next = meta.nextVersion(entity);
+        meta.setVersion(entity, next);
+        Object[] snapshot = snapshots.get(entity);
+        if (snapshot != null) {
+            // Replaced rather than patched, so no array another holder may see ever carries an uncommitted version.
+            Object[] updated = snapshot.clone();
+            updated[meta.getColumnIndex(meta.getVersionColumn()) - 1] = next;
+            snapshots.put(entity, updated);
+        }
+    }
+
+    // The session's copy is stale: drop it so a reload sees the winning write.
+    private OptimisticLockException conflict(EntityMetadata meta, Object entity, Object id) {
+        cache.evict(entity.getClass(), id);
+        snapshots.remove(entity);
+        markWritten(entity.getClass(), id);
+        return new OptimisticLockException(entity.getClass(), id, meta.getVersion(entity));
+    }
+
+    // An upsert cannot express "only if the version still matches" without losing the insert case.
+    private static void rejectVersionedUpsert(EntityMetadata meta) {
+        if (meta.isVersioned()) {
+            throw new IllegalArgumentException("saveOrUpdate cannot check the @Version of " + meta.getEntityClass().getSimpleName() + "; use update");
+        }
+    }
+
+    private Object requireId(EntityMetadata meta, Object entity, String operation) throws Exception {
+        Object id = meta.getId(entity);
+        if (id == null) {
+            throw new IllegalArgumentException("Cannot " + operation + " entity without ID");
+        }
+        return id;
+    }
+
+    private void assignGeneratedId(EntityMetadata meta, Object entity, long id) throws Exception {
+        meta.getIdAccessor().setLong(entity, id);
+        cache.put(entity.getClass(), id, entity);
+        takeSnapshot(meta, entity);
+    }
+
+    // Unit of work: entities loaded or written by this session are snapshotted in select-column
+    // order, and flush() writes only the columns that differ from the snapshot.
+    private void takeSnapshot(EntityMetadata meta, Object entity) {
+        if (unitOfWork) {
+            snapshots.put(entity, snapshotOf(meta, entity));
+        }
+    }
+
+    private Object[] snapshotOf(EntityMetadata meta, Object entity) {
+        Object[] values = dehydrate(meta, entity);
+        List<PropertyAccessor> foreignKeyAccessors = meta.getForeignKeyAccessors();
+        for (int i = 0; i < foreignKeyAccessors.size(); i++) {
+            values[meta.getForeignKeyColumnIndex(i) - 1] = registry.getReferenceId(foreignKeyAccessors.get(i).get(entity));
+        }
+        return values;
+    }
+
+    public void flush() throws Exception {
+        Map<EntityMetadata, Map<BitSet, List<Object>>> dirty = new HashMap<>();
+        Map<Object, Object[]> flushed = new IdentityHashMap<>();
+        for (Map.Entry<Object, Object[]> entry : snapshots.entrySet()) {
+            Object entity = entry.getKey();
+            EntityMetadata meta = getMetadata(entity.getClass());
+            Object[] current = snapshotOf(meta, entity);
+            BitSet changed = changedColumns(entry.getValue(), current);
+            if (!changed.isEmpty() && meta.isVersioned()) {
+                int versionSlot = meta.getColumnIndex(meta.getVersionColumn()) - 1;
+                changed.set(versionSlot);
+                current[versionSlot] = meta.nextVersion(entity);
+            }
+            if (!changed.isEmpty()) {
+                dirty.computeIfAbsent(meta, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(changed, k -> new ArrayList<>())
+                        .add(entity);
+                flushed.put(entity, current);
             }
         }
-        
-        cache.put(clazz, meta.getIdField().get(entity), entity);
-        return entity;
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        for (EntityMetadata meta : orderByDependency(dirty.keySet())) {
+            for (Map.Entry<BitSet, List<Object>> group : dirty.get(meta).entrySet()) {
+                flushUpdates(meta, group.getKey(), group.getValue());
+            }
+        }
+        snapshots.putAll(flushed);
     }
 
-    private EntityMetadata getMetadata(Class<?> clazz) {
-        return metadataCache.computeIfAbsent(clazz, EntityMetadata::new);
+    private static BitSet changedColumns(Object[] snapshot, Object[] current) {
+        BitSet changed = new BitSet(current.length);
+        for (int i = 1; i < current.length; i++) {
+            if (!Objects.deepEquals(snapshot[i], current[i])) {
+                changed.set(i);
+            }
+        }
+        return changed;
     }
-    
-    public void createTable(Class<?> clazz) throws SQLException {
-         EntityMetadata meta = getMetadata(clazz);
-         String sql = SqlBuilder.buildCreateTable(meta);
-         try (Statement stmt = connection.createStatement()) {
-             stmt.execute(sql);
-             log.info("Created table: {}", meta.getTableName());
-         }
+
+    // Parents before children, so tables are flushed in foreign key order.
+    private List<EntityMetadata> orderByDependency(Set<EntityMetadata> metas) {
+        List<EntityMetadata> ordered = new ArrayList<>(metas.size());
+        Set<EntityMetadata> visited = new HashSet<>();
+        for (EntityMetadata meta : metas) {
+            visitDependency(meta, metas, visited, ordered);
+        }
+        return ordered;
     }
 
-    @Override
-    public void close() throws Exception {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
-            cache.clear();
+    private void visitDependency(EntityMetadata meta, Set<EntityMetadata> metas, Set<EntityMetadata> visited, List<EntityMetadata> ordered) {
+        if (!visited.add(meta)) {
+            return;
+        }
+        for (int i = 0; i < meta.getForeignKeyCount(); i++) {
+            EntityMetadata parent = getMetadata(meta.getForeignKeyTarget(i));
+            if (metas.contains(parent)) {
+                visitDependency(parent, metas, visited, ordered);
+            }
+        }
+        ordered.add(meta);
+    }
+
+    private void flushUpdates(EntityMetadata meta, BitSet changed, List<Object> entities) throws Exception {
+        String sql = meta.getUpdateSql(changed);
+        markTableWritten(meta);
+        int columnCount = meta.getColumnCount();
+
+        try (StatementCache.Lease lease = lease(statements, sql, false, meta.getTableName(), "flush")) {
+            PreparedStatement stmt = lease.statement();
+            List<Object> batch = new ArrayList<>(Math.min(batchSize, entities.size()));
+            for (Object entity : entities) {
+                int index = 1;
+                for (int bit = changed.nextSetBit(0); bit >= 0; bit = changed.nextSetBit(bit + 1)) {
+                    int column = bit - 1;
+                    if (column == meta.getVersionColumn()) {
+                        stmt.setObject(index++, meta.nextVersion(entity));
+                    } else if (column < columnCount) {
+                        meta.getColumnConverter(column).bind(stmt, index++, meta.getColumnAccessors().get(column), entity);
+                    } else {
+                        stmt.setObject(index++, registry.getReferenceId(meta.getForeignKeyAccessors().get(column - columnCount).get(entity)));
+                    }
+                }
+                Object id = meta.getId(entity);
+                stmt.setObject(index, id);
+                if (meta.isVersioned()) {
+                    stmt.setObject(index + 1, requireVersion(meta, entity, "update"));
+                }
+                stmt.addBatch();
+                markWritten(entity.getClass(), id);
+                batch.add(entity);
+                if (batch.size() == batchSize) {
+                    executeBatch(stmt, batch, meta, "Flush", sql);
+                }
+            }
+            if (!batch.isEmpty()) {
+                executeBatch(stmt, batch, meta, "Flush", sql);
+            }
+        }
+    }
+
+    private Map<EntityMetadata, List<Object>> groupByMetadata(Collection<?> entities) {
+        Map<EntityMetadata, List<Object>> groups = new LinkedHashMap<>();
+        for (Object entity : entities) {
+            groups.computeIfAbsent(getMetadata(entity.getClass()), k -> new ArrayList<>()).add(entity);
+        }
+        return groups;
+    }
+
+    public int getIdBatchSize() {
+        return idBatchSize;
+    }
+
+    public void setIdBatchSize(int idBatchSize) {
+        if (idBatchSize < 1) {
+            throw new IllegalArgumentException("ID batch size must be at least 1");
+        }
+        this.idBatchSize = idBatchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isMultiRowInsert() {
+        return multiRowInsert;
+    }
+
+    public void setMultiRowInsert(boolean multiRowInsert) {
+        this.multiRowInsert = multiRowInsert;
+    }
+
+    public int getMaxRowsPerInsert() {
+        return maxRowsPerInsert;
+    }
+
+    public void setMaxRowsPerInsert(int maxRowsPerInsert) {
+        if (maxRowsPerInsert < 1) {
+            throw new IllegalArgumentException("Rows per insert must be at least 1");
+        }
+        this.maxRowsPerInsert = maxRowsPerInsert;
+    }
+
+    // Overrides the max_allowed_packet read from the server.
+    public void setMaxPacketSize(int maxPacketSize) {
+        this.maxPacketSize = maxPacketSize;
+    }
+
+    public boolean isMultiQueries() {
+        return multiQueries;
+    }
+
+    // Only enable when the connection allows several statements per execute (allowMultiQueries on MySQL).
+    public void setMultiQueries(boolean multiQueries) {
+        this.multiQueries = multiQueries;
+    }
+
+    public Pipeline pipeline() {
+        requireWritable();
+        return new Pipeline();
+    }
+
+    public MetricsRecorder getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(MetricsRecorder metrics) {
+        this.metrics = metrics != null ? metrics : MetricsRecorder.NOOP;
+    }
+
+    // Statements at or over the threshold are logged with their parameters to com.miniorm.SlowQueryLog; null disables.
+    public void setSlowQueryThreshold(Duration threshold) {
+        this.slowQueryNanos = threshold != null ? threshold.toNanos() : Long.MAX_VALUE;
+    }
+
+    public Duration getSlowQueryThreshold() {
+        return slowQueryNanos == Long.MAX_VALUE ? null : Duration.ofNanos(slowQueryNanos);
+    }
+
+    public FirstLevelCache getFirstLevelCache() {
+        return cache;
+    }
+
+    // Reads outside write transactions use a second connection from this source, e.g. a ReplicaRouter.
+    public void setReadDataSource(DataSource readDataSource) {
+        this.readDataSource = readDataSource;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        connection.setReadOnly(readOnly);
+        this.readOnly = readOnly;
+    }
+
+    // Detaches the entity: later finds reload it and unit-of-work flushes skip it.
+    public void evict(Object entity) {
+        EntityMetadata meta = getMetadata(entity.getClass());
+        Object id = meta.getId(entity);
+        if (id != null) {
+            cache.evict(entity.getClass(), id);
+        }
+        snapshots.remove(entity);
+    }
+
+    public void clear(Class<?> clazz) {
+        cache.clear(clazz);
+        snapshots.keySet().removeIf(entity -> entity.getClass() == clazz);
+    }
+
+    public void clear() {
+        cache.clear();
+        snapshots.clear();
+    }
+
+    public FirstLevelCache.ReferenceMode getFirstLevelCacheMode() {
+        return cache.getMode();
+    }
+
+    // Switching modes starts a new, empty identity map.
+    public void setFirstLevelCacheMode(FirstLevelCache.ReferenceMode mode) {
+        if (mode != cache.getMode()) {
+            clear();
+            cache = new FirstLevelCache(mode);
+        }
+    }
+
+    public boolean isUnitOfWork() {
+        return unitOfWork;
+    }
+
+    public void setUnitOfWork(boolean unitOfWork) {
+        this.unitOfWork = unitOfWork;
+        if (!unitOfWork) {
+            snapshots.clear();
+        }
+    }
+
+    public StatementCache getStatementCache() {
+        return statements;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public <T> T find(Class<T> clazz, Object id) throws Exception {
+        T cached = cache.get(clazz, id);
+        if (cached != null) {
+            log.debug("Cache Hit for {} ID: {}", clazz.getSimpleName(), id);
+            return cached;
+        }
+        T shared = findInSecondLevel(clazz, id);
+        if (shared != null) {
+            return shared;
+        }
+
+        FetchPlan plan = registry.getFetchPlan(clazz);
+        String sql = plan.getSelectByIdSql();
+        String table = plan.getMetadata().getTableName();
+        
+        try (StatementCache.Lease lease = lease(readStatements(), sql, false, table, "find")) {
+            PreparedStatement stmt = lease.statement();
+            stmt.setObject(1, id);
+            log.debug("Executing Find: {}", sql);
+            
+            long stamp = secondLevelStamp();
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                long hydrating = recordExecute(table, "find", sql, start, () -> List.of(id));
+                List<T> found = readEntities(clazz, rs, plan, stamp);
+                recordHydrate(table, "find", hydrating, found.size());
+                return found.isEmpty() ? null : found.get(0);
+            }
+        }
+    }
+
+    public <T> List<T> findByIds(Class<T> clazz, Collection<?> ids) throws Exception {
+        EntityMetadata meta = getMetadata(clazz);
+        List<Object> keys = new ArrayList<>(ids.size());
+        Map<Object, T> resolved = new HashMap<>();
+        Set<Object> missing = new LinkedHashSet<>();
+        // One identity-map lookup per distinct id, so the first-level hit ratio counts each once.
+        for (Object id : ids) {
+            Object key = meta.normalizeId(id);
+            keys.add(key);
+            if (resolved.containsKey(key) || missing.contains(key)) {
+                continue;
+            }
+            T entity = cache.get(clazz, key);
+            if (entity == null) {
+                entity = findInSecondLevel(clazz, key);
+            }
+            if (entity != null) {
+                resolved.put(key, entity);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (T entity : loadByIds(clazz, missing, idBatchSize)) {
+                resolved.put(meta.normalizeId(meta.getId(entity)), entity);
+            }
+        }
+
+        List<T> found = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            T entity = resolved.get(key);
+            if (entity != null) {
+                found.add(entity);
+            }
+        }
+        return found;
+    }
+
+    public <T> Stream<T> stream(Class<T> clazz) throws SQLException {
+        return stream(clazz, fetchSize);
+    }
+
+    public <T> Stream<T> stream(Class<T> clazz, int fetchSize) throws SQLException {
+        FetchPlan plan = registry.getFetchPlan(clazz);
+        return openStream(clazz, plan, plan.getSelectSql(), null, fetchSize);
+    }
+
+    public <T> Stream<T> stream(Query<T> query) throws SQLException {
+        CompiledQuery compiled = compileEntityQuery(query);
+        return openStream(query.getEntityClass(), compiled.getFetchPlan(), compiled.getSql(), stmt -> compiled.bind(stmt, query), fetchSize);
+    }
+
+    private <T> Stream<T> openStream(Class<T> clazz, FetchPlan plan, String sql, StatementBinder binder, int fetchSize) throws SQLException {
+        Connection source = readStatements() == statements ? connection : readConnection;
+        PreparedStatement stmt = source.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ResultSet rs;
+        try {
+            if (binder != null) {
+                binder.bind(stmt);
+            }
+            stmt.setFetchSize(fetchSize);
+            log.debug("Executing Stream (fetch size {}): {}", fetchSize, sql);
+            long start = System.nanoTime();
+            rs = stmt.executeQuery();
+            recordExecute(plan.getMetadata().getTableName(), "stream", sql, start, () -> "streamed");
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+
+        AutoCloseable cursor = () -> {
+            try (stmt) {
+                rs.close();
+            }
+        };
+        openCursors.add(cursor);
+        return StreamSupport.stream(new EntitySpliterator<>(clazz, rs, plan, Math.max(1, fetchSize)), false)
+                .onClose(() -> closeCursor(cursor));
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    public <T> List<T> list(Query<T> query) throws Exception {
+        CompiledQuery compiled = compileEntityQuery(query);
+        if (query.isCacheable() && queryCache != null) {
+            return listCached(query, compiled);
+        }
+        return executeList(query, compiled);
+    }
+
+    private <T> List<T> listCached(Query<T> query, CompiledQuery compiled) throws Exception {
+        EntityMetadata meta = compiled.getFetchPlan().getMetadata();
+        String table = meta.getTableName();
+        // With uncommitted writes on the table, the cached ids may be stale for us and ours must not be shared.
+        if (rawWrite || writtenTables.contains(table)) {
+            return executeList(query, compiled);
+        }
+
+        List<Object> parameters = compiled.bindValues(query);
+        long version = queryCache.getTableVersion(table);
+        List<Object> ids = queryCache.get(query.getCacheRegion(), table, compiled.getSql(), parameters);
+        if (ids != null) {
+            log.debug("Query Cache Hit: {}", compiled.getSql());
+            return findByIds(query.getEntityClass(), ids);
+        }
+
+        List<T> results = executeList(query, compiled);
+        List<Object> resultIds = new ArrayList<>(results.size());
+        for (T entity : results) {
+            resultIds.add(meta.getId(entity));
+        }
+        if (!readsFromReplica()) {
+            queryCache.put(query.getCacheRegion(), table, version, compiled.getSql(), parameters, resultIds);
+        }
+        return results;
+    }
+
+    private <T> List<T> executeList(Query<T> query, CompiledQuery compiled) throws Exception {
+        String sql = compiled.getSql();
+        String table = compiled.getFetchPlan().getMetadata().getTableName();
+
+        try (StatementCache.Lease lease = lease(readStatements(), sql, false, table, "query")) {
+            PreparedStatement stmt = lease.statement();
+            compiled.bind(stmt, query);
+            log.debug("Executing Query: {}", sql);
+            long stamp = secondLevelStamp();
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                long hydrating = recordExecute(table, "query", sql, start, () -> compiled.bindValues(query));
+                List<T> results = readEntities(query.getEntityClass(), rs, compiled.getFetchPlan(), stamp);
+                recordHydrate(table, "query", hydrating, results.size());
+                return results;
+            }
+        }
+    }
+
+    public <T> T first(Query<T> query) throws Exception {
+        List<T> results = list(query.copy().limit(1));
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    public List<Object[]> listRows(Query<?> query) throws Exception {
+        CompiledQuery compiled = registry.getQueryCompiler().compile(query);
+        if (!compiled.isProjection()) {
+            throw new IllegalArgumentException("listRows requires a query with select(...) properties");
+        }
+        String sql = compiled.getSql();
+        int width = compiled.getProjectionTypes().size();
+        List<TypeConverter> converters = compiled.getProjectionConverters();
+        String table = getMetadata(query.getEntityClass()).getTableName();
+
+        try (StatementCache.Lease lease = lease(readStatements(), sql, false, table, "projection")) {
+            PreparedStatement stmt = lease.statement();
+            compiled.bind(stmt, query);
+            log.debug("Executing Projection: {}", sql);
+            List<Object[]> rows = new ArrayList<>();
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                long hydrating = recordExecute(table, "projection", sql, start, () -> compiled.bindValues(query));
+                while (rs.next()) {
+                    Object[] row = new Object[width];
+                    for (int i = 0; i < width; i++) {
+                        TypeConverter converter = converters.get(i);
+                        row[i] = converter != null ? converter.read(rs, i + 1) : rs.getObject(i + 1);
+                    }
+                    rows.add(row);
+                }
+                recordHydrate(table, "projection", hydrating, rows.size());
+            }
+            return rows;
+        }
+    }
+
+    // Maps selected columns straight into a record or interface; nothing is hydrated or cached.
+    public <R> List<R> list(Query<?> requested, Class<R> resultType) throws Exception {
+        Query<?> query = requested.isProjection() ? requested
+                : requested.copy().select(ProjectionMapper.propertyNames(resultType));
+        CompiledQuery compiled = registry.getQueryCompiler().compile(query);
+        ProjectionMapper<R> mapper = compiled.mapperFor(resultType);
+        String sql = compiled.getSql();
+        String table = getMetadata(query.getEntityClass()).getTableName();
+
+        try (StatementCache.Lease lease = lease(readStatements(), sql, false, table, "projection")) {
+            PreparedStatement stmt = lease.statement();
+            compiled.bind(stmt, query);
+            log.debug("Executing Projection: {}", sql);
+            List<R> results = new ArrayList<>();
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                long hydrating = recordExecute(table, "projection", sql, start, () -> compiled.bindValues(query));
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+                recordHydrate(table, "projection", hydrating, results.size());
+            }
+            return results;
+        }
+    }
+
+    private CompiledQuery compileEntityQuery(Query<?> query) {
+        CompiledQuery compiled = registry.getQueryCompiler().compile(query);
+        if (compiled.isProjection()) {
+            throw new IllegalArgumentException("Projection queries must be read with listRows");
+        }
+        return compiled;
+    }
+
+    private void closeCursor(AutoCloseable cursor) {
+        openCursors.remove(cursor);
+        try {
+            cursor.close();
+        } catch (Exception e) {
+            log.warn("Failed to close stream cursor", e);
+        }
+    }
+
+    // Reads rows in chunks of the fetch size so BATCH references are resolved per chunk,
+    // and keeps streamed entities out of the identity map so memory stays flat.
+    private final class EntitySpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Class<T> clazz;
+        private final ResultSet rs;
+        private final FetchPlan plan;
+        private final int chunkSize;
+        private final ArrayDeque<T> buffer;
+        private boolean exhausted;
+
+        EntitySpliterator(Class<T> clazz, ResultSet rs, FetchPlan plan, int chunkSize) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.clazz = clazz;
+            this.rs = rs;
+            this.plan = plan;
+            this.chunkSize = chunkSize;
+            this.buffer = new ArrayDeque<>(Math.min(chunkSize, 1024));
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (buffer.isEmpty() && !exhausted) {
+                fill();
+            }
+            T next = buffer.poll();
+            if (next == null) {
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+
+        private void fill() {
+            try {
+                Map<Class<?>, PendingReferences> pending = new LinkedHashMap<>();
+                while (buffer.size() < chunkSize) {
+                    if (!rs.next()) {
+                        exhausted = true;
+                        break;
+                    }
+                    buffer.add(mapResultSetToEntity(clazz, rs, plan.getMetadata(), 0, plan, pending, false, NO_SECOND_LEVEL_PUT));
+                }
+                resolvePendingReferences(pending);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to read " + clazz.getSimpleName() + " stream", e);
+            }
+        }
+    }
+
+    public <T> List<T> findAll(Class<T> clazz) throws Exception {
+        FetchPlan plan = registry.getFetchPlan(clazz);
+        String sql = plan.getSelectSql();
+        String table = plan.getMetadata().getTableName();
+
+        try (StatementCache.Lease lease = lease(readStatements(), sql, false, table, "find-all")) {
+            log.debug("Executing Find All: {}", sql);
+            long stamp = secondLevelStamp();
+            long start = System.nanoTime();
+            try (ResultSet rs = lease.statement().executeQuery()) {
+                long hydrating = recordExecute(table, "find-all", sql, start, List::of);
+                List<T> found = readEntities(clazz, rs, plan, stamp);
+                recordHydrate(table, "find-all", hydrating, found.size());
+                return found;
+            }
+        }
+    }
+
+    private <T> List<T> loadByIds(Class<T> clazz, Collection<?> ids, int chunkSize) throws Exception {
+        FetchPlan plan = registry.getFetchPlan(clazz);
+        List<T> loaded = new ArrayList<>(ids.size());
+        List<Object> chunk = new ArrayList<>(Math.min(chunkSize, ids.size()));
+        for (Object id : ids) {
+            chunk.add(id);
+            if (chunk.size() == chunkSize) {
+                loaded.addAll(loadChunk(clazz, plan, chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loaded.addAll(loadChunk(clazz, plan, chunk));
+        }
+        return loaded;
+    }
+
+    private <T> List<T> loadChunk(Class<T> clazz, FetchPlan plan, List<Object> ids) throws Exception {
+        String sql = plan.getSelectByIdsSql(ids.size());
+        String table = plan.getMetadata().getTableName();
+        try (StatementCache.Lease lease = lease(readStatements(), sql, false, table, "find-by-ids")) {
+            PreparedStatement stmt = lease.statement();
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setObject(i + 1, ids.get(i));
+            }
+            log.debug("Executing Find By Ids ({}): {}", ids.size(), sql);
+            long stamp = secondLevelStamp();
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                long hydrating = recordExecute(table, "find-by-ids", sql, start, () -> List.copyOf(ids));
+                List<T> found = readEntities(clazz, rs, plan, stamp);
+                recordHydrate(table, "find-by-ids", hydrating, found.size());
+                return found;
+            }
+        }
+    }
+
+    private long secondLevelStamp() {
+        return secondLevelCache != null && !readsFromReplica() ? secondLevelCache.getInvalidationStamp() : NO_SECOND_LEVEL_PUT;
+    }
+
+    // stamp: the second-level invalidation stamp read before the statement ran, or NO_SECOND_LEVEL_PUT.
+    private <T> List<T> readEntities(Class<T> clazz, ResultSet rs, FetchPlan plan, long stamp) throws Exception {
+        List<T> entities = new ArrayList<>();
+        Map<Class<?>, PendingReferences> pending = new LinkedHashMap<>();
+        while (rs.next()) {
+            entities.add(mapResultSetToEntity(clazz, rs, plan.getMetadata(), 0, plan, pending, true, stamp));
+        }
+        resolvePendingReferences(pending);
+        return entities;
+    }
+
+    private <T> T mapResultSetToEntity(Class<T> clazz, ResultSet rs, EntityMetadata meta, int offset,
+                                       FetchPlan plan, Map<Class<?>, PendingReferences> pending, boolean register, long stamp) throws Exception {
+        Object id = rs.getObject(offset + meta.getIdColumnIndex());
+        T cached = cache.get(clazz, id);
+        if (cached != null) {
+            return cached;
+        }
+
+        T entity = clazz.cast(meta.newInstance());
+        
+        meta.getIdConverter().read(rs, offset + meta.getIdColumnIndex(), meta.getIdAccessor(), entity);
+        
+        List<PropertyAccessor> accessors = meta.getColumnAccessors();
+        for (int i = 0; i < accessors.size(); i++) {
+            meta.getColumnConverter(i).read(rs, offset + meta.getColumnIndex(i), accessors.get(i), entity);
+        }
+        if (register) {
+            cache.put(clazz, meta.getId(entity), entity);
+        }
+        CacheRegion<Object[]> region = register && stamp != NO_SECOND_LEVEL_PUT && secondLevelCache != null
+                ? secondLevelCache.regionFor(clazz) : null;
+        boolean snapshot = register && unitOfWork;
+        Object[] dehydrated = region != null || snapshot ? dehydrate(meta, entity) : null;
+        
+        List<PropertyAccessor> foreignKeyAccessors = meta.getForeignKeyAccessors();
+        for (int i = 0; i < foreignKeyAccessors.size(); i++) {
+            Object fkValue = rs.getObject(offset + meta.getForeignKeyColumnIndex(i));
+            if (fkValue == null) {
+                continue;
+            }
+            if (dehydrated != null) {
+                dehydrated[meta.getForeignKeyColumnIndex(i) - 1] = fkValue;
+            }
+            Class<?> relatedClass = meta.getForeignKeyTarget(i);
+            PropertyAccessor accessor = foreignKeyAccessors.get(i);
+            FetchMode fetchMode = meta.getForeignKeyFetchMode(i);
+
+            if (meta.isForeignKeyLazy(i)) {
+                accessor.set(entity, new LazyReference<>(relatedClass, fkValue, this));
+            } else if (fetchMode == FetchMode.JOIN && plan != null && plan.getJoinOffset(i) >= 0) {
+                accessor.set(entity, mapResultSetToEntity(relatedClass, rs, plan.getJoinedMetadata(i), plan.getJoinOffset(i), null, pending, true, stamp));
+            } else if (fetchMode == FetchMode.BATCH && !cache.contains(relatedClass, fkValue)) {
+                pending.computeIfAbsent(relatedClass, k -> new PendingReferences())
+                       .add(entity, accessor, fkValue, meta.getForeignKeyBatchSize(i));
+            } else {
+                accessor.set(entity, find(relatedClass, fkValue));
+            }
+        }
+        if (region != null) {
+            secondLevelCache.putIfUnchanged(region, meta.getId(entity), dehydrated, stamp);
+        }
+        if (snapshot) {
+            // The region's array is shared across sessions; the snapshot must be this session's own.
+            snapshots.put(entity, region != null ? copyRow(dehydrated) : dehydrated);
+        }
+        
+        return entity;
+    }
+
+    // Column values in select order (id, columns, foreign key ids); foreign keys are filled in by the caller.
+    private static Object[] dehydrate(EntityMetadata meta, Object entity) {
+        Object[] values = new Object[meta.getSelectColumnCount()];
+        values[meta.getIdColumnIndex() - 1] = meta.getId(entity);
+        List<PropertyAccessor> accessors = meta.getColumnAccessors();
+        for (int i = 0; i < accessors.size(); i++) {
+            values[meta.getColumnIndex(i) - 1] = detach(accessors.get(i).get(entity));
+        }
+        return values;
+    }
+
+    // Array columns (byte[]) are mutable: a row holds its own copies, so an in-place edit of the entity's
+    // array still shows up as dirty and never reaches a snapshot or a shared second-level row.
+    private static Object detach(Object value) {
+        if (value == null || !value.getClass().isArray()) {
+            return value;
+        }
+        int length = Array.getLength(value);
+        Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+        System.arraycopy(value, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static Object[] copyRow(Object[] row) {
+        Object[] copy = new Object[row.length];
+        for (int i = 0; i < row.length; i++) {
+            copy[i] = detach(row[i]);
+        }
+        return copy;
+    }
+
+    private <T> T findInSecondLevel(Class<T> clazz, Object id) throws Exception {
+        CacheRegion<Object[]> region = secondLevelCache != null ? secondLevelCache.regionFor(clazz) : null;
+        if (region == null) {
+            return null;
+        }
+        EntityMetadata meta = getMetadata(clazz);
+        Object[] values = region.get(meta.normalizeId(id));
+        if (values == null) {
+            return null;
+        }
+        log.debug("Second Level Cache Hit for {} ID: {}", clazz.getSimpleName(), id);
+
+        T entity = clazz.cast(meta.newInstance());
+        meta.getIdAccessor().set(entity, values[meta.getIdColumnIndex() - 1]);
+        List<PropertyAccessor> accessors = meta.getColumnAccessors();
+        for (int i = 0; i < accessors.size(); i++) {
+            accessors.get(i).set(entity, detach(values[meta.getColumnIndex(i) - 1]));
+        }
+        cache.put(clazz, meta.getId(entity), entity);
+        if (unitOfWork) {
+            snapshots.put(entity, copyRow(values));
+        }
+
+        List<PropertyAccessor> foreignKeyAccessors = meta.getForeignKeyAccessors();
+        for (int i = 0; i < foreignKeyAccessors.size(); i++) {
+            Object fkValue = values[meta.getForeignKeyColumnIndex(i) - 1];
+            if (fkValue == null) {
+                continue;
+            }
+            Class<?> relatedClass = meta.getForeignKeyTarget(i);
+            if (meta.isForeignKeyLazy(i)) {
+                foreignKeyAccessors.get(i).set(entity, new LazyReference<>(relatedClass, fkValue, this));
+            } else {
+                foreignKeyAccessors.get(i).set(entity, find(relatedClass, fkValue));
+            }
+        }
+        return entity;
+    }
+
+    private void resolvePendingReferences(Map<Class<?>, PendingReferences> pending) throws Exception {
+        for (Map.Entry<Class<?>, PendingReferences> entry : pending.entrySet()) {
+            Class<?> relatedClass = entry.getKey();
+            PendingReferences references = entry.getValue();
+
+            EntityMetadata meta = getMetadata(relatedClass);
+            Map<Object, Object> resolved = new HashMap<>();
+            Set<Object> missing = new LinkedHashSet<>();
+            // Same single counted lookup per distinct id as findByIds.
+            for (Object fkValue : references.fkValues) {
+                Object key = meta.normalizeId(fkValue);
+                if (resolved.containsKey(key) || missing.contains(key)) {
+                    continue;
+                }
+                Object related = cache.get(relatedClass, key);
+                if (related == null) {
+                    related = findInSecondLevel(relatedClass, key);
+                }
+                if (related != null) {
+                    resolved.put(key, related);
+                } else {
+                    missing.add(key);
+                }
+            }
+            if (!missing.isEmpty()) {
+                for (Object related : loadByIds(relatedClass, missing, references.batchSize)) {
+                    resolved.put(meta.normalizeId(meta.getId(related)), related);
+                }
+            }
+
+            for (int i = 0; i < references.owners.size(); i++) {
+                Object related = resolved.get(meta.normalizeId(references.fkValues.get(i)));
+                references.accessors.get(i).set(references.owners.get(i), related);
+            }
+        }
+    }
+
+    private static final class PendingReferences {
+        private final List<Object> owners = new ArrayList<>();
+        private final List<PropertyAccessor> accessors = new ArrayList<>();
+        private final List<Object> fkValues = new ArrayList<>();
+        private int batchSize = Integer.MAX_VALUE;
+
+        void add(Object owner, PropertyAccessor accessor, Object fkValue, int fetchBatchSize) {
+            owners.add(owner);
+            accessors.add(accessor);
+            fkValues.add(fkValue);
+            batchSize = Math.min(batchSize, fetchBatchSize);
+        }
+    }
+
+    private EntityMetadata getMetadata(Class<?> clazz) {
+        return registry.get(clazz);
+    }
+    
+    public void createTable(Class<?> clazz) throws SQLException {
+         requireWritable();
+         EntityMetadata meta = getMetadata(clazz);
+         String sql = SqlBuilder.buildCreateTable(meta);
+         try (Statement stmt = connection.createStatement()) {
+             stmt.execute(sql);
+             log.info("Created table: {}", meta.getTableName());
+         }
+    }
+
+    public boolean isOpen() {
+        try {
+            return !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (connection != null && !connection.isClosed()) {
+            log.debug("Closing session, {}", statements);
+            for (AutoCloseable cursor : new ArrayList<>(openCursors)) {
+                closeCursor(cursor);
+            }
+            statements.close();
+            connection.close();
+            if (readConnection != null) {
+                readStatements.close();
+                readConnection.close();
+            }
+            metrics.recordCacheAccess(InMemoryMetrics.FIRST_LEVEL_CACHE, cache.getHits(), cache.getMisses());
+            cache.clear();
+        }
+    }
+
+    // Queues statements and sends them together: one multi-statement round trip per packet when
+    // multi-queries are enabled, otherwise one JDBC batch per run of identical SQL.
+    public final class Pipeline {
+        private final List<String> sqls = new ArrayList<>();
+        private final List<Object[]> parameters = new ArrayList<>();
+        private final List<VersionCheck> versionChecks = new ArrayList<>();
+
+        private record VersionCheck(EntityMetadata meta, Object entity, boolean bump) {}
+
+        private Pipeline() {}
+
+        // Raw SQL could touch any table, so it invalidates every shared cache; prefer the entity-class form.
+        public Pipeline add(String sql, Object... params) {
+            markRawWrite();
+            return queue(sql, params);
+        }
+
+        // Raw SQL against the entity's table only.
+        public Pipeline add(Class<?> entityClass, String sql, Object... params) {
+            EntityMetadata meta = getMetadata(entityClass);
+            markTableWritten(meta);
+            if (secondLevelCache != null && secondLevelCache.regionFor(entityClass) != null) {
+                secondLevelCache.evictAll(entityClass);
+                bulkWrittenClasses.add(entityClass);
+            }
+            return queue(sql, params);
+        }
+
+        private Pipeline queue(String sql, Object... params) {
+            sqls.add(sql);
+            parameters.add(params);
+            versionChecks.add(null);
+            return this;
+        }
+
+        public Pipeline update(Object entity) throws Exception {
+            EntityMetadata meta = getMetadata(entity.getClass());
+            Object id = requireId(meta, entity, "update");
+            Object[] values = new Object[meta.getInsertColumnCount() + (meta.isVersioned() ? 2 : 1)];
+            int i = 0;
+            List<PropertyAccessor> accessors = meta.getColumnAccessors();
+            for (; i < accessors.size(); i++) {
+                values[i] = meta.getColumnConverter(i).toJdbc(accessors.get(i).get(entity));
+            }
+            for (PropertyAccessor accessor : meta.getForeignKeyAccessors()) {
+                values[i++] = registry.getReferenceId(accessor.get(entity));
+            }
+            values[i] = id;
+            if (meta.isVersioned()) {
+                values[meta.getVersionColumn()] = meta.nextVersion(entity);
+                values[i + 1] = requireVersion(meta, entity, "update");
+            }
+            queue(meta.getUpdateSql(), values);
+            checkVersion(meta, entity, true);
+
+            markTableWritten(meta);
+            cache.put(entity.getClass(), id, entity);
+            markWritten(entity.getClass(), id);
+            takeSnapshot(meta, entity);
+            return this;
+        }
+
+        public Pipeline delete(Object entity) throws Exception {
+            EntityMetadata meta = getMetadata(entity.getClass());
+            Object id = requireId(meta, entity, "delete");
+            if (meta.isVersioned()) {
+                queue(meta.getDeleteSql(), id, requireVersion(meta, entity, "delete"));
+                checkVersion(meta, entity, false);
+            } else {
+                queue(meta.getDeleteSql(), id);
+            }
+
+            markTableWritten(meta);
+            cache.evict(entity.getClass(), id);
+            markWritten(entity.getClass(), id);
+            snapshots.remove(entity);
+            return this;
+        }
+
+        private void checkVersion(EntityMetadata meta, Object entity, boolean bump) {
+            if (meta.isVersioned()) {
+                versionChecks.set(versionChecks.size() - 1, new VersionCheck(meta, entity, bump));
+            }
+        }
+
+        public int size() {
+            return sqls.size();
+        }
+
+        // Update counts in queue order; SUCCESS_NO_INFO where the driver does not report one.
+        public int[] execute() throws SQLException {
+            int[] counts = new int[sqls.size()];
+            try {
+                if (multiQueries) {
+                    executeMultiQuery(counts);
+                } else {
+                    executeBatched(counts);
+                }
+                verifyVersions(counts);
+            } finally {
+                sqls.clear();
+                parameters.clear();
+                versionChecks.clear();
+            }
+            return counts;
+        }
+
+        // Same rule as executeBatch: zero rows for a versioned entity means another writer won.
+        private void verifyVersions(int[] counts) {
+            VersionCheck conflicted = null;
+            for (int i = 0; i < counts.length; i++) {
+                VersionCheck check = versionChecks.get(i);
+                if (check == null) {
+                    continue;
+                }
+                if (counts[i] == 0) {
+                    conflicted = conflicted != null ? conflicted : check;
+                } else if (check.bump()) {
+                    bumpVersion(check.meta(), check.entity());
+                }
+            }
+            if (conflicted != null) {
+                throw conflict(conflicted.meta(), conflicted.entity(), conflicted.meta().getId(conflicted.entity()));
+            }
+        }
+
+        private void executeBatched(int[] counts) throws SQLException {
+            int start = 0;
+            while (start < sqls.size()) {
+                String sql = sqls.get(start);
+                int end = start + 1;
+                while (end < sqls.size() && end - start < batchSize && sqls.get(end).equals(sql)) {
+                    end++;
+                }
+                try (StatementCache.Lease lease = lease(statements, sql, false, PIPELINE, "batch")) {
+                    PreparedStatement stmt = lease.statement();
+                    for (int i = start; i < end; i++) {
+                        bindAll(stmt, parameters.get(i), 1);
+                        stmt.addBatch();
+                    }
+                    log.debug("Executing Pipeline Batch of {}: {}", end - start, sql);
+                    int size = end - start;
+                    long started = System.nanoTime();
+                    int[] batch = stmt.executeBatch();
+                    recordUpdate(PIPELINE, "batch", sql, started, sum(batch), () -> "batch of " + size);
+                    System.arraycopy(batch, 0, counts, start, Math.min(batch.length, end - start));
+                }
+                start = end;
+            }
+        }
+
+        private void executeMultiQuery(int[] counts) throws SQLException {
+            long budget = getMaxPacketSize() - PACKET_HEADROOM;
+            int start = 0;
+            while (start < sqls.size()) {
+                StringBuilder sql = new StringBuilder(sqls.get(start));
+                long bytes = estimateStatementBytes(start);
+                int end = start + 1;
+                while (end < sqls.size()) {
+                    long next = estimateStatementBytes(end);
+                    if (bytes + next > budget) {
+                        break;
+                    }
+                    sql.append("; ").append(sqls.get(end));
+                    bytes += next;
+                    end++;
+                }
+
+                // Texts differ per chunk, so these are prepared directly instead of through the statement cache.
+                try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                    int index = 1;
+                    for (int i = start; i < end; i++) {
+                        index = bindAll(stmt, parameters.get(i), index);
+                    }
+                    log.debug("Executing Pipeline of {} statements", end - start);
+                    int size = end - start;
+                    long started = System.nanoTime();
+                    readCounts(stmt, stmt.execute(), counts, start, end);
+                    recordUpdate(PIPELINE, "multi-query", "(" + size + " statements)", started,
+                            sum(Arrays.copyOfRange(counts, start, end)), () -> "multi-query of " + size);
+                }
+                start = end;
+            }
+        }
+
+        private void readCounts(PreparedStatement stmt, boolean isResultSet, int[] counts, int start, int end) throws SQLException {
+            int i = start;
+            while (i < end) {
+                if (isResultSet) {
+                    counts[i++] = Statement.SUCCESS_NO_INFO;
+                } else {
+                    int count = stmt.getUpdateCount();
+                    if (count == -1) {
+                        break;
+                    }
+                    counts[i++] = count;
+                }
+                isResultSet = stmt.getMoreResults();
+            }
+            Arrays.fill(counts, i, end, Statement.SUCCESS_NO_INFO);
+        }
+
+        private long estimateStatementBytes(int i) {
+            long bytes = sqls.get(i).length() + 2;
+            for (Object value : parameters.get(i)) {
+                bytes += estimateBytes(value);
+            }
+            return bytes;
+        }
+
+        private int bindAll(PreparedStatement stmt, Object[] values, int first) throws SQLException {
+            int index = first;
+            for (Object value : values) {
+                stmt.setObject(index++, value);
+            }
+            return index;
         }
     }
-}
\ No newline at end of file
+}
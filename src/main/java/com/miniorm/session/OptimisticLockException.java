@@ -0,0 +1,22 @@
+package com.miniorm.session;
+
+// An update or delete of a @Version entity matched no row: another transaction changed or deleted it
+// since it was read. The entity is evicted from the session; reload it and retry in a new transaction.
+public class OptimisticLockException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Class<?> entityClass;
+    private final Object id;
+    private final Object version;
+
+    public OptimisticLockException(Class<?> entityClass, Object id, Object version) {
+        super(entityClass.getSimpleName() + " with id " + id + " was changed or deleted by another transaction (expected version " + version + ")");
+        this.entityClass = entityClass;
+        this.id = id;
+        this.version = version;
+    }
+
+    public Class<?> getEntityClass() { return entityClass; }
+    public Object getId() { return id; }
+    public Object getVersion() { return version; }
+}
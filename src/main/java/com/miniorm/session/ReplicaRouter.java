@@ -0,0 +1,147 @@
+package com.miniorm.session;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Hands out read connections from replicas, skipping ones that recently failed and falling back to
+// the primary when none is reachable. Usable anywhere a DataSource is expected.
+public class ReplicaRouter implements DataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+    private static final long RETRY_AFTER_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long PROBE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    public enum Selection { ROUND_ROBIN, LEAST_LATENCY }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReplicaRouter(DataSource primary, List<? extends DataSource> replicas, Selection selection) {
+        this.primary = primary;
+        this.selection = selection;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        for (Replica replica : candidates()) {
+            try {
+                return replica.connect();
+            } catch (SQLException e) {
+                replica.downUntil = System.nanoTime() + RETRY_AFTER_NANOS;
+                log.warn("Replica unavailable, skipping it for {}s: {}", TimeUnit.NANOSECONDS.toSeconds(RETRY_AFTER_NANOS), e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        log.debug("No replica available, reading from the primary");
+        return primary.getConnection();
+    }
+
+    private List<Replica> candidates() {
+        long now = System.nanoTime();
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (now - replica.downUntil >= 0) {
+                healthy.add(replica);
+            }
+        }
+        if (selection == Selection.LEAST_LATENCY) {
+            // Stable sort, so equally fast replicas still rotate.
+            healthy.sort(Comparator.comparingDouble(replica -> replica.latencyNanos));
+        }
+        return healthy;
+    }
+
+    public int getReplicaCount() { return replicas.size(); }
+    public Selection getSelection() { return selection; }
+    public long getFallbacks() { return fallbacks.sum(); }
+    public long getConnections(int replica) { return replicas.get(replica).connections.sum(); }
+    public double getLatencyNanos(int replica) { return replicas.get(replica).latencyNanos; }
+    public boolean isAvailable(int replica) { return System.nanoTime() - replicas.get(replica).downUntil >= 0; }
+
+    private final class Replica {
+        private final DataSource dataSource;
+        private final LongAdder connections = new LongAdder();
+        private volatile long downUntil = System.nanoTime();
+        private volatile long nextProbe = System.nanoTime();
+        private volatile double latencyNanos;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        // Latency is an EWMA of checkout time, plus a round-trip probe at most once per interval.
+        Connection connect() throws SQLException {
+            long start = System.nanoTime();
+            Connection connection = dataSource.getConnection();
+            if (selection == Selection.LEAST_LATENCY && start - nextProbe >= 0) {
+                nextProbe = start + PROBE_INTERVAL_NANOS;
+                if (!connection.isValid(1)) {
+                    connection.close();
+                    throw new SQLException("Replica connection failed validation");
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            latencyNanos = latencyNanos == 0 ? elapsed : latencyNanos + LATENCY_WEIGHT * (elapsed - latencyNanos);
+            connections.increment();
+            return connection;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the credentials of each replica pool");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException { return primary.getLogWriter(); }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException { primary.setLogWriter(out); }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException { primary.setLoginTimeout(seconds); }
+
+    @Override
+    public int getLoginTimeout() throws SQLException { return primary.getLoginTimeout(); }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
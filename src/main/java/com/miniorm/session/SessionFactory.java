@@ -1,23 +1,236 @@
 package com.miniorm.session;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
 import javax.sql.DataSource;
 
+import com.miniorm.cache.FirstLevelCache;
+import com.miniorm.cache.QueryResultCache;
+import com.miniorm.cache.SecondLevelCache;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.metadata.PropertyAccessStrategy;
+import com.miniorm.metrics.MetricsRecorder;
+import com.miniorm.metrics.PoolMetricsTrackerFactory;
+import com.miniorm.scan.TableScan;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 public class SessionFactory {
     private final DataSource dataSource;
+    private final List<DataSource> replicas;
+    private final ReplicaRouter replicaRouter;
+    private MetadataRegistry metadataRegistry = MetadataRegistry.getDefault();
+    private int statementCacheSize = MiniSession.DEFAULT_STATEMENT_CACHE_SIZE;
+    private SecondLevelCache secondLevelCache;
+    private QueryResultCache queryCache;
+    private boolean unitOfWork;
+    private FirstLevelCache.ReferenceMode firstLevelCacheMode = FirstLevelCache.ReferenceMode.STRONG;
+    private boolean multiRowInsert;
+    private final boolean multiQueries;
+    private MetricsRecorder metrics = MetricsRecorder.NOOP;
+    private Duration slowQueryThreshold;
 
     public SessionFactory(String jdbcUrl, String username, String password) {
+        this(jdbcUrl, username, password, 10);
+    }
+
+    public SessionFactory(String jdbcUrl, String username, String password, int maximumPoolSize) {
+        this(jdbcUrl, username, password, maximumPoolSize, new Properties());
+    }
+
+    // Driver properties, e.g. from mysqlBulkProperties(); allowMultiQueries=true also enables session pipelines to use it.
+    public SessionFactory(String jdbcUrl, String username, String password, int maximumPoolSize, Properties dataSourceProperties) {
+        this(poolConfig(jdbcUrl, username, password, maximumPoolSize, dataSourceProperties));
+    }
+
+    public SessionFactory(HikariConfig primary) {
+        this(primary, List.of(), ReplicaRouter.Selection.ROUND_ROBIN);
+    }
+
+    // One pool per replica, each with its own config; reads fall back to the primary when no replica is up.
+    public SessionFactory(HikariConfig primary, List<HikariConfig> replicas, ReplicaRouter.Selection selection) {
+        this(new HikariDataSource(primary), replicaPools(replicas), selection,
+                Boolean.parseBoolean(primary.getDataSourceProperties().getProperty("allowMultiQueries")));
+    }
+
+    public SessionFactory(DataSource primary, List<? extends DataSource> replicas, ReplicaRouter.Selection selection) {
+        this(primary, replicas, selection, false);
+    }
+
+    private SessionFactory(DataSource primary, List<? extends DataSource> replicas, ReplicaRouter.Selection selection, boolean multiQueries) {
+        this.dataSource = primary;
+        this.replicas = List.copyOf(replicas);
+        this.replicaRouter = replicas.isEmpty() ? null : new ReplicaRouter(primary, replicas, selection);
+        this.multiQueries = multiQueries;
+    }
+
+    public static HikariConfig poolConfig(String jdbcUrl, String username, String password, int maximumPoolSize, Properties dataSourceProperties) {
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(jdbcUrl);
         config.setUsername(username);
         config.setPassword(password);
-        config.setMaximumPoolSize(10);
-        this.dataSource = new HikariDataSource(config);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setDataSourceProperties(dataSourceProperties);
+        return config;
+    }
+
+    private static List<DataSource> replicaPools(List<HikariConfig> replicas) {
+        List<DataSource> pools = new ArrayList<>(replicas.size());
+        for (HikariConfig replica : replicas) {
+            pools.add(new HikariDataSource(replica));
+        }
+        return pools;
+    }
+
+    // Connector/J settings for bulk ingest: batches rewritten into multi-row statements on the client.
+    public static Properties mysqlBulkProperties(boolean allowMultiQueries) {
+        Properties properties = new Properties();
+        properties.setProperty("rewriteBatchedStatements", "true");
+        properties.setProperty("cachePrepStmts", "true");
+        properties.setProperty("useServerPrepStmts", "false");
+        if (allowMultiQueries) {
+            properties.setProperty("allowMultiQueries", "true");
+        }
+        return properties;
     }
 
     public MiniSession openSession() throws Exception {
-        return new MiniSession(dataSource);
+        MiniSession session = configure(new MiniSession(dataSource, statementCacheSize, metadataRegistry, secondLevelCache, queryCache));
+        if (replicaRouter != null) {
+            session.setReadDataSource(replicaRouter);
+        }
+        return session;
+    }
+
+    // Runs entirely on a replica (or the primary without replicas); any write throws IllegalStateException.
+    public MiniSession openReadOnlySession() throws Exception {
+        DataSource source = replicaRouter != null ? replicaRouter : dataSource;
+        MiniSession session = configure(new MiniSession(source, statementCacheSize, metadataRegistry, secondLevelCache, queryCache));
+        session.setReadOnly(true);
+        return session;
+    }
+
+    private MiniSession configure(MiniSession session) {
+        session.setUnitOfWork(unitOfWork);
+        session.setFirstLevelCacheMode(firstLevelCacheMode);
+        session.setMultiRowInsert(multiRowInsert);
+        session.setMultiQueries(multiQueries);
+        session.setMetrics(metrics);
+        session.setSlowQueryThreshold(slowQueryThreshold);
+        return session;
+    }
+
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    // Connections the primary pool can hand out at once, or 0 when the data source is not a Hikari pool.
+    public int getMaximumPoolSize() {
+        return dataSource instanceof HikariDataSource pool ? pool.getMaximumPoolSize() : 0;
+    }
+
+    // Async facade on virtual threads (Java 21+) or a cached pool; close it to stop its executor.
+    public AsyncSession openAsyncSession() {
+        return new AsyncSession(this);
+    }
+
+    public AsyncSession openAsyncSession(Executor executor) {
+        return new AsyncSession(this, executor);
+    }
+
+    // Keyset-chunked scan of a whole table on parallel worker sessions; see TableScan.
+    public <T> TableScan<T> scan(Class<T> clazz) {
+        return new TableScan<>(this, clazz);
+    }
+
+    public MetadataRegistry getMetadataRegistry() {
+        return metadataRegistry;
+    }
+
+    public void setPropertyAccessStrategy(PropertyAccessStrategy accessStrategy) {
+        this.metadataRegistry = new MetadataRegistry(accessStrategy);
+    }
+
+    public SecondLevelCache enableSecondLevelCache() {
+        if (secondLevelCache == null) {
+            secondLevelCache = new SecondLevelCache();
+        }
+        return secondLevelCache;
+    }
+
+    public SecondLevelCache getSecondLevelCache() {
+        return secondLevelCache;
+    }
+
+    public QueryResultCache enableQueryCache() {
+        if (queryCache == null) {
+            queryCache = new QueryResultCache();
+        }
+        return queryCache;
+    }
+
+    public QueryResultCache getQueryCache() {
+        return queryCache;
+    }
+
+    public boolean isUnitOfWork() {
+        return unitOfWork;
+    }
+
+    public void setUnitOfWork(boolean unitOfWork) {
+        this.unitOfWork = unitOfWork;
+    }
+
+    public FirstLevelCache.ReferenceMode getFirstLevelCacheMode() {
+        return firstLevelCacheMode;
+    }
+
+    public void setFirstLevelCacheMode(FirstLevelCache.ReferenceMode firstLevelCacheMode) {
+        this.firstLevelCacheMode = firstLevelCacheMode;
+    }
+
+    public boolean isMultiRowInsert() {
+        return multiRowInsert;
+    }
+
+    public void setMultiRowInsert(boolean multiRowInsert) {
+        this.multiRowInsert = multiRowInsert;
+    }
+
+    public MetricsRecorder getMetrics() {
+        return metrics;
+    }
+
+    // Sessions opened afterwards report to the recorder, and so does the checkout wait of every Hikari
+    // pool. Hikari accepts a tracker once per pool, so this can only be called once.
+    public void setMetrics(MetricsRecorder metrics) {
+        List<DataSource> pools = new ArrayList<>(replicas);
+        pools.add(0, dataSource);
+        for (DataSource pool : pools) {
+            if (pool instanceof HikariDataSource hikari) {
+                hikari.setMetricsTrackerFactory(new PoolMetricsTrackerFactory(metrics));
+            }
+        }
+        this.metrics = metrics;
+    }
+
+    public Duration getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
     }
 }
\ No newline at end of file
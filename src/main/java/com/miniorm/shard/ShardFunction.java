@@ -0,0 +1,51 @@
+package com.miniorm.shard;
+
+// Maps a shard key value to a shard index in [0, shardCount).
+@FunctionalInterface
+public interface ShardFunction {
+    int shardFor(Object key, int shardCount);
+
+    // Integral keys hash by value, so Integer 5 and Long 5 land on the same shard.
+    static ShardFunction hash() {
+        return (key, shardCount) -> {
+            if (key == null) {
+                throw new IllegalArgumentException("Shard key is null");
+            }
+            long h = isIntegral(key) ? ((Number) key).longValue() : key.hashCode();
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return (int) Math.floorMod(h, (long) shardCount);
+        };
+    }
+
+    // Shard i holds keys below upperBounds[i]; keys at or above the last bound go to the last shard.
+    static ShardFunction range(long... upperBounds) {
+        long[] bounds = upperBounds.clone();
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Range bounds must be strictly increasing");
+            }
+        }
+        return (key, shardCount) -> {
+            if (shardCount != bounds.length + 1) {
+                throw new IllegalArgumentException(bounds.length + " range bounds need " + (bounds.length + 1) + " shards, got " + shardCount);
+            }
+            if (!isIntegral(key)) {
+                throw new IllegalArgumentException("Range sharding needs an integral key, got " + key);
+            }
+            long value = ((Number) key).longValue();
+            int shard = 0;
+            while (shard < bounds.length && value >= bounds[shard]) {
+                shard++;
+            }
+            return shard;
+        };
+    }
+
+    private static boolean isIntegral(Object key) {
+        return key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte;
+    }
+}
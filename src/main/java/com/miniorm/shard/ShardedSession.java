@@ -0,0 +1,245 @@
+package com.miniorm.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.session.AsyncSession.SessionWork;
+import com.miniorm.session.MiniSession;
+
+// Opens a MiniSession per shard on first use. Writes go to the shard of the entity's key; lookups by
+// id go straight to one shard when the id is the key and are scattered to every shard otherwise, so
+// auto-increment ids of such entities must not overlap between shards (distinct offsets per shard).
+// Commit and rollback run shard by shard and are not atomic across shards.
+public class ShardedSession implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ShardedSession.class);
+
+    private final ShardedSessionFactory factory;
+    private final MiniSession[] sessions;
+
+    ShardedSession(ShardedSessionFactory factory) {
+        this.factory = factory;
+        this.sessions = new MiniSession[factory.getShardCount()];
+    }
+
+    public MiniSession session(int shard) throws Exception {
+        if (sessions[shard] == null) {
+            sessions[shard] = factory.getShard(shard).openSession();
+        }
+        return sessions[shard];
+    }
+
+    public int getShardCount() {
+        return sessions.length;
+    }
+
+    public void createTable(Class<?> clazz) throws Exception {
+        for (int shard = 0; shard < sessions.length; shard++) {
+            session(shard).createTable(clazz);
+        }
+    }
+
+    // Entities keyed by their id need it assigned up front, and are written as upserts.
+    public <T> void save(T entity) throws Exception {
+        EntityMetadata meta = factory.getMetadata(entity.getClass());
+        MiniSession session = session(factory.shardOf(entity));
+        if (meta.isShardedById()) {
+            session.saveOrUpdate(entity);
+        } else {
+            session.save(entity);
+        }
+    }
+
+    public <T> void saveAll(Collection<T> entities) throws Exception {
+        for (Map.Entry<Integer, List<Object>> group : groupByShard(entities).entrySet()) {
+            MiniSession session = session(group.getKey());
+            if (factory.getMetadata(group.getValue().get(0).getClass()).isShardedById()) {
+                session.saveOrUpdateAll(group.getValue());
+            } else {
+                session.saveAll(group.getValue());
+            }
+        }
+    }
+
+    public <T> void update(T entity) throws Exception {
+        session(factory.shardOf(entity)).update(entity);
+    }
+
+    public <T> void updateAll(Collection<T> entities) throws Exception {
+        for (Map.Entry<Integer, List<Object>> group : groupByShard(entities).entrySet()) {
+            session(group.getKey()).updateAll(group.getValue());
+        }
+    }
+
+    public <T> void delete(T entity) throws Exception {
+        session(factory.shardOf(entity)).delete(entity);
+    }
+
+    public <T> void deleteAll(Collection<T> entities) throws Exception {
+        for (Map.Entry<Integer, List<Object>> group : groupByShard(entities).entrySet()) {
+            session(group.getKey()).deleteAll(group.getValue());
+        }
+    }
+
+    private Map<Integer, List<Object>> groupByShard(Collection<?> entities) {
+        Map<Integer, List<Object>> groups = new LinkedHashMap<>();
+        for (Object entity : entities) {
+            if (entity != null) {
+                groups.computeIfAbsent(factory.shardOf(entity), k -> new ArrayList<>()).add(entity);
+            }
+        }
+        return groups;
+    }
+
+    public <T> T find(Class<T> clazz, Object id) throws Exception {
+        EntityMetadata meta = factory.getMetadata(clazz);
+        if (meta.isShardedById()) {
+            return session(factory.shardFor(clazz, id)).find(clazz, id);
+        }
+        for (T found : scatter(allShards(), shard -> session -> session.find(clazz, id))) {
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    // Direct lookup when the caller knows the shard key of an entity not keyed by its id.
+    public <T> T find(Class<T> clazz, Object id, Object shardKey) throws Exception {
+        return session(factory.shardFor(clazz, shardKey)).find(clazz, id);
+    }
+
+    // Scatter-gather: each shard is queried in parallel for its ids, and the results come back in input order.
+    public <T> List<T> findByIds(Class<T> clazz, Collection<?> ids) throws Exception {
+        EntityMetadata meta = factory.getMetadata(clazz);
+        Map<Integer, List<Object>> idsByShard = new LinkedHashMap<>();
+        if (meta.isShardedById()) {
+            for (Object id : ids) {
+                idsByShard.computeIfAbsent(factory.shardFor(clazz, id), k -> new ArrayList<>()).add(id);
+            }
+        } else {
+            for (int shard : allShards()) {
+                idsByShard.put(shard, new ArrayList<>(ids));
+            }
+        }
+
+        List<Integer> shards = new ArrayList<>(idsByShard.keySet());
+        List<List<T>> results = scatter(shards, shard -> session -> session.findByIds(clazz, idsByShard.get(shard)));
+        Map<Object, T> byId = new HashMap<>();
+        for (List<T> result : results) {
+            for (T entity : result) {
+                byId.putIfAbsent(meta.getId(entity), entity);
+            }
+        }
+        List<T> found = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            T entity = byId.get(meta.normalizeId(id));
+            if (entity != null) {
+                found.add(entity);
+            }
+        }
+        return found;
+    }
+
+    private List<Integer> allShards() {
+        List<Integer> shards = new ArrayList<>(sessions.length);
+        for (int shard = 0; shard < sessions.length; shard++) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    // Sessions are opened on the calling thread; each task then uses only its own shard's session.
+    private <R> List<R> scatter(List<Integer> shards, ShardWork<R> work) throws Exception {
+        for (int shard : shards) {
+            session(shard);
+        }
+        if (shards.size() == 1) {
+            int shard = shards.get(0);
+            return Collections.singletonList(work.forShard(shard).execute(sessions[shard]));
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            MiniSession session = sessions[shard];
+            SessionWork<R> task = work.forShard(shard);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.execute(session);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, factory.getExecutor()));
+        }
+        // Wait for every shard before surfacing a failure, so no task is still using a session.
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((ignored, e) -> null).join();
+
+        List<R> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface ShardWork<R> {
+        SessionWork<R> forShard(int shard);
+    }
+
+    public void commit() throws Exception {
+        for (MiniSession session : sessions) {
+            if (session != null) {
+                session.commit();
+            }
+        }
+    }
+
+    public void rollback() {
+        for (MiniSession session : sessions) {
+            if (session != null) {
+                session.rollback();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        for (int shard = 0; shard < sessions.length; shard++) {
+            if (sessions[shard] == null) {
+                continue;
+            }
+            try {
+                sessions[shard].close();
+            } catch (Exception e) {
+                log.error("Failed to close session of shard {}", shard, e);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            sessions[shard] = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.miniorm.shard;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import com.miniorm.annotations.Entity;
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.session.AsyncSession;
+import com.miniorm.session.LazyReference;
+import com.miniorm.session.SessionFactory;
+
+// One SessionFactory per shard. Entities declare a @ShardKey, and the shard function maps its value
+// to a shard; entities that reference a sharded parent through their key live with that parent.
+public class ShardedSessionFactory implements AutoCloseable {
+    private final List<SessionFactory> shards;
+    private final ShardFunction shardFunction;
+    private final ExecutorService executor = AsyncSession.defaultExecutor();
+
+    public ShardedSessionFactory(List<SessionFactory> shards, ShardFunction shardFunction) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.shardFunction = shardFunction;
+    }
+
+    public ShardedSession openSession() {
+        return new ShardedSession(this);
+    }
+
+    // For reference keys, pass the parent entity, a LazyReference or the parent id.
+    public int shardFor(Class<?> clazz, Object shardKey) {
+        EntityMetadata meta = getMetadata(clazz);
+        if (meta.isShardKeyReference()
+                && (shardKey instanceof LazyReference<?> || shardKey.getClass().isAnnotationPresent(Entity.class))) {
+            shardKey = getMetadataRegistry().getReferenceId(shardKey);
+        }
+        int shard = shardFunction.shardFor(shardKey, shards.size());
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalStateException("Shard function returned " + shard + " for " + shards.size() + " shards");
+        }
+        return shard;
+    }
+
+    public int shardOf(Object entity) {
+        EntityMetadata meta = getMetadata(entity.getClass());
+        Object key = meta.getShardKey(entity);
+        if (key == null) {
+            throw new IllegalArgumentException("Shard key of " + entity.getClass().getSimpleName() + " is not set");
+        }
+        return shardFor(entity.getClass(), key);
+    }
+
+    EntityMetadata getMetadata(Class<?> clazz) {
+        EntityMetadata meta = getMetadataRegistry().get(clazz);
+        if (!meta.isSharded()) {
+            throw new IllegalArgumentException("Entity " + clazz.getSimpleName() + " has no @ShardKey");
+        }
+        return meta;
+    }
+
+    public MetadataRegistry getMetadataRegistry() {
+        return shards.get(0).getMetadataRegistry();
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public SessionFactory getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    public ShardFunction getShardFunction() {
+        return shardFunction;
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
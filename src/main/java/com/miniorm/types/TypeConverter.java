@@ -0,0 +1,34 @@
+package com.miniorm.types;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.miniorm.metadata.PropertyAccessor;
+
+// Maps one Java type to a column type and moves values through typed JDBC getters and setters.
+// Resolved once per mapped field; converters for primitives override the accessor forms so
+// values go from the result set into the field without boxing.
+public interface TypeConverter {
+    // Column type used by createTable.
+    String sqlType();
+
+    // Binds a value of the mapped type, or SQL NULL for null.
+    void bind(PreparedStatement stmt, int index, Object value) throws SQLException;
+
+    // Reads the column as the mapped type; null for SQL NULL unless the type is primitive.
+    Object read(ResultSet rs, int column) throws SQLException;
+
+    // The value as the column stores it, for parameter lists bound with setObject (queries, pipelines, logs).
+    default Object toJdbc(Object value) {
+        return value;
+    }
+
+    default void bind(PreparedStatement stmt, int index, PropertyAccessor accessor, Object entity) throws SQLException {
+        bind(stmt, index, accessor.get(entity));
+    }
+
+    default void read(ResultSet rs, int column, PropertyAccessor accessor, Object entity) throws SQLException {
+        accessor.set(entity, read(rs, column));
+    }
+}
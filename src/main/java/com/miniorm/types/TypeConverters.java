@@ -0,0 +1,260 @@
+package com.miniorm.types;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.miniorm.annotations.EnumType;
+import com.miniorm.metadata.PropertyAccessor;
+
+// Registry of converters by Java type. Mappings look converters up once per field when the entity is
+// first mapped, so register custom converters before then. Types without a converter keep the old
+// behaviour: VARCHAR(255) columns bound with setObject and read with getObject.
+public final class TypeConverters {
+    private static final Map<Class<?>, TypeConverter> converters = new ConcurrentHashMap<>();
+
+    private static final TypeConverter OBJECT = new Basic("VARCHAR(255)", Types.VARCHAR,
+            PreparedStatement::setObject, ResultSet::getObject, Function.identity());
+
+    static {
+        converters.put(long.class, new TypeConverter() {
+            @Override public String sqlType() { return "BIGINT"; }
+            @Override public void bind(PreparedStatement stmt, int index, Object value) throws SQLException { stmt.setLong(index, ((Number) value).longValue()); }
+            @Override public Object read(ResultSet rs, int column) throws SQLException { return rs.getLong(column); }
+            @Override public void bind(PreparedStatement stmt, int index, PropertyAccessor accessor, Object entity) throws SQLException {
+                stmt.setLong(index, accessor.getLong(entity));
+            }
+            @Override public void read(ResultSet rs, int column, PropertyAccessor accessor, Object entity) throws SQLException {
+                accessor.setLong(entity, rs.getLong(column));
+            }
+        });
+        converters.put(int.class, new TypeConverter() {
+            @Override public String sqlType() { return "INT"; }
+            @Override public void bind(PreparedStatement stmt, int index, Object value) throws SQLException { stmt.setInt(index, ((Number) value).intValue()); }
+            @Override public Object read(ResultSet rs, int column) throws SQLException { return rs.getInt(column); }
+            @Override public void bind(PreparedStatement stmt, int index, PropertyAccessor accessor, Object entity) throws SQLException {
+                stmt.setInt(index, accessor.getInt(entity));
+            }
+            @Override public void read(ResultSet rs, int column, PropertyAccessor accessor, Object entity) throws SQLException {
+                accessor.setInt(entity, rs.getInt(column));
+            }
+        });
+        converters.put(double.class, new TypeConverter() {
+            @Override public String sqlType() { return "DOUBLE"; }
+            @Override public void bind(PreparedStatement stmt, int index, Object value) throws SQLException { stmt.setDouble(index, ((Number) value).doubleValue()); }
+            @Override public Object read(ResultSet rs, int column) throws SQLException { return rs.getDouble(column); }
+            @Override public void bind(PreparedStatement stmt, int index, PropertyAccessor accessor, Object entity) throws SQLException {
+                stmt.setDouble(index, accessor.getDouble(entity));
+            }
+            @Override public void read(ResultSet rs, int column, PropertyAccessor accessor, Object entity) throws SQLException {
+                accessor.setDouble(entity, rs.getDouble(column));
+            }
+        });
+        converters.put(boolean.class, new TypeConverter() {
+            @Override public String sqlType() { return "BOOLEAN"; }
+            @Override public void bind(PreparedStatement stmt, int index, Object value) throws SQLException { stmt.setBoolean(index, (Boolean) value); }
+            @Override public Object read(ResultSet rs, int column) throws SQLException { return rs.getBoolean(column); }
+            @Override public void bind(PreparedStatement stmt, int index, PropertyAccessor accessor, Object entity) throws SQLException {
+                stmt.setBoolean(index, accessor.getBoolean(entity));
+            }
+            @Override public void read(ResultSet rs, int column, PropertyAccessor accessor, Object entity) throws SQLException {
+                accessor.setBoolean(entity, rs.getBoolean(column));
+            }
+        });
+        converters.put(short.class, new Primitive("SMALLINT", (stmt, i, v) -> stmt.setShort(i, ((Number) v).shortValue()), ResultSet::getShort));
+        converters.put(byte.class, new Primitive("TINYINT", (stmt, i, v) -> stmt.setByte(i, ((Number) v).byteValue()), ResultSet::getByte));
+        converters.put(float.class, new Primitive("FLOAT", (stmt, i, v) -> stmt.setFloat(i, ((Number) v).floatValue()), ResultSet::getFloat));
+
+        converters.put(Long.class, basic("BIGINT", Types.BIGINT, (stmt, i, v) -> stmt.setLong(i, ((Number) v).longValue()), ResultSet::getLong));
+        converters.put(Integer.class, basic("INT", Types.INTEGER, (stmt, i, v) -> stmt.setInt(i, ((Number) v).intValue()), ResultSet::getInt));
+        converters.put(Short.class, basic("SMALLINT", Types.SMALLINT, (stmt, i, v) -> stmt.setShort(i, ((Number) v).shortValue()), ResultSet::getShort));
+        converters.put(Byte.class, basic("TINYINT", Types.TINYINT, (stmt, i, v) -> stmt.setByte(i, ((Number) v).byteValue()), ResultSet::getByte));
+        converters.put(Double.class, basic("DOUBLE", Types.DOUBLE, (stmt, i, v) -> stmt.setDouble(i, ((Number) v).doubleValue()), ResultSet::getDouble));
+        converters.put(Float.class, basic("FLOAT", Types.REAL, (stmt, i, v) -> stmt.setFloat(i, ((Number) v).floatValue()), ResultSet::getFloat));
+        converters.put(Boolean.class, basic("BOOLEAN", Types.BOOLEAN, (stmt, i, v) -> stmt.setBoolean(i, (Boolean) v), ResultSet::getBoolean));
+        converters.put(String.class, basic("VARCHAR(255)", Types.VARCHAR, (stmt, i, v) -> stmt.setString(i, (String) v), ResultSet::getString));
+        converters.put(BigDecimal.class, forDecimal(19, 4));
+        converters.put(byte[].class, basic("BLOB", Types.VARBINARY, (stmt, i, v) -> stmt.setBytes(i, (byte[]) v), ResultSet::getBytes));
+
+        converters.put(LocalDate.class, basic("DATE", Types.DATE, PreparedStatement::setObject, (rs, c) -> rs.getObject(c, LocalDate.class)));
+        converters.put(LocalTime.class, basic("TIME(6)", Types.TIME, PreparedStatement::setObject, (rs, c) -> rs.getObject(c, LocalTime.class)));
+        converters.put(LocalDateTime.class, basic("DATETIME(6)", Types.TIMESTAMP, PreparedStatement::setObject, (rs, c) -> rs.getObject(c, LocalDateTime.class)));
+        // Stored as UTC wall-clock time, so the value does not depend on the JVM or session time zone.
+        converters.put(Instant.class, new Basic("DATETIME(6)", Types.TIMESTAMP,
+                (stmt, i, v) -> stmt.setObject(i, LocalDateTime.ofInstant((Instant) v, ZoneOffset.UTC)),
+                (rs, c) -> {
+                    LocalDateTime value = rs.getObject(c, LocalDateTime.class);
+                    return value != null ? value.toInstant(ZoneOffset.UTC) : null;
+                },
+                v -> v instanceof Instant instant ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : v));
+        converters.put(UUID.class, new Basic("BINARY(16)", Types.BINARY,
+                (stmt, i, v) -> stmt.setBytes(i, toBytes((UUID) v)),
+                (rs, c) -> {
+                    byte[] bytes = rs.getBytes(c);
+                    return bytes != null ? toUuid(bytes) : null;
+                },
+                v -> v instanceof UUID uuid ? toBytes(uuid) : v));
+    }
+
+    private TypeConverters() {}
+
+    // Adds or replaces the converter for a type, e.g. to store BigDecimal with a wider scale.
+    public static void register(Class<?> type, TypeConverter converter) {
+        converters.put(type, converter);
+    }
+
+    public static TypeConverter forType(Class<?> type) {
+        TypeConverter converter = converters.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        return type.isEnum() ? forEnum(type, EnumType.STRING) : OBJECT;
+    }
+
+    // STRING columns are sized to the longest constant name, ORDINAL columns to the constant count;
+    // widen the column before adding a longer constant, and only append constants when using ORDINAL.
+    public static TypeConverter forEnum(Class<?> type, EnumType mapping) {
+        if (!type.isEnum()) {
+            throw new IllegalArgumentException("@Enumerated field type " + type.getName() + " is not an enum");
+        }
+        Object[] constants = type.getEnumConstants();
+        if (mapping == EnumType.ORDINAL) {
+            boolean tiny = constants.length <= Byte.MAX_VALUE;
+            return new Basic(tiny ? "TINYINT" : "SMALLINT", tiny ? Types.TINYINT : Types.SMALLINT,
+                    (stmt, i, v) -> stmt.setInt(i, ((Enum<?>) v).ordinal()),
+                    (rs, c) -> {
+                        int ordinal = rs.getInt(c);
+                        if (rs.wasNull()) {
+                            return null;
+                        }
+                        if (ordinal < 0 || ordinal >= constants.length) {
+                            throw new IllegalStateException("No " + type.getSimpleName() + " constant with ordinal " + ordinal);
+                        }
+                        return constants[ordinal];
+                    },
+                    v -> v instanceof Enum<?> constant ? constant.ordinal() : v);
+        }
+        Map<String, Object> byName = new HashMap<>();
+        int width = 1;
+        for (Object constant : constants) {
+            String name = ((Enum<?>) constant).name();
+            byName.put(name, constant);
+            width = Math.max(width, name.length());
+        }
+        return new Basic("VARCHAR(" + width + ")", Types.VARCHAR,
+                (stmt, i, v) -> stmt.setString(i, ((Enum<?>) v).name()),
+                (rs, c) -> {
+                    String name = rs.getString(c);
+                    if (name == null) {
+                        return null;
+                    }
+                    Object constant = byName.get(name);
+                    if (constant == null) {
+                        throw new IllegalStateException("No " + type.getSimpleName() + " constant named '" + name + "'");
+                    }
+                    return constant;
+                },
+                v -> v instanceof Enum<?> constant ? constant.name() : v);
+    }
+
+    // DECIMAL(precision, scale), binding only values that fit; the database would round or truncate the rest.
+    public static TypeConverter forDecimal(int precision, int scale) {
+        if (precision < 1 || scale < 0 || scale > precision) {
+            throw new IllegalArgumentException("Invalid DECIMAL(" + precision + "," + scale + ")");
+        }
+        return basic("DECIMAL(" + precision + "," + scale + ")", Types.DECIMAL,
+                (stmt, i, v) -> stmt.setBigDecimal(i, fit((BigDecimal) v, precision, scale)), ResultSet::getBigDecimal);
+    }
+
+    private static BigDecimal fit(BigDecimal value, int precision, int scale) {
+        BigDecimal scaled;
+        try {
+            scaled = value.scale() > scale ? value.setScale(scale, RoundingMode.UNNECESSARY) : value;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(value + " has more than " + scale + " decimal places for DECIMAL("
+                    + precision + "," + scale + ")");
+        }
+        if (scaled.precision() - scaled.scale() > precision - scale) {
+            throw new IllegalArgumentException(value + " has more than " + (precision - scale)
+                    + " integer digits for DECIMAL(" + precision + "," + scale + ")");
+        }
+        return scaled;
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+
+    private static UUID toUuid(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new IllegalStateException("UUID column holds " + bytes.length + " bytes, expected 16");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static TypeConverter basic(String sqlType, int jdbcType, Binder binder, Reader reader) {
+        return new Basic(sqlType, jdbcType, binder, reader, Function.identity());
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement stmt, int index, Object value) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+        Object read(ResultSet rs, int column) throws SQLException;
+    }
+
+    // Nullable type: binds SQL NULL for null and maps SQL NULL back to null.
+    private record Basic(String sqlType, int jdbcType, Binder binder, Reader reader, Function<Object, Object> jdbc)
+            implements TypeConverter {
+        @Override
+        public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+            if (value == null) {
+                stmt.setNull(index, jdbcType);
+            } else {
+                binder.bind(stmt, index, value);
+            }
+        }
+
+        @Override
+        public Object read(ResultSet rs, int column) throws SQLException {
+            Object value = reader.read(rs, column);
+            return value == null || rs.wasNull() ? null : value;
+        }
+
+        @Override
+        public Object toJdbc(Object value) {
+            return value == null ? null : jdbc.apply(value);
+        }
+    }
+
+    // Primitive without a specialised accessor: SQL NULL reads as zero, as the JDBC getter returns it.
+    private record Primitive(String sqlType, Binder binder, Reader reader) implements TypeConverter {
+        @Override
+        public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+            binder.bind(stmt, index, value);
+        }
+
+        @Override
+        public Object read(ResultSet rs, int column) throws SQLException {
+            return reader.read(rs, column);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.query.Query;
+import com.miniorm.session.AsyncSession;
+import com.miniorm.session.AsyncSession.SessionWork;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class AsyncSessionTest {
+
+    private static final String URL = "jdbc:h2:mem:async;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        factory = new SessionFactory(URL, "sa", "");
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                users.add(new User("user" + i, "user" + i + "@test.com"));
+            }
+            session.saveAll(users);
+            session.commit();
+        }
+    }
+
+    @Test
+    void testWritesCommitAndReadsSeeThem() throws Exception {
+        try (AsyncSession async = factory.openAsyncSession()) {
+            User saved = async.saveAsync(new User("async", "async@test.com")).join();
+            assertNotNull(saved.getId());
+
+            User found = async.findAsync(User.class, saved.getId()).join();
+            assertEquals("async", found.getUsername());
+
+            found.setUsername("renamed");
+            async.updateAsync(found).join();
+            assertEquals("renamed", async.findAsync(User.class, saved.getId()).join().getUsername());
+
+            async.deleteAsync(found).join();
+            assertNull(async.findAsync(User.class, saved.getId()).join());
+        }
+    }
+
+    @Test
+    void testFanOutMergesResultsInOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (AsyncSession async = factory.openAsyncSession(executor)) {
+            List<Query<User>> queries = new ArrayList<>();
+            for (int i = 7; i >= 0; i -= 2) {
+                queries.add(Query.from(User.class).eq("username", "user" + i));
+            }
+            List<User> merged = async.listAllAsync(queries).join();
+            assertEquals(List.of("user7", "user5", "user3", "user1"), merged.stream().map(User::getUsername).toList());
+
+            List<SessionWork<Integer>> counts = List.of(
+                    session -> session.findAll(User.class).size(),
+                    session -> session.findByIds(User.class, List.of(1L, 2L)).size());
+            assertEquals(2, async.fanOut(counts).join().get(1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testFailuresCompleteExceptionallyAndRollBack() {
+        try (AsyncSession async = factory.openAsyncSession()) {
+            CompletionException failure = assertThrows(CompletionException.class, () -> async.supplyAsync(session -> {
+                session.save(new User("rolled-back", "rb@test.com"));
+                throw new IllegalStateException("boom");
+            }).join());
+            assertTrue(failure.getCause() instanceof IllegalStateException);
+
+            List<User> rolledBack = async.listAsync(Query.from(User.class).eq("username", "rolled-back")).join();
+            assertTrue(rolledBack.isEmpty());
+        }
+    }
+}
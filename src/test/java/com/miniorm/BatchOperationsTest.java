@@ -0,0 +1,185 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class BatchOperationsTest {
+
+    private static final String URL = "jdbc:h2:mem:batch;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+        }
+    }
+
+    @Test
+    void testSaveAllAssignsGeneratedIds() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            users.add(new User("user" + i, "user" + i + "@test.com"));
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.setBatchSize(3);
+            session.saveAll(users);
+
+            List<Order> orders = new ArrayList<>();
+            for (User user : users) {
+                orders.add(new Order(10.0, user));
+            }
+            session.saveAll(orders);
+            session.commit();
+
+            for (int i = 0; i < users.size(); i++) {
+                assertEquals(Long.valueOf(i + 1), users.get(i).getId());
+                assertSame(users.get(i), session.find(User.class, users.get(i).getId()));
+                assertNotNull(orders.get(i).getId());
+            }
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            Order order = session.find(Order.class, 7L);
+            assertEquals("user6", order.getUser().getUsername());
+        }
+    }
+
+    @Test
+    void testUpdateAllAndDeleteAll() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        try (MiniSession session = factory.openSession()) {
+            User user = new User("Piyush", "piyush@test.com");
+            session.save(user);
+            for (int i = 0; i < 5; i++) {
+                orders.add(new Order(1.0, user));
+            }
+            session.saveAll(orders);
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.setBatchSize(2);
+            orders.forEach(order -> order.setAmount(42.0));
+            session.updateAll(orders);
+            session.deleteAll(orders.subList(0, 3));
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertNull(session.find(Order.class, orders.get(0).getId()));
+            assertTrue(session.find(Order.class, orders.get(4).getId()).toString().contains("42.0"));
+        }
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM orders")) {
+            rs.next();
+            assertEquals(2, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void testFindByIdsSkipsCachedIdsAndKeepsOrder() throws Exception {
+        List<User> users = new ArrayList<>();
+        try (MiniSession session = factory.openSession()) {
+            for (int i = 0; i < 10; i++) {
+                users.add(new User("user" + i, "user" + i + "@test.com"));
+            }
+            session.saveAll(users);
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.setIdBatchSize(4);
+            User cached = session.find(User.class, 5L);
+
+            List<User> found = session.findByIds(User.class, List.of(9, 5, 1, 2, 3, 4, 6, 7, 42));
+
+            assertEquals(8, found.size());
+            assertEquals("user8", found.get(0).getUsername());
+            assertSame(cached, found.get(1));
+            assertEquals(1 + 2, session.getStatementCache().getHits() + session.getStatementCache().getMisses(),
+                    "8 uncached ids in chunks of 4");
+        }
+    }
+
+    @Test
+    void testStreamReadsLazilyWithoutGrowingIdentityMap() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            User user = new User("Piyush", "piyush@test.com");
+            session.save(user);
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                orders.add(new Order((double) i, user));
+            }
+            session.saveAll(orders);
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession();
+             Stream<Order> stream = session.stream(Order.class, 10)) {
+            List<Order> firstFive = stream.limit(5).toList();
+            assertEquals(5, firstFive.size());
+            assertEquals("Piyush", firstFive.get(4).getUser().getUsername());
+            assertNotSame(firstFive.get(0), session.find(Order.class, firstFive.get(0).getId()));
+        }
+
+        try (MiniSession session = factory.openSession();
+             Stream<Order> stream = session.stream(Order.class)) {
+            assertEquals(25, stream.count());
+        }
+    }
+
+    @Test
+    void testEvictDetachesEntityFromSession() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            User user = new User("Asha", "asha@test.com");
+            session.save(user);
+            session.commit();
+
+            assertSame(user, session.find(User.class, user.getId()));
+            session.evict(user);
+            User reloaded = session.find(User.class, user.getId());
+            assertNotSame(user, reloaded);
+            assertEquals("Asha", reloaded.getUsername());
+
+            session.clear(User.class);
+            assertNotSame(reloaded, session.find(User.class, user.getId()));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.query.Query;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class BulkOperationsTest {
+
+    private static final String URL = "jdbc:h2:mem:bulk;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            User alice = new User("alice", "alice@test.com");
+            User bob = new User("bob", "bob@test.com");
+            session.saveAll(List.of(alice, bob));
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                orders.add(new Order((double) i, i % 2 == 0 ? alice : bob));
+            }
+            session.saveAll(orders);
+            session.commit();
+        }
+    }
+
+    @Test
+    void testUpsertSql() {
+        assertEquals("INSERT INTO orders (id, amount, user_id) VALUES (?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE amount = VALUES(amount), user_id = VALUES(user_id)",
+                MetadataRegistry.getDefault().get(Order.class).getUpsertSql());
+    }
+
+    @Test
+    void testSaveOrUpdateInsertsOrOverwrites() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            User bob = session.find(User.class, 2L);
+            Order detached = new Order(42.0, bob);
+            session.saveOrUpdate(detached);
+            assertNotNull(detached.getId());
+
+            Order order = session.find(Order.class, 1L);
+            order.setAmount(100.0);
+            order.setUser(bob);
+            session.saveOrUpdate(order);
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            Order order = session.find(Order.class, 1L);
+            assertEquals(100.0, order.getAmount());
+            assertEquals("bob", order.getUser().getUsername());
+            assertEquals(42.0, session.find(Order.class, 7L).getAmount());
+        }
+    }
+
+    @Test
+    void testSaveOrUpdateAllMixesInsertsAndUpserts() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<Order> orders = new ArrayList<>(session.findByIds(Order.class, List.of(1L, 2L, 3L)));
+            orders.forEach(order -> order.setAmount(order.getAmount() + 10));
+            User alice = session.find(User.class, 1L);
+            orders.add(new Order(7.0, alice));
+            orders.add(new Order(8.0, alice));
+            session.setBatchSize(2);
+            session.saveOrUpdateAll(orders);
+            session.commit();
+
+            assertEquals(Long.valueOf(8), orders.get(4).getId());
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals(List.of(10.0, 11.0, 12.0, 3.0, 4.0, 5.0, 7.0, 8.0),
+                    session.findAll(Order.class).stream().map(Order::getAmount).toList());
+        }
+    }
+
+    @Test
+    void testUpdateWhereEvictsCachedEntities() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            User alice = session.find(User.class, 1L);
+            User bob = session.find(User.class, 2L);
+            Order before = session.find(Order.class, 2L);
+
+            Map<String, Object> assignments = new LinkedHashMap<>();
+            assignments.put("amount", 0.0);
+            assignments.put("user", alice);
+            int rows = session.updateWhere(Query.from(Order.class).eq("user", bob).ge("amount", 3.0), assignments);
+            assertEquals(2, rows);
+
+            Order after = session.find(Order.class, 4L);
+            assertNotSame(before, session.find(Order.class, 2L));
+            assertEquals(0.0, after.getAmount());
+            assertEquals("alice", after.getUser().getUsername());
+            assertEquals(1.0, session.find(Order.class, 2L).getAmount());
+            session.commit();
+        }
+    }
+
+    @Test
+    void testDeleteWhereEvictsCachedEntities() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.findAll(Order.class);
+            assertEquals(3, session.deleteWhere(Query.from(Order.class).lt("amount", 3.0)));
+            assertNull(session.find(Order.class, 1L));
+            assertEquals(3, session.findAll(Order.class).size());
+            session.commit();
+        }
+    }
+
+    @Test
+    void testReadOnlySessionRejectsBulkWritesBeforeRunningThem() throws Exception {
+        try (MiniSession session = factory.openReadOnlySession()) {
+            assertThrows(IllegalStateException.class, () -> session.deleteWhere(Query.from(Order.class)));
+            assertThrows(IllegalStateException.class,
+                    () -> session.updateWhere(Query.from(Order.class), Map.of("amount", 0.0)));
+            assertEquals(6, session.findAll(Order.class).size());
+            assertEquals(1.0, session.find(Order.class, 2L).getAmount());
+        }
+    }
+
+    @Test
+    void testBulkOperationsRejectPagingAndIdChanges() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> session.deleteWhere(Query.from(Order.class).orderBy("id").limit(1)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> session.updateWhere(Query.from(Order.class), Map.of("id", 5L)));
+        }
+    }
+}
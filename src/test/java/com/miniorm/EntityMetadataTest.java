@@ -0,0 +1,141 @@
+package com.miniorm;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.miniorm.annotations.EnumType;
+import com.miniorm.annotations.FetchMode;
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.metadata.EntityMapping;
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.metadata.MethodHandleAccessStrategy;
+import com.miniorm.metadata.PropertyAccessStrategy;
+import com.miniorm.metadata.ReflectionAccessStrategy;
+import com.miniorm.processor.EntityMetadataProcessor;
+import com.miniorm.types.TypeConverter;
+import com.miniorm.types.TypeConverters;
+
+class EntityMetadataTest {
+
+    @Test
+    void testSqlTemplatesArePrecomputed() {
+        EntityMetadata meta = new EntityMetadata(Order.class);
+
+        assertEquals("id", meta.getIdColumnName());
+        assertEquals("amount", meta.getColumnNames().get(0));
+        assertEquals("user_id", meta.getForeignKeyColumnNames().get(0));
+        assertEquals("INSERT INTO orders (amount, user_id) VALUES (?, ?)", meta.getInsertSql());
+        assertEquals("UPDATE orders SET amount = ?, user_id = ? WHERE id = ?", meta.getUpdateSql());
+        assertEquals("DELETE FROM orders WHERE id = ?", meta.getDeleteSql());
+        assertEquals("SELECT id, amount, user_id FROM orders WHERE id = ?", meta.getSelectByIdSql());
+        assertEquals(3, meta.getForeignKeyColumnIndex(0));
+        assertSame(meta.getInsertSql(), meta.getInsertSql());
+    }
+
+    @Test
+    void testAccessStrategiesReadAndWriteFields() {
+        for (PropertyAccessStrategy strategy : new PropertyAccessStrategy[] {
+                ReflectionAccessStrategy.INSTANCE, MethodHandleAccessStrategy.INSTANCE }) {
+            EntityMetadata meta = new EntityMetadata(User.class, strategy);
+            User user = (User) meta.newInstance();
+
+            meta.getIdAccessor().setLong(user, 7L);
+            meta.getColumnAccessors().get(0).set(user, "Piyush");
+
+            assertEquals(7L, user.getId());
+            assertEquals("Piyush", user.getUsername());
+            assertEquals(7L, meta.getId(user));
+        }
+    }
+
+    @Test
+    void testGeneratedMappingMatchesReflection() {
+        for (Class<?> entity : new Class<?>[] { User.class, Order.class, ShardingTest.Purchase.class }) {
+            EntityMetadata generated = MetadataRegistry.getDefault().get(entity);
+            EntityMetadata reflected = new EntityMetadata(entity);
+            assertTrue(generated.isGenerated(), entity.getName());
+            assertFalse(reflected.isGenerated());
+
+            assertEquals(reflected.getTableName(), generated.getTableName());
+            assertEquals(reflected.getColumnNames(), generated.getColumnNames());
+            assertEquals(reflected.getForeignKeyColumnNames(), generated.getForeignKeyColumnNames());
+            assertEquals(reflected.getIdType(), generated.getIdType());
+            assertEquals(reflected.getSelectByIdSql(), generated.getSelectByIdSql());
+            assertEquals(reflected.getInsertSql(), generated.getInsertSql());
+            assertEquals(reflected.getUpsertSql(), generated.getUpsertSql());
+            assertEquals(reflected.getDeleteSql(), generated.getDeleteSql());
+            assertEquals(reflected.isShardKeyReference(), generated.isShardKeyReference());
+            for (int i = 0; i < reflected.getForeignKeyCount(); i++) {
+                assertEquals(reflected.getForeignKeyTarget(i), generated.getForeignKeyTarget(i));
+                assertEquals(reflected.getForeignKeyFetchMode(i), generated.getForeignKeyFetchMode(i));
+            }
+        }
+    }
+
+    @Test
+    void testGeneratedAccessorsReadAndWriteFields() throws Exception {
+        EntityMetadata meta = MetadataRegistry.getDefault().get(Order.class);
+        User user = new User("Piyush", "p@test.com");
+        Order order = (Order) meta.newInstance();
+
+        meta.getIdAccessor().setLong(order, 9L);
+        meta.getColumnAccessors().get(0).set(order, 12.5);
+        meta.getForeignKeyAccessors().get(0).set(order, user);
+
+        assertEquals(9L, order.getId());
+        assertEquals(12.5, meta.getColumnAccessors().get(0).getDouble(order));
+        assertSame(user, order.getUser());
+        assertEquals(Double.class, meta.getPropertyType("amount"));
+        assertEquals(Order.class.getDeclaredField("amount"), meta.getPropertyField("amount"));
+    }
+
+    @Test
+    void testGeneratedMappingsResolveConvertersWhenFirstMapped() throws Exception {
+        EntityMapping mapping = (EntityMapping) Class.forName(User.class.getName() + "_Metadata").getDeclaredConstructor().newInstance();
+        TypeConverter strings = TypeConverters.forType(String.class);
+        TypeConverter custom = TypeConverters.forEnum(FetchMode.class, EnumType.STRING);
+        TypeConverters.register(String.class, custom);
+        try {
+            assertSame(custom, mapping.columns().get(0).converter());
+        } finally {
+            TypeConverters.register(String.class, strings);
+        }
+    }
+
+    @Test
+    void testProcessorKeepsMappingsFromEarlierBuilds(@TempDir Path dir) throws Exception {
+        Path sources = Files.createDirectories(dir.resolve("src/demo"));
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        for (String name : List.of("Alpha", "Beta")) {
+            Files.writeString(sources.resolve(name + ".java"), "package demo;\n"
+                    + "@com.miniorm.annotations.Entity public class " + name + " {\n"
+                    + "    @com.miniorm.annotations.Id public Long id;\n"
+                    + "    public " + name + "() {}\n}\n");
+        }
+
+        // Two separate builds into one output directory, as an incremental compile would do.
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classpath = classes + File.pathSeparator + System.getProperty("java.class.path");
+        for (String name : List.of("Alpha", "Beta")) {
+            assertEquals(0, compiler.run(null, null, null, "-proc:only", "-processor", EntityMetadataProcessor.class.getName(),
+                    "-classpath", classpath, "-d", classes.toString(), sources.resolve(name + ".java").toString()));
+        }
+
+        assertEquals(List.of("demo.Alpha_Metadata", "demo.Beta_Metadata"),
+                Files.readAllLines(classes.resolve("META-INF/services/" + EntityMapping.class.getName())));
+    }
+}
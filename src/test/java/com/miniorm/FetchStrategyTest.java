@@ -0,0 +1,194 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.FetchMode;
+import com.miniorm.annotations.FetchType;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.JoinColumn;
+import com.miniorm.annotations.ManyToOne;
+import com.miniorm.annotations.Table;
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.session.LazyReference;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class FetchStrategyTest {
+
+    private static final String URL = "jdbc:h2:mem:fetch;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @Entity
+    @Table(name = "orders")
+    static class BatchOrder {
+        @Id
+        Long id;
+
+        @Column(name = "amount")
+        Double amount;
+
+        @ManyToOne(fetchMode = FetchMode.BATCH, batchSize = 2)
+        @JoinColumn(name = "user_id")
+        User user;
+    }
+
+    @Entity
+    @Table(name = "orders")
+    static class JoinOrder {
+        @Id
+        Long id;
+
+        @Column(name = "amount")
+        Double amount;
+
+        @ManyToOne(fetchMode = FetchMode.JOIN)
+        @JoinColumn(name = "user_id")
+        User user;
+    }
+
+    @Entity
+    @Table(name = "orders")
+    static class LazyOrder {
+        @Id
+        Long id;
+
+        @Column(name = "amount")
+        Double amount;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "user_id")
+        LazyReference<User> user;
+    }
+
+    @BeforeAll
+    static void setup() throws Exception {
+        factory = new SessionFactory(URL, "sa", "");
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                users.add(new User("user" + i, "user" + i + "@test.com"));
+            }
+            session.saveAll(users);
+
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                orders.add(new Order((double) i, users.get(i % users.size())));
+            }
+            orders.add(new Order(99.0, null));
+            session.saveAll(orders);
+            session.commit();
+        }
+    }
+
+    @Test
+    void testSelectFetchIssuesOneQueryPerParent() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<Order> orders = session.findAll(Order.class);
+
+            assertEquals(21, orders.size());
+            assertEquals(1 + 5, executedStatements(session));
+        }
+    }
+
+    @Test
+    void testBatchFetchLoadsParentsWithInQueries() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<BatchOrder> orders = session.findAll(BatchOrder.class);
+
+            assertEquals(21, orders.size());
+            assertEquals("user1", orders.get(1).user.getUsername());
+            assertSame(orders.get(0).user, orders.get(5).user);
+            assertNull(orders.get(20).user);
+            assertEquals(1 + 3, executedStatements(session), "5 distinct users in chunks of 2");
+        }
+    }
+
+    @Test
+    void testBatchFetchCountsOneCacheLookupPerReference() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.findAll(BatchOrder.class);
+            assertEquals(0, session.getFirstLevelCache().getHits());
+        }
+        try (MiniSession session = factory.openSession()) {
+            User cached = session.find(User.class, 1L);
+            List<BatchOrder> orders = session.findAll(BatchOrder.class);
+            assertSame(cached, orders.get(0).user);
+            assertEquals(4, session.getFirstLevelCache().getHits(), "one hit per order of the already loaded user");
+        }
+    }
+
+    @Test
+    void testJoinFetchHydratesBothSidesFromOneResultSet() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<JoinOrder> orders = session.findAll(JoinOrder.class);
+
+            assertEquals(21, orders.size());
+            assertEquals("user3", orders.get(3).user.getUsername());
+            assertSame(orders.get(3).user, orders.get(8).user);
+            assertNull(orders.get(20).user);
+            assertSame(orders.get(3).user, session.find(User.class, orders.get(3).user.getId()));
+
+            JoinOrder single = session.find(JoinOrder.class, 2L);
+            assertSame(orders.get(1), single);
+            assertEquals(1, executedStatements(session));
+        }
+    }
+
+    @Test
+    void testLazyReferenceLoadsOnFirstAccess() throws Exception {
+        LazyOrder detached;
+        try (MiniSession session = factory.openSession()) {
+            List<LazyOrder> orders = session.findAll(LazyOrder.class);
+
+            assertEquals(21, orders.size());
+            assertEquals(1, executedStatements(session));
+            assertFalse(orders.get(2).user.isLoaded());
+            assertEquals(3L, orders.get(2).user.getId());
+
+            assertEquals("user2", orders.get(2).user.get().getUsername());
+            assertSame(orders.get(2).user.get(), orders.get(7).user.get());
+            assertEquals(2, executedStatements(session));
+
+            LazyOrder copy = new LazyOrder();
+            copy.amount = 1.0;
+            copy.user = LazyReference.of(orders.get(2).user.get());
+            session.save(copy);
+            assertSame(orders.get(2).user.get(), session.find(Order.class, copy.id).getUser());
+            session.rollback();
+
+            detached = orders.get(3);
+        }
+
+        assertThrows(IllegalStateException.class, () -> detached.user.get());
+    }
+
+    private static long executedStatements(MiniSession session) {
+        return session.getStatementCache().getHits() + session.getStatementCache().getMisses();
+    }
+}
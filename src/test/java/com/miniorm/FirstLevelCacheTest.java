@@ -0,0 +1,79 @@
+package com.miniorm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.cache.FirstLevelCache;
+import com.miniorm.cache.FirstLevelCache.ReferenceMode;
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+
+class FirstLevelCacheTest {
+
+    @Test
+    void testLongIdsMatchHashMapUnderChurn() {
+        FirstLevelCache cache = new FirstLevelCache();
+        Map<Long, User> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                cache.evict(User.class, id);
+                expected.remove(id);
+            } else {
+                User user = new User("u" + id, null);
+                cache.put(User.class, id, user);
+                expected.put(id, user);
+            }
+        }
+
+        assertEquals(expected.size(), cache.size(User.class));
+        for (long id = 0; id < 2_000; id++) {
+            assertSame(expected.get(id), cache.get(User.class, id), "id " + id);
+        }
+    }
+
+    @Test
+    void testIntegralIdTypesShareKeysAndOtherIdsFallBack() {
+        FirstLevelCache cache = new FirstLevelCache();
+        User user = new User("a", null);
+        cache.put(User.class, 7, user);
+        assertSame(user, cache.get(User.class, 7L));
+        assertSame(user, cache.get(User.class, Long.valueOf(7)));
+
+        User named = new User("b", null);
+        cache.put(User.class, "b-key", named);
+        assertSame(named, cache.get(User.class, "b-key"));
+        assertEquals(2, cache.size());
+
+        cache.put(Order.class, 7L, new Order());
+        cache.clear(User.class);
+        assertNull(cache.get(User.class, 7L));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testWeakModeReleasesUnreferencedEntities() throws Exception {
+        FirstLevelCache cache = new FirstLevelCache(ReferenceMode.WEAK);
+        User kept = new User("kept", null);
+        cache.put(User.class, 0L, kept);
+        for (long id = 1; id <= 1_000; id++) {
+            cache.put(User.class, id, new User("u" + id, null));
+        }
+
+        for (int attempt = 0; attempt < 50 && cache.size(User.class) > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, cache.size(User.class));
+        assertSame(kept, cache.get(User.class, 0L));
+    }
+}
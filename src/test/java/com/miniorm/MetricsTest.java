@@ -0,0 +1,152 @@
+package com.miniorm;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import com.miniorm.example.User;
+import com.miniorm.metrics.InMemoryMetrics;
+import com.miniorm.metrics.InMemoryMetrics.TimerSnapshot;
+import com.miniorm.metrics.MetricsRecorder.Phase;
+import com.miniorm.query.Query;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+class MetricsTest {
+
+    private static final String URL = "jdbc:h2:mem:metrics;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+    private static final InMemoryMetrics metrics = new InMemoryMetrics();
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+        factory.setMetrics(metrics);
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        factory.setSlowQueryThreshold(null);
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.saveAll(List.of(new User("alice", "a@test.com"), new User("bob", "b@test.com"), new User("carol", "c@test.com")));
+            session.commit();
+        }
+        metrics.reset();
+    }
+
+    @Test
+    void testStatementPhasesAndRows() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.find(User.class, 1L);
+            session.find(User.class, 2L);
+            assertEquals(2, session.list(Query.from(User.class).ne("username", "bob")).size());
+            session.save(new User("dave", "d@test.com"));
+            session.commit();
+        }
+
+        TimerSnapshot find = metrics.getTimer("users", "find", Phase.EXECUTE);
+        assertEquals(2, find.count());
+        assertTrue(find.maxNanos() > 0 && find.totalNanos() >= find.maxNanos());
+        assertEquals(1, metrics.getTimer("users", "find", Phase.PREPARE).count());
+        assertEquals(2, metrics.getTimer("users", "find", Phase.HYDRATE).count());
+        assertEquals(2, metrics.getRows("users", "find"));
+        assertEquals(2, metrics.getRows("users", "query"));
+        assertEquals(1, metrics.getRows("users", "insert"));
+        assertFalse(metrics.getTimers(Phase.EXECUTE).isEmpty());
+        assertTrue(metrics.getPoolWaitCount() > 0);
+    }
+
+    @Test
+    void testFirstLevelCacheHitRatio() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.find(User.class, 1L);
+            session.find(User.class, 1L);
+            assertEquals(1, session.getFirstLevelCache().getHits());
+        }
+        assertTrue(metrics.getCacheHitRatio(InMemoryMetrics.FIRST_LEVEL_CACHE) > 0);
+
+        try (MiniSession session = factory.openSession()) {
+            session.find(User.class, 1L);
+            assertEquals(2, session.findByIds(User.class, List.of(1L, 2L)).size());
+            assertEquals(1, session.getFirstLevelCache().getHits());
+        }
+    }
+
+    @Test
+    void testPoolTimeoutsByPool() {
+        metrics.recordPoolTimeout("primary");
+        metrics.recordPoolTimeout("primary");
+        metrics.recordPoolTimeout("replica-0");
+
+        assertEquals(3, metrics.getPoolTimeouts());
+        assertEquals(2, metrics.getPoolTimeouts("primary"));
+        assertEquals(1, metrics.getPoolTimeouts("replica-0"));
+        assertEquals(0, metrics.getPoolTimeouts("replica-1"));
+    }
+
+    @Test
+    void testSlowQueryLogIncludesParameters() throws Exception {
+        Logger slowLog = (Logger) LoggerFactory.getLogger("com.miniorm.SlowQueryLog");
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        slowLog.addAppender(appender);
+        try {
+            factory.setSlowQueryThreshold(Duration.ZERO);
+            try (MiniSession session = factory.openSession()) {
+                session.find(User.class, 2L);
+            }
+        } finally {
+            slowLog.detachAppender(appender);
+        }
+
+        assertEquals(1, metrics.getSlowQueries("users", "find"));
+        assertEquals(1, appender.list.size());
+        String message = appender.list.get(0).getFormattedMessage();
+        assertTrue(message.startsWith("Slow find on users"), message);
+        assertTrue(message.endsWith("parameters [2]"), message);
+    }
+
+    @Test
+    void testMetricsOverJmx() throws Exception {
+        ObjectName name = metrics.registerMBean("metrics-test");
+        try {
+            try (MiniSession session = factory.openSession()) {
+                session.findAll(User.class);
+            }
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            TabularData counts = (TabularData) server.getAttribute(name, "ExecuteCounts");
+            assertEquals(1L, counts.get(new Object[] {"users.find-all"}).get("value"));
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0, metrics.getTimer("users", "find-all", Phase.EXECUTE).count());
+        } finally {
+            InMemoryMetrics.unregisterMBean(name);
+        }
+    }
+}
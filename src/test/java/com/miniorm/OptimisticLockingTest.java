@@ -0,0 +1,169 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.Table;
+import com.miniorm.annotations.Version;
+import com.miniorm.query.Query;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.OptimisticLockException;
+import com.miniorm.session.SessionFactory;
+
+class OptimisticLockingTest {
+
+    private static final String URL = "jdbc:h2:mem:locking;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @Entity
+    @Table(name = "accounts")
+    public static class Account {
+        @Id
+        private Long id;
+
+        @Column(name = "balance")
+        private Double balance;
+
+        @Version
+        private Long version;
+
+        public Account() {}
+        public Account(Double balance) { this.balance = balance; }
+        public Long getId() { return id; }
+        public Double getBalance() { return balance; }
+        public void setBalance(Double balance) { this.balance = balance; }
+        public Long getVersion() { return version; }
+    }
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS accounts");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(Account.class);
+            session.saveAll(List.of(new Account(100.0), new Account(200.0), new Account(300.0)));
+            session.commit();
+        }
+    }
+
+    private static long storedVersion(long id) throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM accounts WHERE id = " + id)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    void testWritesBumpTheVersion() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            Account account = session.find(Account.class, 1L);
+            assertEquals(0L, account.getVersion());
+
+            account.setBalance(150.0);
+            session.update(account);
+            assertEquals(1L, account.getVersion());
+
+            session.pipeline().update(account).execute();
+            assertEquals(2L, account.getVersion());
+
+            session.updateWhere(Query.from(Account.class).eq("id", 2L), Map.of("balance", 0.0));
+            session.commit();
+        }
+        assertEquals(2L, storedVersion(1));
+        assertEquals(1L, storedVersion(2));
+    }
+
+    @Test
+    void testStaleUpdateAndDeleteThrow() throws Exception {
+        try (MiniSession first = factory.openSession(); MiniSession second = factory.openSession()) {
+            Account mine = first.find(Account.class, 1L);
+            Account theirs = second.find(Account.class, 1L);
+
+            theirs.setBalance(50.0);
+            second.update(theirs);
+            second.commit();
+
+            mine.setBalance(500.0);
+            OptimisticLockException conflict = assertThrows(OptimisticLockException.class, () -> first.update(mine));
+            assertEquals(1L, conflict.getId());
+            assertEquals(0L, conflict.getVersion());
+            assertThrows(OptimisticLockException.class, () -> first.delete(mine));
+            first.rollback();
+
+            Account reloaded = first.find(Account.class, 1L);
+            assertNotSame(mine, reloaded);
+            assertEquals(50.0, reloaded.getBalance());
+            first.delete(reloaded);
+            first.commit();
+            assertNull(first.find(Account.class, 1L));
+        }
+    }
+
+    @Test
+    void testBatchAppliesFreshRowsThenThrows() throws Exception {
+        try (MiniSession first = factory.openSession(); MiniSession second = factory.openSession()) {
+            List<Account> mine = first.findAll(Account.class);
+            Account theirs = second.find(Account.class, 2L);
+            second.update(theirs);
+            second.commit();
+
+            mine.forEach(account -> account.setBalance(account.getBalance() + 1));
+            assertThrows(OptimisticLockException.class, () -> first.updateAll(mine));
+            assertEquals(1L, mine.get(0).getVersion());
+            assertEquals(0L, mine.get(1).getVersion());
+            assertEquals(1L, mine.get(2).getVersion());
+            first.rollback();
+        }
+    }
+
+    @Test
+    void testUnitOfWorkFlushChecksVersion() throws Exception {
+        try (MiniSession first = factory.openSession(); MiniSession second = factory.openSession()) {
+            first.setUnitOfWork(true);
+            Account mine = first.find(Account.class, 3L);
+            mine.setBalance(1.0);
+            first.commit();
+            assertEquals(1L, mine.getVersion());
+            first.commit();
+            assertEquals(1L, storedVersion(3));
+
+            Account theirs = second.find(Account.class, 3L);
+            second.update(theirs);
+            second.commit();
+
+            mine.setBalance(2.0);
+            assertThrows(OptimisticLockException.class, first::commit);
+            first.rollback();
+        }
+        assertThrows(IllegalArgumentException.class, () -> {
+            try (MiniSession session = factory.openSession()) {
+                session.saveOrUpdate(session.find(Account.class, 3L));
+            }
+        });
+    }
+}
@@ -0,0 +1,171 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.query.Query;
+import com.miniorm.query.SqlBuilder;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class PipelineTest {
+
+    private static final String URL = "jdbc:h2:mem:pipeline;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+        }
+    }
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new User("user" + i, "user" + i + "@test.com"));
+        }
+        return users;
+    }
+
+    @Test
+    void testMultiRowInsertSql() {
+        assertEquals("INSERT INTO orders (amount, user_id) VALUES (?, ?), (?, ?), (?, ?)",
+                SqlBuilder.buildMultiRowInsert(MetadataRegistry.getDefault().get(Order.class), 3));
+    }
+
+    @Test
+    void testMultiRowInsertAssignsKeysAcrossChunks() throws Exception {
+        List<User> users = users(10);
+        try (MiniSession session = factory.openSession()) {
+            session.setMultiRowInsert(true);
+            session.setMaxRowsPerInsert(4);
+            session.saveAll(users);
+
+            List<Order> orders = new ArrayList<>();
+            for (User user : users) {
+                orders.add(new Order(1.0, user));
+            }
+            // Two order rows fit in the 200 bytes left after the headroom.
+            session.setMaxPacketSize(1024 + 200);
+            session.saveAll(orders);
+            session.commit();
+
+            for (int i = 0; i < users.size(); i++) {
+                assertEquals(Long.valueOf(i + 1), users.get(i).getId());
+                assertEquals(Long.valueOf(i + 1), orders.get(i).getId());
+            }
+            // 4-row and 2-row user templates, then one 2-row order template
+            assertEquals(3, session.getStatementCache().getMisses());
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            Order last = session.find(Order.class, 10L);
+            assertEquals("user9", last.getUser().getUsername());
+        }
+    }
+
+    @Test
+    void testPipelineBatchesRunsOfSameSql() throws Exception {
+        List<User> users = users(4);
+        try (MiniSession session = factory.openSession()) {
+            session.saveAll(users);
+            users.get(0).setUsername("renamed");
+
+            int[] counts = session.pipeline()
+                    .update(users.get(0))
+                    .delete(users.get(1))
+                    .delete(users.get(2))
+                    .add("UPDATE users SET email = ? WHERE id = ?", "missing@test.com", 99L)
+                    .execute();
+            session.commit();
+
+            assertArrayEquals(new int[] {1, 1, 1, 0}, counts);
+            assertNull(session.find(User.class, 2L));
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals("renamed", session.find(User.class, 1L).getUsername());
+            assertNull(session.find(User.class, 3L));
+            assertEquals("user3", session.find(User.class, 4L).getUsername());
+        }
+    }
+
+    @Test
+    void testPipelineSendsMultiQueries() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.saveAll(users(3));
+            session.setMultiQueries(true);
+
+            MiniSession.Pipeline pipeline = session.pipeline();
+            for (int i = 1; i <= 3; i++) {
+                pipeline.add("UPDATE users SET username = ? WHERE id = ?", "multi" + i, (long) i);
+            }
+            assertEquals(3, pipeline.execute().length);
+            assertEquals(0, pipeline.size());
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals("multi1", session.find(User.class, 1L).getUsername());
+            assertEquals("multi3", session.find(User.class, 3L).getUsername());
+        }
+    }
+
+    @Test
+    void testRawStatementsInvalidateCachedQueries() throws Exception {
+        SessionFactory cached = new SessionFactory(URL, "sa", "");
+        cached.enableQueryCache();
+        Query<User> renamed = Query.from(User.class).eq("username", "renamed").cacheable();
+        try (MiniSession session = cached.openSession()) {
+            session.saveAll(users(2));
+            session.commit();
+            assertEquals(0, session.list(renamed).size());
+        }
+
+        try (MiniSession session = cached.openSession()) {
+            session.pipeline().add("UPDATE users SET username = ? WHERE id = ?", "renamed", 1L).execute();
+            assertEquals(1, session.list(renamed).size());
+            session.commit();
+        }
+        try (MiniSession session = cached.openSession()) {
+            assertEquals(1, session.list(renamed).size());
+            session.pipeline().add(User.class, "UPDATE users SET username = ? WHERE id = ?", "renamed", 2L).execute();
+            session.commit();
+        }
+        try (MiniSession session = cached.openSession()) {
+            assertEquals(2, session.list(renamed).size());
+        }
+
+        try (MiniSession session = cached.openReadOnlySession()) {
+            assertThrows(IllegalStateException.class, () -> session.pipeline().add("DELETE FROM users"));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.annotations.EvictionPolicy;
+import com.miniorm.cache.CacheRegionConfig;
+import com.miniorm.cache.CacheStatistics;
+import com.miniorm.cache.QueryResultCache;
+import com.miniorm.example.User;
+import com.miniorm.query.Query;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class QueryCacheTest {
+
+    private static final String URL = "jdbc:h2:mem:querycache;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+    private static QueryResultCache queryCache;
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+        queryCache = factory.enableQueryCache();
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+        queryCache.configureRegion(QueryResultCache.DEFAULT_REGION, new CacheRegionConfig(100, null, EvictionPolicy.LRU));
+        queryCache.configureRegion("small", new CacheRegionConfig(2, null, EvictionPolicy.LRU));
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            for (int i = 0; i < 4; i++) {
+                session.save(new User("user" + i, (i % 2 == 0 ? "even" : "odd") + i + "@test.com"));
+            }
+            session.commit();
+        }
+    }
+
+    private static Query<User> evens() {
+        return Query.from(User.class).like("email", "even%").orderBy("id").cacheable();
+    }
+
+    // Bypasses the session, so only a real query execution can see this row.
+    private static void insertBehindTheCache(String username, String email) throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO users (username, email) VALUES ('" + username + "', '" + email + "')");
+        }
+    }
+
+    private static List<String> usernames(List<User> users) {
+        return users.stream().map(User::getUsername).toList();
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            assertEquals(List.of("user0", "user2"), usernames(session.list(evens())));
+        }
+        insertBehindTheCache("hidden", "even9@test.com");
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals(List.of("user0", "user2"), usernames(session.list(evens())));
+            assertEquals(List.of("user1"), usernames(session.list(Query.from(User.class).eq("username", "user1").cacheable())));
+            assertEquals(3, session.list(Query.from(User.class).like("email", "even%")).size());
+        }
+
+        CacheStatistics stats = queryCache.getStatistics(QueryResultCache.DEFAULT_REGION);
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+    }
+
+    @Test
+    void testWritesInvalidateCachedResults() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.list(evens());
+        }
+        insertBehindTheCache("hidden", "even9@test.com");
+
+        try (MiniSession session = factory.openSession()) {
+            User user1 = session.find(User.class, 2L);
+            user1.setUsername("renamed");
+            session.update(user1);
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals(List.of("user0", "user2", "hidden"), usernames(session.list(evens())));
+            session.deleteAll(session.list(evens()));
+            assertEquals(List.of(), session.list(evens()));
+            session.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals(List.of(), session.list(evens()));
+        }
+    }
+
+    @Test
+    void testUncommittedWritesAreNotShared() throws Exception {
+        try (MiniSession writer = factory.openSession()) {
+            writer.save(new User("pending", "even8@test.com"));
+            assertEquals(3, writer.list(evens()).size());
+
+            try (MiniSession reader = factory.openSession()) {
+                assertEquals(2, reader.list(evens()).size());
+            }
+            writer.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals(3, session.list(evens()).size());
+        }
+    }
+
+    @Test
+    void testRegionIsBounded() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            for (int i = 0; i < 4; i++) {
+                session.list(Query.from(User.class).eq("username", "user" + i).cacheable("small"));
+            }
+        }
+
+        CacheStatistics stats = queryCache.getStatistics("small");
+        assertEquals(2, stats.size());
+        assertEquals(2, stats.evictions());
+        assertEquals(4, stats.puts());
+    }
+
+    @Test
+    void testArrayParametersMatchByValue() {
+        QueryResultCache cache = new QueryResultCache();
+        String sql = "SELECT id FROM products WHERE sku = ?";
+        cache.put(QueryResultCache.DEFAULT_REGION, "products", cache.getTableVersion("products"), sql,
+                List.of(new byte[] { 1, 2, 3 }), List.of(7L));
+
+        assertEquals(List.of(7L), cache.get(QueryResultCache.DEFAULT_REGION, "products", sql, List.of(new byte[] { 1, 2, 3 })));
+        assertNull(cache.get(QueryResultCache.DEFAULT_REGION, "products", sql, List.of(new byte[] { 1, 2, 4 })));
+    }
+}
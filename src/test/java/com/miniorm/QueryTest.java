@@ -0,0 +1,198 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.query.CompiledQuery;
+import com.miniorm.query.Query;
+import com.miniorm.query.QueryCompiler;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class QueryTest {
+
+    private static final String URL = "jdbc:h2:mem:query;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+    private static List<User> users = new ArrayList<>();
+
+    @BeforeAll
+    static void setup() throws Exception {
+        factory = new SessionFactory(URL, "sa", "");
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            for (int i = 0; i < 6; i++) {
+                users.add(new User("user" + i, i % 2 == 0 ? "even" + i + "@test.com" : "odd" + i + "@test.com"));
+            }
+            session.saveAll(users);
+
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                orders.add(new Order((double) (i % 4), users.get(i % 3)));
+            }
+            session.saveAll(orders);
+            session.commit();
+        }
+    }
+
+    @Test
+    void testWhereOrderLimitOffset() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<User> evens = session.list(Query.from(User.class)
+                    .like("email", "even%")
+                    .orderByDesc("id")
+                    .limit(2)
+                    .offset(1));
+
+            assertEquals(2, evens.size());
+            assertEquals("user2", evens.get(0).getUsername());
+            assertEquals("user0", evens.get(1).getUsername());
+            assertSame(evens.get(0), session.find(User.class, evens.get(0).getId()));
+
+            List<User> some = session.list(Query.from(User.class).in("id", List.of(1L, 3L, 5L)).orderBy("id"));
+            assertEquals(List.of("user0", "user2", "user4"), some.stream().map(User::getUsername).toList());
+        }
+    }
+
+    @Test
+    void testFirstLeavesTheQueryUntouched() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            Query<User> evens = Query.from(User.class).like("email", "even%").orderBy("id");
+            assertEquals("user0", session.first(evens).getUsername());
+            assertNull(evens.getLimit());
+            assertEquals(3, session.list(evens).size());
+        }
+    }
+
+    @Test
+    void testReferenceParameterAndKeysetPagination() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<Order> firstPage = session.list(Query.from(Order.class)
+                    .eq("user", users.get(1))
+                    .orderBy("amount").orderBy("id")
+                    .limit(2));
+            assertEquals(2, firstPage.size());
+
+            Order last = firstPage.get(1);
+            List<Order> nextPage = session.list(Query.from(Order.class)
+                    .eq("user", users.get(1))
+                    .orderBy("amount").orderBy("id")
+                    .after(last.getAmount(), last.getId())
+                    .limit(10));
+
+            assertEquals(2, nextPage.size());
+            List<Order> all = session.list(Query.from(Order.class).eq("user", users.get(1)).orderBy("amount").orderBy("id"));
+            assertEquals(all.subList(2, 4), nextPage);
+
+            // The keyset is checked against the orderings the query ends up with, not those present at after().
+            assertEquals(nextPage, session.list(Query.from(Order.class).eq("user", users.get(1))
+                    .after(last.getAmount(), last.getId()).orderBy("amount").orderBy("id")));
+            assertThrows(IllegalArgumentException.class, () -> session.list(Query.from(Order.class)
+                    .orderBy("amount").after(last.getAmount()).orderBy("id")));
+            assertThrows(IllegalArgumentException.class, () -> session.list(Query.from(Order.class).after(1L)));
+        }
+    }
+
+    @Test
+    void testProjectionRows() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<Object[]> rows = session.listRows(Query.from(User.class).select("username", "email").eq("id", 2L));
+
+            assertEquals(1, rows.size());
+            assertArrayEquals(new Object[] { "user1", "odd1@test.com" }, rows.get(0));
+            assertThrows(IllegalArgumentException.class, () -> session.list(Query.from(User.class).select("username")));
+        }
+    }
+
+    record UserSummary(String username, String email) {}
+
+    record OrderAmount(long id, double amount) {}
+
+    record ContactView(String email, String username) {}
+
+    interface EmailView {
+        String getEmail();
+    }
+
+    @Test
+    void testProjectionIntoRecordsAndInterfaces() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<UserSummary> summaries = session.list(Query.from(User.class).like("email", "odd%").orderBy("id"), UserSummary.class);
+            assertEquals(List.of(new UserSummary("user1", "odd1@test.com"), new UserSummary("user3", "odd3@test.com"),
+                    new UserSummary("user5", "odd5@test.com")), summaries);
+
+            List<OrderAmount> amounts = session.list(Query.from(Order.class).select("id", "amount").eq("id", 4L), OrderAmount.class);
+            assertEquals(new OrderAmount(4L, 3.0), amounts.get(0));
+
+            Query<User> user4 = Query.from(User.class).eq("username", "user4");
+            List<EmailView> emails = session.list(user4, EmailView.class);
+            assertEquals("even4@test.com", emails.get(0).getEmail());
+            assertFalse(user4.isProjection());
+
+            assertEquals(3, session.getStatementCache().getHits() + session.getStatementCache().getMisses(),
+                    "Projections should not trigger any entity loads");
+        }
+    }
+
+    @Test
+    void testRecordComponentsMatchSelectedPropertiesByName() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<ContactView> contacts = session.list(Query.from(User.class).select("username", "email").eq("id", 2L), ContactView.class);
+            assertEquals(List.of(new ContactView("odd1@test.com", "user1")), contacts);
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> session.list(Query.from(User.class).select("username", "id").eq("id", 2L), ContactView.class));
+        }
+    }
+
+    @Test
+    void testNullIntoPrimitiveProjectionFailsClearly() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            // Left uncommitted so the other tests never see the row.
+            session.save(new Order(null, null));
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> session.list(Query.from(Order.class).select("id", "amount").isNull("amount"), OrderAmount.class));
+            assertTrue(e.getMessage().contains("OrderAmount.amount"), e.getMessage());
+        }
+    }
+
+    @Test
+    void testPlansAreCachedByShape() {
+        QueryCompiler compiler = new QueryCompiler(MetadataRegistry.getDefault());
+
+        CompiledQuery first = compiler.compile(Query.from(User.class).eq("username", "a").orderBy("id").limit(5));
+        CompiledQuery second = compiler.compile(Query.from(User.class).eq("username", "b").orderBy("id").limit(50));
+        CompiledQuery other = compiler.compile(Query.from(User.class).eq("email", "b").orderBy("id").limit(50));
+
+        assertSame(first, second);
+        assertEquals("SELECT id, username, email FROM users WHERE username = ? ORDER BY id ASC LIMIT ?", first.getSql());
+        assertEquals(1, compiler.getHits());
+        assertEquals(2, compiler.getMisses());
+        assertEquals(2, compiler.size());
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(Query.from(User.class).eq("nope", 1)));
+    }
+}
@@ -0,0 +1,147 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.annotations.EvictionPolicy;
+import com.miniorm.cache.CacheRegionConfig;
+import com.miniorm.cache.CacheStatistics;
+import com.miniorm.cache.QueryResultCache;
+import com.miniorm.cache.SecondLevelCache;
+import com.miniorm.example.User;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.query.Query;
+import com.miniorm.query.SqlBuilder;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.ReplicaRouter;
+import com.miniorm.session.SessionFactory;
+import com.zaxxer.hikari.HikariConfig;
+
+// Each database holds a differently named user 1, so the name shows which one served a read.
+class ReplicaRoutingTest {
+
+    private static final String PRIMARY = "jdbc:h2:mem:routing_primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_A = "jdbc:h2:mem:routing_a;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_B = "jdbc:h2:mem:routing_b;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        createUsers(PRIMARY, "primary");
+        createUsers(REPLICA_A, "a");
+        createUsers(REPLICA_B, "b");
+
+        factory = new SessionFactory(pool(PRIMARY), List.of(pool(REPLICA_A), pool(REPLICA_B)),
+                ReplicaRouter.Selection.ROUND_ROBIN);
+    }
+
+    private static HikariConfig pool(String url) {
+        return SessionFactory.poolConfig(url, "sa", "", 2, new Properties());
+    }
+
+    private static void createUsers(String url, String name) throws Exception {
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS users");
+            stmt.execute(SqlBuilder.buildCreateTable(MetadataRegistry.getDefault().get(User.class)));
+            stmt.execute("INSERT INTO users (username, email) VALUES ('" + name + "', '" + name + "@test.com')");
+        }
+    }
+
+    private static JdbcDataSource dataSource(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+
+    private static String readUser(SessionFactory factory) throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            return session.find(User.class, 1L).getUsername();
+        }
+    }
+
+    @Test
+    void testReadsRotateAcrossReplicas() throws Exception {
+        String first = readUser(factory);
+        String second = readUser(factory);
+        assertTrue(List.of("a", "b").contains(first));
+        assertEquals(first.equals("a") ? "b" : "a", second);
+    }
+
+    @Test
+    void testWriteTransactionReadsFromPrimary() throws Exception {
+        Query<User> primaryUser = Query.from(User.class).eq("username", "primary");
+        try (MiniSession session = factory.openSession()) {
+            assertTrue(session.list(primaryUser).isEmpty());
+
+            session.save(new User("written", "written@test.com"));
+            assertEquals(1, session.list(primaryUser).size());
+            assertEquals(1, session.list(Query.from(User.class).eq("username", "written")).size());
+            session.rollback();
+
+            assertTrue(session.list(primaryUser).isEmpty());
+        }
+    }
+
+    @Test
+    void testReadOnlySessionRejectsWrites() throws Exception {
+        try (MiniSession session = factory.openReadOnlySession()) {
+            assertTrue(session.isReadOnly());
+            assertTrue(List.of("a", "b").contains(session.find(User.class, 1L).getUsername()));
+            assertThrows(IllegalStateException.class, () -> session.save(new User("nope", "nope@test.com")));
+            assertThrows(IllegalStateException.class, session::pipeline);
+        }
+    }
+
+    @Test
+    void testReplicaReadsStayOutOfSharedCaches() throws Exception {
+        SessionFactory cached = new SessionFactory(dataSource(PRIMARY), List.of(dataSource(REPLICA_A)),
+                ReplicaRouter.Selection.ROUND_ROBIN);
+        SecondLevelCache entities = cached.enableSecondLevelCache();
+        entities.configure(User.class, new CacheRegionConfig(100, null, EvictionPolicy.LRU));
+        QueryResultCache queries = cached.enableQueryCache();
+
+        try (MiniSession session = cached.openSession()) {
+            assertEquals("a", session.find(User.class, 1L).getUsername());
+            assertEquals(1, session.list(Query.from(User.class).cacheable()).size());
+        }
+        try (MiniSession session = cached.openReadOnlySession()) {
+            assertEquals("a", session.find(User.class, 1L).getUsername());
+        }
+        assertEquals(0, entities.getStatistics(User.class).size());
+        CacheStatistics results = queries.getStatistics(QueryResultCache.DEFAULT_REGION);
+        assertTrue(results == null || results.size() == 0);
+    }
+
+    @Test
+    void testUnavailableReplicasFallBack() throws Exception {
+        JdbcDataSource missing = dataSource("jdbc:h2:mem:routing_missing;IFEXISTS=TRUE");
+
+        SessionFactory leastLatency = new SessionFactory(dataSource(PRIMARY),
+                List.of(missing, dataSource(REPLICA_A)), ReplicaRouter.Selection.LEAST_LATENCY);
+        assertEquals("a", readUser(leastLatency));
+        assertEquals("a", readUser(leastLatency));
+        ReplicaRouter router = leastLatency.getReplicaRouter();
+        assertFalse(router.isAvailable(0));
+        assertEquals(2, router.getConnections(1));
+        assertTrue(router.getLatencyNanos(1) > 0);
+
+        SessionFactory onlyMissing = new SessionFactory(dataSource(PRIMARY), List.of(missing),
+                ReplicaRouter.Selection.ROUND_ROBIN);
+        assertEquals("primary", readUser(onlyMissing));
+        assertEquals(1, onlyMissing.getReplicaRouter().getFallbacks());
+    }
+}
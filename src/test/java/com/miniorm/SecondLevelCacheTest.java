@@ -0,0 +1,243 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.annotations.Cacheable;
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.EvictionPolicy;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.Table;
+import com.miniorm.cache.CacheRegion;
+import com.miniorm.cache.CacheRegionConfig;
+import com.miniorm.cache.CacheStatistics;
+import com.miniorm.cache.SecondLevelCache;
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class SecondLevelCacheTest {
+
+    private static final String URL = "jdbc:h2:mem:l2cache;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+    private static SecondLevelCache secondLevelCache;
+
+    @Entity
+    @Table(name = "users")
+    @Cacheable(maxSize = 2, eviction = EvictionPolicy.LRU)
+    public static class CachedUser {
+        @Id
+        private Long id;
+
+        @Column(name = "username")
+        private String username;
+
+        public CachedUser() {}
+        public Long getId() { return id; }
+        public String getUsername() { return username; }
+    }
+
+    @Entity
+    @Table(name = "attachments")
+    @Cacheable
+    public static class Attachment {
+        @Id
+        private Long id;
+
+        @Column(name = "data")
+        private byte[] data;
+
+        public Attachment() {}
+        public Long getId() { return id; }
+    }
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+        secondLevelCache = factory.enableSecondLevelCache();
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+            stmt.execute("DROP TABLE IF EXISTS attachments");
+        }
+
+        // Reconfiguring replaces each region, so every test starts with empty regions and statistics.
+        secondLevelCache.configure(CachedUser.class, CacheRegionConfig.of(CachedUser.class.getAnnotation(Cacheable.class)));
+        secondLevelCache.configure(User.class, new CacheRegionConfig(100, null, EvictionPolicy.TINY_LFU));
+        secondLevelCache.configure(Order.class, new CacheRegionConfig(100, null, EvictionPolicy.LRU));
+        secondLevelCache.configure(Attachment.class, new CacheRegionConfig(100, null, EvictionPolicy.LRU));
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            User alice = new User("alice", "alice@test.com");
+            session.save(alice);
+            session.save(new User("bob", "bob@test.com"));
+            session.save(new User("carol", "carol@test.com"));
+            session.save(new Order(12.5, alice));
+            session.commit();
+        }
+    }
+
+    @Test
+    void testFindIsServedAcrossSessionsWithoutSql() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            assertNotNull(session.find(Order.class, 1L));
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            Order order = session.find(Order.class, 1L);
+            assertEquals(12.5, order.getAmount());
+            assertEquals("alice", order.getUser().getUsername());
+            assertSame(order.getUser(), session.find(User.class, 1L));
+            assertEquals(0, session.getStatementCache().getMisses());
+            assertEquals(0, session.getStatementCache().getHits());
+        }
+
+        CacheStatistics users = secondLevelCache.getStatistics(User.class);
+        assertEquals(1, users.hits());
+        assertEquals(1, users.size());
+        assertEquals(1, secondLevelCache.getStatistics(Order.class).hits());
+    }
+
+    @Test
+    void testEntriesAreEvictedOnUpdateAndDelete() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.findByIds(User.class, List.of(1L, 2L, 3L));
+        }
+        assertEquals(3, secondLevelCache.getStatistics(User.class).size());
+
+        try (MiniSession session = factory.openSession()) {
+            User bob = session.find(User.class, 2L);
+            bob.setUsername("robert");
+            session.update(bob);
+            session.delete(session.find(User.class, 3L));
+            session.commit();
+        }
+        assertEquals(1, secondLevelCache.getStatistics(User.class).size());
+
+        try (MiniSession session = factory.openSession()) {
+            assertEquals("robert", session.find(User.class, 2L).getUsername());
+            assertNull(session.find(User.class, 3L));
+        }
+    }
+
+    @Test
+    void testRolledBackWritesDoNotLeaveStaleEntries() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            User alice = session.find(User.class, 1L);
+            alice.setUsername("changed");
+            session.update(alice);
+            // Another session re-reads the committed row while the update is still pending.
+            try (MiniSession other = factory.openSession()) {
+                assertEquals("alice", other.find(User.class, 1L).getUsername());
+            }
+            session.rollback();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            User alice = session.find(User.class, 1L);
+            assertEquals("alice", alice.getUsername());
+            assertEquals(1, session.getStatementCache().getMisses());
+        }
+    }
+
+    @Test
+    void testLoadsReadBeforeAnEvictionAreNotCached() {
+        CacheRegion<Object[]> region = secondLevelCache.regionFor(User.class);
+        long stamp = secondLevelCache.getInvalidationStamp();
+        // A concurrent commit evicts the row after it was read but before the loader caches it.
+        secondLevelCache.evict(User.class, 1L);
+        secondLevelCache.putIfUnchanged(region, 1L, new Object[] { 1L, "stale", "stale@test.com" }, stamp);
+        assertNull(region.get(1L));
+
+        secondLevelCache.putIfUnchanged(region, 1L, new Object[] { 1L, "alice", "alice@test.com" }, secondLevelCache.getInvalidationStamp());
+        assertNotNull(region.get(1L));
+    }
+
+    @Test
+    void testInPlaceArrayEditsAreFlushedAndNotShared() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(Attachment.class);
+            Attachment attachment = new Attachment();
+            attachment.data = new byte[] { 1, 2, 3 };
+            session.save(attachment);
+            session.commit();
+        }
+
+        try (MiniSession writer = factory.openSession()) {
+            writer.setUnitOfWork(true);
+            writer.find(Attachment.class, 1L).data[0] = 9;
+
+            try (MiniSession other = factory.openSession()) {
+                Attachment cached = other.find(Attachment.class, 1L);
+                assertArrayEquals(new byte[] { 1, 2, 3 }, cached.data);
+                cached.data[1] = 8;
+            }
+            try (MiniSession other = factory.openSession()) {
+                assertArrayEquals(new byte[] { 1, 2, 3 }, other.find(Attachment.class, 1L).data);
+            }
+            writer.commit();
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            assertArrayEquals(new byte[] { 9, 2, 3 }, session.find(Attachment.class, 1L).data);
+        }
+    }
+
+    @Test
+    void testCacheableRegionIsBoundedByLru() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.find(CachedUser.class, 1L);
+            session.find(CachedUser.class, 2L);
+            session.find(CachedUser.class, 3L);
+        }
+
+        CacheStatistics stats = secondLevelCache.getStatistics(CachedUser.class);
+        assertEquals(2, stats.size());
+        assertEquals(1, stats.evictions());
+
+        try (MiniSession session = factory.openSession()) {
+            CachedUser first = session.find(CachedUser.class, 1L);
+            assertEquals("alice", first.getUsername());
+            assertEquals(1, session.getStatementCache().getMisses());
+            assertEquals("carol", session.find(CachedUser.class, 3L).getUsername());
+            assertEquals(1, session.getStatementCache().getMisses());
+        }
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() throws Exception {
+        secondLevelCache.configure(User.class, new CacheRegionConfig(100, Duration.ofMillis(20), EvictionPolicy.LRU));
+        try (MiniSession session = factory.openSession()) {
+            session.find(User.class, 1L);
+        }
+        Thread.sleep(50);
+
+        try (MiniSession session = factory.openSession()) {
+            session.find(User.class, 1L);
+            assertEquals(1, session.getStatementCache().getMisses());
+        }
+        assertEquals(1, secondLevelCache.getStatistics(User.class).expirations());
+    }
+}
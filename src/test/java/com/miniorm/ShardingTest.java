@@ -0,0 +1,200 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.JoinColumn;
+import com.miniorm.annotations.ManyToOne;
+import com.miniorm.annotations.ShardKey;
+import com.miniorm.annotations.Table;
+import com.miniorm.session.SessionFactory;
+import com.miniorm.shard.ShardFunction;
+import com.miniorm.shard.ShardedSession;
+import com.miniorm.shard.ShardedSessionFactory;
+
+class ShardingTest {
+
+    private static final String[] URLS = {
+            "jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "jdbc:h2:mem:shard2;MODE=MySQL;DB_CLOSE_DELAY=-1"
+    };
+
+    private static ShardedSessionFactory factory;
+
+    @Entity
+    @Table(name = "shard_customers")
+    public static class Customer {
+        @Id
+        @ShardKey
+        private Long id;
+
+        @Column(name = "name")
+        private String name;
+
+        public Customer() {}
+        public Customer(Long id, String name) { this.id = id; this.name = name; }
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    @Entity
+    @Table(name = "shard_purchases")
+    public static class Purchase {
+        @Id
+        private Long id;
+
+        @Column(name = "amount")
+        private Double amount;
+
+        @ManyToOne
+        @JoinColumn(name = "customer_id")
+        @ShardKey
+        private Customer customer;
+
+        public Purchase() {}
+        public Purchase(Double amount, Customer customer) { this.amount = amount; this.customer = customer; }
+        public Long getId() { return id; }
+        public Double getAmount() { return amount; }
+        public Customer getCustomer() { return customer; }
+    }
+
+    @BeforeAll
+    static void setupFactory() {
+        List<SessionFactory> shards = new ArrayList<>();
+        for (String url : URLS) {
+            shards.add(new SessionFactory(url, "sa", "", 2));
+        }
+        // Customers 1-2 on shard 0, 3-4 on shard 1, the rest on shard 2.
+        factory = new ShardedSessionFactory(shards, ShardFunction.range(3, 5));
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        factory.close();
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        for (String url : URLS) {
+            execute(url, "DROP TABLE IF EXISTS shard_purchases");
+            execute(url, "DROP TABLE IF EXISTS shard_customers");
+        }
+        try (ShardedSession session = factory.openSession()) {
+            session.createTable(Customer.class);
+            session.createTable(Purchase.class);
+        }
+        // Distinct id ranges per shard, as auto_increment_offset would give on MySQL.
+        for (int shard = 0; shard < URLS.length; shard++) {
+            execute(URLS[shard], "ALTER TABLE shard_purchases ALTER COLUMN id RESTART WITH " + (shard * 1000 + 1));
+        }
+
+        try (ShardedSession session = factory.openSession()) {
+            List<Customer> customers = new ArrayList<>();
+            List<Purchase> purchases = new ArrayList<>();
+            for (long id = 1; id <= 6; id++) {
+                Customer customer = new Customer(id, "customer" + id);
+                customers.add(customer);
+                purchases.add(new Purchase(id * 10.0, customer));
+            }
+            session.saveAll(customers);
+            session.saveAll(purchases);
+            session.commit();
+        }
+    }
+
+    private static void execute(String url, String sql) throws Exception {
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static int count(int shard, String table) throws Exception {
+        try (Connection conn = DriverManager.getConnection(URLS[shard], "sa", "");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void testShardFunctions() {
+        ShardFunction range = ShardFunction.range(100, 200);
+        assertEquals(0, range.shardFor(5L, 3));
+        assertEquals(1, range.shardFor(150, 3));
+        assertEquals(2, range.shardFor(999L, 3));
+        assertThrows(IllegalArgumentException.class, () -> range.shardFor(5L, 4));
+
+        ShardFunction hash = ShardFunction.hash();
+        assertEquals(hash.shardFor(42L, 8), hash.shardFor(42, 8));
+        int[] counts = new int[4];
+        for (long key = 0; key < 4000; key++) {
+            counts[hash.shardFor(key, 4)]++;
+        }
+        for (int count : counts) {
+            assertEquals(1000, count, 100);
+        }
+    }
+
+    @Test
+    void testWritesLandOnTheKeyShard() throws Exception {
+        for (int shard = 0; shard < URLS.length; shard++) {
+            assertEquals(2, count(shard, "shard_customers"));
+            assertEquals(2, count(shard, "shard_purchases"));
+        }
+
+        try (ShardedSession session = factory.openSession()) {
+            Purchase purchase = session.find(Purchase.class, 1001L);
+            assertEquals("customer3", purchase.getCustomer().getName());
+            assertEquals(purchase.getId(), session.find(Purchase.class, 1001L, 3L).getId());
+            assertNull(session.find(Purchase.class, 3L));
+            assertThrows(IllegalArgumentException.class, () -> session.save(new Customer(null, "no id")));
+        }
+    }
+
+    @Test
+    void testFindByIdsScattersAndKeepsOrder() throws Exception {
+        try (ShardedSession session = factory.openSession()) {
+            List<Customer> customers = session.findByIds(Customer.class, List.of(6L, 1L, 99L, 4L));
+            assertEquals(List.of("customer6", "customer1", "customer4"), customers.stream().map(Customer::getName).toList());
+
+            List<Purchase> purchases = session.findByIds(Purchase.class, List.of(2001L, 1L, 1002L));
+            assertEquals(List.of(50.0, 10.0, 40.0), purchases.stream().map(Purchase::getAmount).toList());
+        }
+    }
+
+    @Test
+    void testUpdateAndDeleteRouteByKey() throws Exception {
+        try (ShardedSession session = factory.openSession()) {
+            Customer customer = session.find(Customer.class, 5L);
+            customer.setName("renamed");
+            session.update(customer);
+            session.delete(session.find(Purchase.class, 2002L));
+            session.commit();
+        }
+
+        try (ShardedSession session = factory.openSession()) {
+            assertEquals("renamed", session.find(Customer.class, 5L).getName());
+            assertNull(session.find(Purchase.class, 2002L));
+        }
+        assertEquals(1, count(2, "shard_purchases"));
+    }
+}
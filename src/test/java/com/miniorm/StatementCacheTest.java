@@ -0,0 +1,80 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.cache.StatementCache;
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class StatementCacheTest {
+
+    private static final String URL = "jdbc:h2:mem:stmt_cache;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void testLruEvictionAndCounters() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             StatementCache statements = new StatementCache(conn, 2)) {
+            PreparedStatement first;
+            try (StatementCache.Lease lease = statements.lease("SELECT 1", false)) {
+                first = lease.statement();
+            }
+            try (StatementCache.Lease lease = statements.lease("SELECT 1", false)) {
+                assertSame(first, lease.statement());
+            }
+            try (StatementCache.Lease lease = statements.lease("SELECT 1", true)) {
+                assertNotSame(first, lease.statement());
+            }
+            try (StatementCache.Lease lease = statements.lease("SELECT 2", false)) {
+                lease.statement().executeQuery().close();
+            }
+
+            assertTrue(first.isClosed(), "Least recently used statement should be closed on eviction");
+            assertEquals(1, statements.getHits());
+            assertEquals(3, statements.getMisses());
+            assertEquals(1, statements.getEvictions());
+            assertEquals(2, statements.size());
+        }
+    }
+
+    @Test
+    void testNestedLeaseOfSameTemplateGetsPrivateStatement() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             StatementCache statements = new StatementCache(conn, 4)) {
+            try (StatementCache.Lease outer = statements.lease("SELECT 1", false)) {
+                PreparedStatement nested;
+                try (StatementCache.Lease inner = statements.lease("SELECT 1", false)) {
+                    nested = inner.statement();
+                    assertNotSame(outer.statement(), nested);
+                }
+                assertTrue(nested.isClosed());
+                assertTrue(!outer.statement().isClosed());
+            }
+        }
+    }
+
+    @Test
+    void testSessionReusesStatements() throws Exception {
+        SessionFactory factory = new SessionFactory(URL, "sa", "");
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            for (int i = 0; i < 5; i++) {
+                session.save(new User("user" + i, "user" + i + "@test.com"));
+            }
+            session.rollback();
+
+            assertEquals(1, session.getStatementCache().getMisses());
+            assertEquals(4, session.getStatementCache().getHits());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.miniorm;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.miniorm.example.User;
+import com.miniorm.scan.ScanCheckpoints;
+import com.miniorm.scan.TableScan;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class TableScanTest {
+
+    private static final String URL = "jdbc:h2:mem:scan;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int ROWS = 1000;
+    private static final int CHUNK = 64;
+
+    private static SessionFactory factory;
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                users.add(new User("user" + i, "user" + i + "@test.com"));
+            }
+            session.saveAll(users);
+            session.commit();
+        }
+    }
+
+    @Test
+    void testScanVisitsEveryRowOnceWithBoundedSessions() throws Exception {
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger oversized = new AtomicInteger();
+
+        TableScan.Result result = factory.scan(User.class).chunkSize(CHUNK).workers(4).run((session, chunk) -> {
+            if (session.getFirstLevelCache().size(User.class) > CHUNK) {
+                oversized.incrementAndGet();
+            }
+            for (User user : chunk) {
+                if (!seen.add(user.getId())) {
+                    duplicates.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(ROWS, seen.size());
+        assertEquals(0, duplicates.get());
+        assertEquals(0, oversized.get());
+        assertEquals(ROWS, result.rows());
+        assertEquals((ROWS + CHUNK - 1) / CHUNK, result.chunks());
+        assertEquals((long) ROWS, result.lastId());
+    }
+
+    @Test
+    void testWorkersFitThePool() throws Exception {
+        SessionFactory small = new SessionFactory(URL, "sa", "", 2);
+        assertEquals(ROWS, small.scan(User.class).chunkSize(CHUNK).run((session, chunk) -> {}).rows());
+        assertThrows(IllegalArgumentException.class, () -> small.scan(User.class).workers(2).run((session, chunk) -> {}));
+    }
+
+    @Test
+    void testFailedScanResumesFromCheckpoint() throws Exception {
+        ScanCheckpoints checkpoints = ScanCheckpoints.inMemory();
+        long poison = 500;
+        assertThrows(IllegalStateException.class, () -> factory.scan(User.class).chunkSize(CHUNK).workers(2)
+                .checkpoints(checkpoints, "export").run((session, chunk) -> {
+                    if (chunk.stream().anyMatch(user -> user.getId() == poison)) {
+                        throw new IllegalStateException("poison row");
+                    }
+                }));
+        Long checkpoint = checkpoints.load("export");
+        assertTrue(checkpoint == null || checkpoint < poison);
+
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        TableScan.Result result = factory.scan(User.class).chunkSize(CHUNK).workers(2)
+                .checkpoints(checkpoints, "export").run((session, chunk) -> chunk.forEach(user -> seen.add(user.getId())));
+        long resumedFrom = checkpoint == null ? 0 : checkpoint;
+        assertEquals(ROWS - resumedFrom, seen.size());
+        assertEquals(ROWS - resumedFrom, result.rows());
+        assertNull(checkpoints.load("export"));
+    }
+
+    @Test
+    void testFileCheckpoints(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("scans.properties");
+        ScanCheckpoints checkpoints = ScanCheckpoints.file(file);
+        checkpoints.save("users", 128);
+        checkpoints.save("orders", 7);
+        assertEquals(128L, ScanCheckpoints.file(file).load("users"));
+
+        checkpoints.clear("users");
+        ScanCheckpoints reopened = ScanCheckpoints.file(file);
+        assertNull(reopened.load("users"));
+        assertEquals(7L, reopened.load("orders"));
+    }
+}
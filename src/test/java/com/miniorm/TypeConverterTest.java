@@ -0,0 +1,235 @@
+package com.miniorm;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.EnumType;
+import com.miniorm.annotations.Enumerated;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.Table;
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.metadata.PropertyAccessStrategy;
+import com.miniorm.query.Query;
+import com.miniorm.query.SqlBuilder;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+import com.miniorm.types.TypeConverters;
+
+class TypeConverterTest {
+
+    private static final String URL = "jdbc:h2:mem:types;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    public enum Status { DRAFT, PUBLISHED, ARCHIVED }
+
+    public enum Tier { FREE, PRO }
+
+    public record Summary(UUID sku, Status status, Instant created) {}
+
+    @Entity
+    @Table(name = "products")
+    public static class Product {
+        @Id
+        private Long id;
+
+        @Column(name = "sku")
+        private UUID sku;
+
+        @Column(name = "price")
+        private BigDecimal price;
+
+        @Column(name = "weight", precision = 6, scale = 2)
+        private BigDecimal weight;
+
+        @Column(name = "active")
+        private boolean active;
+
+        @Column(name = "quantity")
+        private int quantity;
+
+        @Column(name = "status")
+        private Status status;
+
+        @Enumerated(EnumType.ORDINAL)
+        @Column(name = "tier")
+        private Tier tier;
+
+        @Column(name = "released")
+        private LocalDate released;
+
+        @Column(name = "updated_at")
+        private LocalDateTime updatedAt;
+
+        @Column(name = "created")
+        private Instant created;
+
+        @Column(name = "checksum")
+        private byte[] checksum;
+
+        public Product() {}
+        public Long getId() { return id; }
+    }
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS products");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(Product.class);
+            session.commit();
+        }
+    }
+
+    private static Product sample() {
+        Product product = new Product();
+        product.sku = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        product.price = new BigDecimal("19.9900");
+        product.weight = new BigDecimal("1250.5");
+        product.active = true;
+        product.quantity = 7;
+        product.status = Status.PUBLISHED;
+        product.tier = Tier.PRO;
+        product.released = LocalDate.of(2024, 2, 29);
+        product.updatedAt = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+        product.created = Instant.parse("2024-03-01T10:15:30.654321Z");
+        product.checksum = new byte[] { 1, 2, 3, (byte) 0xff };
+        return product;
+    }
+
+    @Test
+    void testCreateTableUsesNativeTypes() {
+        assertTrue(MetadataRegistry.hasGeneratedMapping(Product.class));
+        assertEquals("CREATE TABLE IF NOT EXISTS products (id BIGINT AUTO_INCREMENT PRIMARY KEY, sku BINARY(16), "
+                        + "price DECIMAL(19,4), weight DECIMAL(6,2), active BOOLEAN, quantity INT, status VARCHAR(9), tier TINYINT, released DATE, "
+                        + "updated_at DATETIME(6), created DATETIME(6), checksum BLOB)",
+                SqlBuilder.buildCreateTable(MetadataRegistry.getDefault().get(Product.class)));
+        assertEquals(SqlBuilder.buildCreateTable(new EntityMetadata(Product.class)),
+                SqlBuilder.buildCreateTable(MetadataRegistry.getDefault().get(Product.class)));
+        assertThrows(IllegalArgumentException.class, () -> TypeConverters.forEnum(String.class, EnumType.STRING));
+    }
+
+    @Test
+    void testRoundTripThroughGeneratedAndReflectiveMetadata() throws Exception {
+        Product expected = sample();
+        try (MiniSession session = factory.openSession()) {
+            session.save(expected);
+            session.save(new Product());
+            session.commit();
+        }
+
+        SessionFactory reflective = new SessionFactory(URL, "sa", "");
+        reflective.setPropertyAccessStrategy(PropertyAccessStrategy.defaultStrategy());
+        for (SessionFactory source : List.of(factory, reflective)) {
+            try (MiniSession session = source.openSession()) {
+                Product loaded = session.find(Product.class, expected.getId());
+                assertEquals(expected.sku, loaded.sku);
+                assertEquals(expected.price, loaded.price);
+                assertEquals(new BigDecimal("1250.50"), loaded.weight);
+                assertTrue(loaded.active);
+                assertEquals(7, loaded.quantity);
+                assertEquals(Status.PUBLISHED, loaded.status);
+                assertEquals(Tier.PRO, loaded.tier);
+                assertEquals(expected.released, loaded.released);
+                assertEquals(expected.updatedAt, loaded.updatedAt);
+                assertEquals(expected.created, loaded.created);
+                assertArrayEquals(expected.checksum, loaded.checksum);
+
+                Product empty = session.find(Product.class, expected.getId() + 1);
+                assertNull(empty.sku);
+                assertNull(empty.status);
+                assertNull(empty.tier);
+                assertNull(empty.created);
+                assertFalse(empty.active);
+                assertEquals(0, empty.quantity);
+            }
+        }
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT status, tier, created FROM products WHERE id = " + expected.getId())) {
+            rs.next();
+            assertEquals("PUBLISHED", rs.getString(1));
+            assertEquals(1, rs.getInt(2));
+            assertEquals(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 654_321_000), rs.getObject(3, LocalDateTime.class));
+        }
+    }
+
+    @Test
+    void testDecimalsThatDoNotFitAreRejected() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            Product precise = sample();
+            precise.price = new BigDecimal("1.23456");
+            assertThrows(IllegalArgumentException.class, () -> session.save(precise));
+
+            Product heavy = sample();
+            heavy.weight = new BigDecimal("12345.6");
+            assertThrows(IllegalArgumentException.class, () -> session.save(heavy));
+
+            Product padded = sample();
+            padded.price = new BigDecimal("2.500000");
+            session.save(padded);
+            assertEquals(new BigDecimal("2.5000"), session.listRows(Query.from(Product.class).select("price")).get(0)[0]);
+        }
+        assertThrows(IllegalArgumentException.class, () -> TypeConverters.forDecimal(2, 3));
+    }
+
+    @Test
+    void testQueriesConvertParametersAndProjections() throws Exception {
+        Product expected = sample();
+        try (MiniSession session = factory.openSession()) {
+            session.save(expected);
+            assertEquals(1, session.list(Query.from(Product.class).eq("sku", expected.sku).eq("status", Status.PUBLISHED)).size());
+            assertEquals(1, session.list(Query.from(Product.class).eq("tier", Tier.PRO).gt("created", Instant.EPOCH)).size());
+
+            assertEquals(1, session.updateWhere(Query.from(Product.class).eq("sku", expected.sku), Map.of("status", Status.ARCHIVED)));
+            List<Summary> summaries = session.list(Query.from(Product.class).select("sku", "status", "created"), Summary.class);
+            assertEquals(List.of(new Summary(expected.sku, Status.ARCHIVED, expected.created)), summaries);
+            session.commit();
+        }
+    }
+
+    @Test
+    void testWiderIntegerColumnReadsIntoIntField() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE products ALTER COLUMN quantity SET DATA TYPE BIGINT");
+            stmt.execute("INSERT INTO products (quantity, active) VALUES (42, TRUE)");
+        }
+        try (MiniSession session = factory.openSession()) {
+            Product product = session.first(Query.from(Product.class).eq("quantity", 42));
+            assertEquals(42, product.quantity);
+        }
+        assertEquals("BINARY(16)", TypeConverters.forType(UUID.class).sqlType());
+        assertEquals("VARCHAR(255)", TypeConverters.forType(Object.class).sqlType());
+    }
+}
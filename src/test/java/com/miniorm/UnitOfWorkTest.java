@@ -0,0 +1,155 @@
+package com.miniorm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+class UnitOfWorkTest {
+
+    private static final String URL = "jdbc:h2:mem:unitofwork;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static SessionFactory factory;
+
+    @BeforeAll
+    static void setupFactory() {
+        factory = new SessionFactory(URL, "sa", "");
+        factory.setUnitOfWork(true);
+    }
+
+    @AfterAll
+    static void resetFactory() {
+        factory.setUnitOfWork(false);
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            User alice = new User("alice", "alice@test.com");
+            User bob = new User("bob", "bob@test.com");
+            session.saveAll(List.of(alice, bob));
+            session.saveAll(List.of(new Order(10.0, alice), new Order(20.0, alice), new Order(30.0, bob)));
+            session.commit();
+        }
+    }
+
+    private static void execute(String sql) throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static String queryString(String sql) throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    @Test
+    void testCommitFlushesOnlyChangedColumns() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            User alice = session.find(User.class, 1L);
+            // Changed behind the session; a full-row UPDATE would overwrite it with the stale value.
+            execute("UPDATE users SET email = 'changed@test.com' WHERE id = 1");
+
+            alice.setUsername("alicia");
+            session.commit();
+        }
+
+        assertEquals("alicia", queryString("SELECT username FROM users WHERE id = 1"));
+        assertEquals("changed@test.com", queryString("SELECT email FROM users WHERE id = 1"));
+    }
+
+    @Test
+    void testCleanEntitiesAreNotWritten() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.findByIds(Order.class, List.of(1L, 2L, 3L));
+            long misses = session.getStatementCache().getMisses();
+            session.commit();
+            assertEquals(misses, session.getStatementCache().getMisses());
+        }
+    }
+
+    @Test
+    void testDirtyEntitiesAreBatchedPerChangedColumns() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            List<Order> orders = session.findByIds(Order.class, List.of(1L, 2L, 3L));
+            User bob = session.find(User.class, 2L);
+            long misses = session.getStatementCache().getMisses();
+
+            orders.forEach(order -> order.setAmount(order.getAmount() + 1));
+            orders.get(0).setUser(bob);
+            bob.setUsername("robert");
+            session.commit();
+
+            // users SET username, orders SET amount, orders SET amount + user_id
+            assertEquals(misses + 3, session.getStatementCache().getMisses());
+
+            orders.get(1).setAmount(99.0);
+            session.commit();
+            assertEquals(misses + 3, session.getStatementCache().getMisses());
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            Order first = session.find(Order.class, 1L);
+            assertEquals(11.0, first.getAmount());
+            assertEquals("robert", first.getUser().getUsername());
+            assertEquals(99.0, session.find(Order.class, 2L).getAmount());
+            assertEquals(31.0, session.find(Order.class, 3L).getAmount());
+        }
+    }
+
+    @Test
+    void testSavedAndUpdatedEntitiesAreTracked() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            User carol = new User("carol", "carol@test.com");
+            session.save(carol);
+            carol.setUsername("caroline");
+
+            Order order = session.find(Order.class, 3L);
+            order.setAmount(5.0);
+            session.update(order);
+            session.commit();
+        }
+
+        assertEquals("caroline", queryString("SELECT username FROM users WHERE id = 3"));
+        assertEquals("5.0", queryString("SELECT amount FROM orders WHERE id = 3"));
+    }
+
+    @Test
+    void testPartialUpdateSql() {
+        EntityMetadata meta = MetadataRegistry.getDefault().get(Order.class);
+        BitSet changed = new BitSet();
+        changed.set(meta.getForeignKeyColumnIndex(0) - 1);
+        assertEquals("UPDATE orders SET user_id = ? WHERE id = ?", meta.getUpdateSql(changed));
+        changed.set(meta.getColumnIndex(0) - 1);
+        assertEquals("UPDATE orders SET amount = ?, user_id = ? WHERE id = ?", meta.getUpdateSql(changed));
+    }
+}
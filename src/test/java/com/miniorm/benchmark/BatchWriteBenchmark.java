@@ -0,0 +1,105 @@
+package com.miniorm.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchWriteBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:batch_bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int ROWS = 1000;
+
+    private SessionFactory factory;
+    private User owner;
+    private List<Order> orders;
+
+    @Setup(Level.Trial)
+    public void setupDatabase() throws Exception {
+        factory = new SessionFactory(URL, "sa", "");
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            owner = new User("bench", "bench@test.com");
+            session.save(owner);
+            session.commit();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareOrders() {
+        orders = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            orders.add(new Order((double) i, owner));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void perEntitySave() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            for (Order order : orders) {
+                session.save(order);
+            }
+            session.rollback();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batchedSaveAll() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.saveAll(orders);
+            session.rollback();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void multiRowSaveAll() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.setMultiRowInsert(true);
+            session.saveAll(orders);
+            session.rollback();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(BatchWriteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.miniorm.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.Table;
+import com.miniorm.example.User;
+import com.miniorm.query.Query;
+import com.miniorm.session.AsyncSession;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+// Independent reads against a view that sleeps for every row it produces, standing in for network and
+// server latency. Sequential reads add the latencies up; fan-out overlaps them on separate connections.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:fanout_bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int USERS = 200;
+    private static volatile long latencyMillis;
+
+    @Param({"8"})
+    public int queries;
+
+    @Param({"2"})
+    public long latencyMs;
+
+    private SessionFactory factory;
+    private AsyncSession async;
+    private List<Query<RemoteUser>> reads;
+
+    @Entity
+    @Table(name = "remote_users")
+    public static class RemoteUser {
+        @Id
+        private Long id;
+
+        @Column(name = "username")
+        private String username;
+
+        public RemoteUser() {}
+        public String getUsername() { return username; }
+    }
+
+    public static int networkDelay() throws InterruptedException {
+        Thread.sleep(latencyMillis);
+        return 0;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        latencyMillis = latencyMs;
+        factory = new SessionFactory(URL, "sa", "", queries);
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP VIEW IF EXISTS remote_users");
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                users.add(new User("user" + i, "user" + i + "@bench.com"));
+            }
+            session.saveAll(users);
+            session.commit();
+        }
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE ALIAS IF NOT EXISTS NETWORK_DELAY FOR \"" + FanOutBenchmark.class.getName() + ".networkDelay\"");
+            stmt.execute("CREATE VIEW remote_users AS SELECT u.id, u.username FROM users u "
+                    + "CROSS JOIN (SELECT NETWORK_DELAY() AS delay) d");
+        }
+
+        reads = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            reads.add(Query.from(RemoteUser.class).ge("id", (long) i * 10).lt("id", (long) i * 10 + 10));
+        }
+        async = factory.openAsyncSession();
+        async.listAllAsync(reads).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        async.close();
+    }
+
+    @Benchmark
+    public List<RemoteUser> sequential() throws Exception {
+        List<RemoteUser> merged = new ArrayList<>();
+        try (MiniSession session = factory.openSession()) {
+            for (Query<RemoteUser> read : reads) {
+                merged.addAll(session.list(read));
+            }
+        }
+        return merged;
+    }
+
+    @Benchmark
+    public List<RemoteUser> fanOut() {
+        return async.listAllAsync(reads).join();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(FanOutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
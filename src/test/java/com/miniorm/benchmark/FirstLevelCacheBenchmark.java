@@ -0,0 +1,80 @@
+package com.miniorm.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.miniorm.cache.FirstLevelCache;
+import com.miniorm.example.User;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FirstLevelCacheBenchmark {
+
+    private static final int ENTITIES = 10_000;
+
+    @Param({"STRONG", "WEAK"})
+    public FirstLevelCache.ReferenceMode mode;
+
+    private FirstLevelCache cache;
+    private User[] users;
+    private Long[] boxedIds;
+
+    @Setup
+    public void setup() {
+        cache = new FirstLevelCache(mode);
+        users = new User[ENTITIES];
+        boxedIds = new Long[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            users[i] = new User("user" + i, "user" + i + "@bench.com");
+            boxedIds[i] = (long) i;
+            cache.put(User.class, boxedIds[i], users[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES)
+    public void hitByLong(Blackhole bh) {
+        for (long id = 0; id < ENTITIES; id++) {
+            bh.consume(cache.get(User.class, id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES)
+    public void hitByObject(Blackhole bh) {
+        for (Long id : boxedIds) {
+            bh.consume(cache.get(User.class, (Object) id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES)
+    public void miss(Blackhole bh) {
+        for (long id = ENTITIES; id < 2 * ENTITIES; id++) {
+            bh.consume(cache.get(User.class, id));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(FirstLevelCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,132 @@
+package com.miniorm.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.miniorm.example.User;
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.MethodHandleAccessStrategy;
+import com.miniorm.metadata.PropertyAccessStrategy;
+import com.miniorm.metadata.PropertyAccessor;
+import com.miniorm.metadata.ReflectionAccessStrategy;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HydrationBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:hydration_bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int ROWS = 1000;
+
+    @Param({"reflection", "methodHandle"})
+    public String strategy;
+
+    private SessionFactory factory;
+    private EntityMetadata meta;
+    private Object[][] rows;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        PropertyAccessStrategy accessStrategy = strategy.equals("reflection")
+                ? ReflectionAccessStrategy.INSTANCE
+                : MethodHandleAccessStrategy.INSTANCE;
+
+        factory = new SessionFactory(URL, "sa", "");
+        factory.setPropertyAccessStrategy(accessStrategy);
+        meta = new EntityMetadata(User.class, accessStrategy);
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            List<User> users = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                users.add(new User("user" + i, "user" + i + "@test.com"));
+            }
+            session.saveAll(users);
+            session.commit();
+        }
+
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[] { (long) i + 1, "user" + i, "user" + i + "@test.com" };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void hydrateRows(Blackhole bh) {
+        PropertyAccessor idAccessor = meta.getIdAccessor();
+        List<PropertyAccessor> accessors = meta.getColumnAccessors();
+        for (Object[] row : rows) {
+            Object entity = meta.newInstance();
+            idAccessor.set(entity, row[0]);
+            for (int c = 0; c < accessors.size(); c++) {
+                accessors.get(c).set(entity, row[c + 1]);
+            }
+            bh.consume(entity);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void findRows(Blackhole bh) throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            for (long id = 1; id <= ROWS; id++) {
+                bh.consume(session.find(User.class, id));
+            }
+        }
+    }
+
+    // Full result set path: executeQuery plus mapResultSetToEntity for every row.
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<User> findAllRows() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            return session.findAll(User.class);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(HydrationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.miniorm.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.miniorm.example.Order;
+import com.miniorm.example.Order_Metadata;
+import com.miniorm.example.User;
+import com.miniorm.metadata.EntityMetadata;
+import com.miniorm.metadata.MetadataRegistry;
+import com.miniorm.query.CompiledQuery;
+import com.miniorm.query.Query;
+import com.miniorm.query.QueryCompiler;
+import com.miniorm.query.SqlBuilder;
+
+// Startup-side costs: building entity metadata by reflection or from the processor-generated mapping,
+// generating its SQL and compiling queries.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+
+    private EntityMetadata orderMeta;
+    private QueryCompiler compiler;
+
+    @Setup
+    public void setup() {
+        orderMeta = new EntityMetadata(Order.class);
+        compiler = MetadataRegistry.getDefault().getQueryCompiler();
+    }
+
+    @Benchmark
+    public EntityMetadata userMetadata() {
+        return new EntityMetadata(User.class);
+    }
+
+    @Benchmark
+    public EntityMetadata orderMetadata() {
+        return new EntityMetadata(Order.class);
+    }
+
+    @Benchmark
+    public EntityMetadata orderMetadataGenerated() {
+        return new EntityMetadata(new Order_Metadata());
+    }
+
+    @Benchmark
+    public String buildInsert() {
+        return SqlBuilder.buildInsert(orderMeta);
+    }
+
+    @Benchmark
+    public String buildMultiRowInsert() {
+        return SqlBuilder.buildMultiRowInsert(orderMeta, 100);
+    }
+
+    @Benchmark
+    public String buildUpdate() {
+        return SqlBuilder.buildUpdate(orderMeta);
+    }
+
+    @Benchmark
+    public String buildUpsert() {
+        return SqlBuilder.buildUpsert(orderMeta);
+    }
+
+    @Benchmark
+    public String buildSelectById() {
+        return SqlBuilder.buildSelectById(orderMeta);
+    }
+
+    @Benchmark
+    public String buildCreateTable() {
+        return SqlBuilder.buildCreateTable(orderMeta);
+    }
+
+    // Plan cache hit: what a repeated query costs before it reaches JDBC.
+    @Benchmark
+    public CompiledQuery compileQuery() {
+        return compiler.compile(Query.from(Order.class).ge("amount", 10.0).orderBy("id").limit(20));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MetadataBenchmark.class.getSimpleName()).build()).run();
+    }
+}
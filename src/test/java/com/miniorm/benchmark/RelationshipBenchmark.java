@@ -0,0 +1,146 @@
+package com.miniorm.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.miniorm.annotations.Column;
+import com.miniorm.annotations.Entity;
+import com.miniorm.annotations.FetchMode;
+import com.miniorm.annotations.Id;
+import com.miniorm.annotations.JoinColumn;
+import com.miniorm.annotations.ManyToOne;
+import com.miniorm.annotations.Table;
+import com.miniorm.example.Order;
+import com.miniorm.example.User;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+// Loads every order with its eager @ManyToOne user, once per fetch mode, over the same tables.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelationshipBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:relationship_bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int USERS = 200;
+    private static final int ORDERS = 2000;
+
+    @Param({"SELECT", "BATCH", "JOIN"})
+    public FetchMode fetchMode;
+
+    private SessionFactory factory;
+    private Class<?> orderClass;
+
+    @Entity
+    @Table(name = "orders")
+    public static class SelectOrder {
+        @Id
+        private Long id;
+
+        @Column(name = "amount")
+        private Double amount;
+
+        @ManyToOne(fetchMode = FetchMode.SELECT)
+        @JoinColumn(name = "user_id")
+        private User user;
+
+        public SelectOrder() {}
+    }
+
+    @Entity
+    @Table(name = "orders")
+    public static class BatchOrder {
+        @Id
+        private Long id;
+
+        @Column(name = "amount")
+        private Double amount;
+
+        @ManyToOne(fetchMode = FetchMode.BATCH)
+        @JoinColumn(name = "user_id")
+        private User user;
+
+        public BatchOrder() {}
+    }
+
+    @Entity
+    @Table(name = "orders")
+    public static class JoinOrder {
+        @Id
+        private Long id;
+
+        @Column(name = "amount")
+        private Double amount;
+
+        @ManyToOne(fetchMode = FetchMode.JOIN)
+        @JoinColumn(name = "user_id")
+        private User user;
+
+        public JoinOrder() {}
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        orderClass = switch (fetchMode) {
+            case SELECT -> SelectOrder.class;
+            case BATCH -> BatchOrder.class;
+            case JOIN -> JoinOrder.class;
+        };
+        factory = new SessionFactory(URL, "sa", "");
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.createTable(Order.class);
+            List<User> users = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                users.add(new User("user" + i, "user" + i + "@bench.com"));
+            }
+            session.saveAll(users);
+            List<Order> orders = new ArrayList<>(ORDERS);
+            for (int i = 0; i < ORDERS; i++) {
+                orders.add(new Order((double) i, users.get(i % USERS)));
+            }
+            session.saveAll(orders);
+            session.commit();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public List<?> loadOrdersWithUsers() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            return session.findAll(orderClass);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RelationshipBenchmark.class.getSimpleName()).build()).run();
+    }
+}
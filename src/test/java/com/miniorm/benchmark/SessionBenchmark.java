@@ -0,0 +1,87 @@
+package com.miniorm.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.miniorm.example.User;
+import com.miniorm.session.MiniSession;
+import com.miniorm.session.SessionFactory;
+
+// Per-entity round trips through a pooled session: one insert with its commit, then a read from a
+// fresh session so the identity map cannot answer it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:session_bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private SessionFactory factory;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        factory = new SessionFactory(URL, "sa", "");
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS orders");
+            stmt.execute("DROP TABLE IF EXISTS users");
+        }
+        try (MiniSession session = factory.openSession()) {
+            session.createTable(User.class);
+            session.save(new User("seed", "seed@bench.com"));
+            session.commit();
+        }
+    }
+
+    @Benchmark
+    public User saveThenFind() throws Exception {
+        long n = sequence++;
+        User user = new User("user" + n, "user" + n + "@bench.com");
+        try (MiniSession session = factory.openSession()) {
+            session.save(user);
+            session.commit();
+        }
+        try (MiniSession session = factory.openSession()) {
+            return session.find(User.class, user.getId());
+        }
+    }
+
+    @Benchmark
+    public User find() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            return session.find(User.class, 1L);
+        }
+    }
+
+    @Benchmark
+    public User findFromIdentityMap() throws Exception {
+        try (MiniSession session = factory.openSession()) {
+            session.find(User.class, 1L);
+            return session.find(User.class, 1L);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SessionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -27,8 +27,10 @@ public class Order {
     }
 
     public Long getId() { return id; }
+    public Double getAmount() { return amount; }
     public User getUser() { return user; }
     public void setAmount(Double amount) { this.amount = amount; }
+    public void setUser(User user) { this.user = user; }
     
     @Override
     public String toString() {
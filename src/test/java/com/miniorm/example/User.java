@@ -26,6 +26,7 @@ public class User {
     public Long getId() { return id; }
     public String getUsername() { return username; }
     public String getEmail() { return email; }
+    public void setUsername(String username) { this.username = username; }
     
     @Override
     public String toString() {